@@ -0,0 +1,19 @@
+package com.example.bankcards.annotations;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Limits how many money-moving calls run at once on this node. A call waits in a bounded queue for
+ * a free slot and is rejected with 503 when the queue is full or the wait is too long.
+ * Limits are set by {@code admission.write.*}.
+ * <p>
+ * Put it on the outermost method of a request, the slot must be taken before any transaction starts,
+ * so waiting callers hold no connection. A nested annotated call runs in the slot of the outer one.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface AdmissionControlled {
+}
@@ -0,0 +1,17 @@
+package com.example.bankcards.annotations;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Re-runs the whole transactional method when the database aborts it with a serialization
+ * failure (40001) or a deadlock (40P01). Attempts and backoff are set by {@code transaction.retry.*}.
+ * <p>
+ * The retry wraps the transaction, so the annotated method must start it and not join an outer one.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface RetryableTransaction {
+}
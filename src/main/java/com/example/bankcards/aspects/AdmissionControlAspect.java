@@ -0,0 +1,104 @@
+package com.example.bankcards.aspects;
+
+import com.example.bankcards.annotations.AdmissionControlled;
+import com.example.bankcards.exception.ServiceOverloadedException;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@Aspect
+@Component
+//runs before the retry aspect and the transaction interceptor, retries happen inside the slot
+@Order(Ordered.LOWEST_PRECEDENCE - 2)
+public class AdmissionControlAspect {
+
+    //set while the outermost admitted call runs
+    private final ThreadLocal<Boolean> admitted = new ThreadLocal<>();
+
+    private final MeterRegistry meterRegistry;
+    private final Semaphore slots;
+    private final AtomicInteger waiting = new AtomicInteger();
+    private final int maxQueue;
+    private final Duration queueTimeout;
+    private final Duration retryAfter;
+    private final Timer waitTimer;
+
+    public AdmissionControlAspect(MeterRegistry meterRegistry,
+                                  @Value("${admission.write.max-concurrent}") int maxConcurrent,
+                                  @Value("${admission.write.max-queue}") int maxQueue,
+                                  @Value("${admission.write.queue-timeout}") Duration queueTimeout,
+                                  @Value("${admission.write.retry-after}") Duration retryAfter) {
+        this.meterRegistry = meterRegistry;
+        //fair, a queued caller is not overtaken by one that just arrived
+        this.slots = new Semaphore(maxConcurrent, true);
+        this.maxQueue = maxQueue;
+        this.queueTimeout = queueTimeout;
+        this.retryAfter = retryAfter;
+        this.waitTimer = meterRegistry.timer("admission.write.wait");
+        Gauge.builder("admission.write.inflight", slots, s -> maxConcurrent - s.availablePermits()).register(meterRegistry);
+        Gauge.builder("admission.write.queue", waiting, AtomicInteger::get).register(meterRegistry);
+    }
+
+    @Around("@annotation(admissionControlled)")
+    public Object admit(ProceedingJoinPoint joinPoint, AdmissionControlled admissionControlled) throws Throwable {
+        if (admitted.get() != null) {
+            return joinPoint.proceed();
+        }
+
+        acquire();
+        admitted.set(Boolean.TRUE);
+        try {
+            return joinPoint.proceed();
+        } finally {
+            admitted.remove();
+            slots.release();
+        }
+    }
+
+    private void acquire() {
+        //the timed variant with zero wait respects fairness, the untimed tryAcquire would barge
+        if (tryAcquire(0)) {
+            return;
+        }
+        if (waiting.incrementAndGet() > maxQueue) {
+            waiting.decrementAndGet();
+            throw rejected("queue-full");
+        }
+
+        var start = System.nanoTime();
+        try {
+            if (!tryAcquire(queueTimeout.toNanos())) {
+                throw rejected("timeout");
+            }
+        } finally {
+            waiting.decrementAndGet();
+            waitTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private boolean tryAcquire(long nanos) {
+        try {
+            return slots.tryAcquire(nanos, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw rejected("interrupted");
+        }
+    }
+
+    private ServiceOverloadedException rejected(String reason) {
+        meterRegistry.counter("admission.write.rejected", "reason", reason).increment();
+        return new ServiceOverloadedException("Too many concurrent money transfers, try again later", retryAfter);
+    }
+}
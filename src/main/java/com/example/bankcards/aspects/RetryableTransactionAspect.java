@@ -0,0 +1,103 @@
+package com.example.bankcards.aspects;
+
+import com.example.bankcards.annotations.RetryableTransaction;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+
+@Aspect
+@Component
+@Slf4j
+//runs before the transaction interceptor, every attempt gets a new transaction
+@Order(Ordered.LOWEST_PRECEDENCE - 1)
+public class RetryableTransactionAspect {
+
+    private static final Set<String> TRANSIENT_SQL_STATES = Set.of("40001", "40P01");
+
+    //set while the outermost retryable call runs
+    private final ThreadLocal<Boolean> retrying = new ThreadLocal<>();
+
+    private final MeterRegistry meterRegistry;
+    private final int maxAttempts;
+    private final long initialBackoff;
+    private final long maxBackoff;
+
+    public RetryableTransactionAspect(MeterRegistry meterRegistry,
+                                      @Value("${transaction.retry.max-attempts}") int maxAttempts,
+                                      @Value("${transaction.retry.initial-backoff}") Duration initialBackoff,
+                                      @Value("${transaction.retry.max-backoff}") Duration maxBackoff) {
+        this.meterRegistry = meterRegistry;
+        this.maxAttempts = maxAttempts;
+        this.initialBackoff = initialBackoff.toMillis();
+        this.maxBackoff = maxBackoff.toMillis();
+    }
+
+    @Around("@annotation(retryableTransaction)")
+    public Object retry(ProceedingJoinPoint joinPoint, RetryableTransaction retryableTransaction) throws Throwable {
+        //inside an outer transaction only the outer one can be rolled back and re-run
+        //and a nested call is retried by the outer one, so attempts do not multiply
+        if (TransactionSynchronizationManager.isActualTransactionActive() || retrying.get() != null) {
+            return joinPoint.proceed();
+        }
+
+        retrying.set(Boolean.TRUE);
+        try {
+            return retryAttempts(joinPoint);
+        } finally {
+            retrying.remove();
+        }
+    }
+
+    private Object retryAttempts(ProceedingJoinPoint joinPoint) throws Throwable {
+        var method = joinPoint.getSignature().getDeclaringType().getSimpleName() + "." + joinPoint.getSignature().getName();
+        for (int attempt = 1; ; attempt++) {
+            meterRegistry.counter("transaction.retry.attempts", "method", method).increment();
+            try {
+                var result = joinPoint.proceed();
+                meterRegistry.counter("transaction.retry.successes", "method", method).increment();
+                return result;
+            } catch (Throwable e) {
+                if (!isTransient(e)) {
+                    throw e;
+                }
+                if (attempt >= maxAttempts) {
+                    meterRegistry.counter("transaction.retry.give-ups", "method", method).increment();
+                    log.warn("{} failed after {} attempts: {}", method, attempt, e.getMessage());
+                    throw e;
+                }
+                Thread.sleep(backoff(attempt));
+            }
+        }
+    }
+
+    //full jitter: a random delay up to the exponential bound, so aborted competitors do not collide again
+    long backoff(int attempt) {
+        var bound = Math.min(maxBackoff, initialBackoff << Math.min(attempt - 1, 20));
+        return ThreadLocalRandom.current().nextLong(bound + 1);
+    }
+
+    //serialization failures and deadlocks, a new attempt of the whole transaction can succeed
+    public static boolean isTransient(Throwable e) {
+        for (var cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof SQLException sqlException && TRANSIENT_SQL_STATES.contains(sqlException.getSQLState())) {
+                return true;
+            }
+            if (cause.getCause() == cause) {
+                break;
+            }
+        }
+        return false;
+    }
+}
@@ -31,8 +31,14 @@ public class SecurityConfiguration {
     private final String[] onlyAdminUrls = {
             ApiConstants.API_PREFIX_V1.concat(ApiConstants.Account.API_ACCOUNT_ROLE_UPDATE),
             ApiConstants.API_PREFIX_V1.concat(ApiConstants.Account.API_ACCOUNT_LIST),
+            ApiConstants.API_PREFIX_V1.concat(ApiConstants.Account.API_ACCOUNT_SCROLL),
+            ApiConstants.API_PREFIX_V1.concat(ApiConstants.Account.API_ACCOUNT_SLICE),
             ApiConstants.API_PREFIX_V1.concat(ApiConstants.Card.API_CARD_CREATE),
-            ApiConstants.API_PREFIX_V1.concat(ApiConstants.Card.API_CARD_STATUS)
+            ApiConstants.API_PREFIX_V1.concat(ApiConstants.Card.API_CARD_STATUS),
+            ApiConstants.API_PREFIX_V1.concat(ApiConstants.Card.API_CARD_LEDGER_BALANCE),
+            ApiConstants.API_PREFIX_V1.concat(ApiConstants.Crypto.API_KEY_ROTATION),
+            ApiConstants.API_PREFIX_V1.concat(ApiConstants.Crypto.API_KEY_ROTATION_BY_ID),
+            "/actuator/**"
 
     };
 
@@ -46,6 +52,7 @@ public class SecurityConfiguration {
                         .sessionCreationPolicy(SessionCreationPolicy.STATELESS))
                 .authorizeHttpRequests(conf -> conf
                         .requestMatchers(freeResourceUrls).permitAll()
+                        .requestMatchers(HttpMethod.GET, "/actuator/health").permitAll()
                         .requestMatchers(HttpMethod.POST, ApiConstants.API_PREFIX_V1+ ApiConstants.Authorization.API_AUTHORIZATION_LOGIN).permitAll()
                         .requestMatchers(HttpMethod.POST, ApiConstants.API_PREFIX_V1 + ApiConstants.Authorization.API_AUTHORIZATION_REFRESH).permitAll()
                         .requestMatchers(HttpMethod.POST, ApiConstants.API_PREFIX_V1 + ApiConstants.Account.API_ACCOUNT_CREATE_UPDATE).permitAll()
@@ -2,12 +2,15 @@ package com.example.bankcards.constants;
 
 public final class ApiConstants {
     public static final String API_PREFIX_V1 = "/api/v1";
+    public static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
 
     public static class Account {
         public static final String API_ACCOUNT_CONTROLLER_NAME = "Accounts";
         public static final String API_ACCOUNT_BY_ID = "/account/{id}";
         public static final String API_ACCOUNT_CREATE_UPDATE = "/account";
         public static final String API_ACCOUNT_LIST= "/accounts";
+        public static final String API_ACCOUNT_SCROLL = "/accounts/scroll";
+        public static final String API_ACCOUNT_SLICE = "/accounts/slice";
         public static final String API_ACCOUNT_ROLE_UPDATE = "/account/role";
     }
 
@@ -22,10 +25,26 @@ public final class ApiConstants {
         public static final String API_CARD_CONTROLLER_NAME = "Cards";
         public static final String API_CARD_CREATE = "/card/new";
         public static final String API_CARD_LIST = "/cards";
+        public static final String API_CARD_SCROLL = "/cards/scroll";
+        public static final String API_CARD_SLICE = "/cards/slice";
         public static final String API_CARD_TRANSFER = "/card/transfer";
+        public static final String API_CARD_TRANSFER_BATCH = "/card/transfer/batch";
+        public static final String API_CARD_TRANSFER_ASYNC = "/card/transfer/async";
+        public static final String API_CARD_TRANSFER_STATUS = "/card/transfer/status";
         public static final String API_CARD_BY_ID = "/card/{id}";
         public static final String API_CARD_BALANCE_INCREASE = "/card/balance/increase";
         public static final String API_CARD_STATUS = "/card/status";
         public static final String API_CARD_REQUEST_BLOCK = "/card/request/block";
+        public static final String API_CARD_TRANSACTIONS = "/card/transactions";
+        public static final String API_CARD_TRANSACTIONS_EXPORT = "/card/transactions/export";
+        public static final String API_CARDS_TRANSACTIONS = "/cards/transactions";
+        public static final String API_CARDS_TRANSACTIONS_EXPORT = "/cards/transactions/export";
+        public static final String API_CARD_LEDGER_BALANCE = "/card/ledger/balance";
+    }
+
+    public static class Crypto{
+        public static final String API_CRYPTO_CONTROLLER_NAME = "Crypto";
+        public static final String API_KEY_ROTATION = "/crypto/key-rotation";
+        public static final String API_KEY_ROTATION_BY_ID = "/crypto/key-rotation/{id}";
     }
 }
@@ -4,4 +4,10 @@ public final class DbConstants {
     public static final String ACCOUNT_TABLE_NAME = "accounts";
     public static final String TOKEN_TABLE_NAME = "tokens";
     public static final String CARD_TABLE_NAME = "cards";
+    public static final String CARD_SECRET_TABLE_NAME = "card_secrets";
+    public static final String KEY_ROTATION_JOB_TABLE_NAME = "key_rotation_jobs";
+    public static final String IDEMPOTENCY_KEY_TABLE_NAME = "idempotency_keys";
+    public static final String CARD_TRANSACTION_TABLE_NAME = "card_transactions";
+    public static final String CARD_BALANCE_SNAPSHOT_TABLE_NAME = "card_balance_snapshots";
+    public static final String TRANSFER_REQUEST_TABLE_NAME = "transfer_requests";
 }
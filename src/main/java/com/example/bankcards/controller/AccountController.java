@@ -5,9 +5,12 @@ import com.example.bankcards.constants.SecurityConstants;
 import com.example.bankcards.dto.*;
 import com.example.bankcards.entity.Account;
 import com.example.bankcards.enums.Role;
+import com.example.bankcards.enums.TokenStatus;
 import com.example.bankcards.exception.AccessException;
 import com.example.bankcards.interfaces.services.AccountService;
+import com.example.bankcards.interfaces.services.JwtService;
 import com.example.bankcards.mappers.AccountMapper;
+import com.example.bankcards.repository.specifications.EntityPathRegistry;
 import com.example.bankcards.repository.specifications.FilterSpecification;
 import com.example.bankcards.util.PermissionUtils;
 import io.swagger.v3.oas.annotations.Operation;
@@ -21,7 +24,6 @@ import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
-import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
@@ -38,6 +40,8 @@ public class AccountController {
 
     private final AccountService accountService;
     private final AccountMapper accountMapper;
+    private final JwtService jwtService;
+    private final EntityPathRegistry entityPathRegistry;
 
     @GetMapping(ApiConstants.Account.API_ACCOUNT_LIST)
     @Operation(description = "Endpoint to get list of account",
@@ -56,21 +60,59 @@ public class AccountController {
                                                     @RequestParam(name = "direction", required = false) String direction,
                                                     @RequestParam(name = "field", required = false) String field) {
 
-        Sort sort = Sort.unsorted();
-        if (direction != null && field != null) {
-            sort = Sort.by(Sort.Direction.fromString(direction), field);
-        }
+        Pageable pageable = PageRequest.of(page, size, entityPathRegistry.sort(Account.class, direction, field));
 
-        Pageable pageable = PageRequest.of(page, size, sort);
-        Specification<Account> spec = Specification.allOf();
-        if(StringUtils.hasText(search)) {
-            spec = spec.and(FilterSpecification.like("username", search))
-                    .or(FilterSpecification.like("mail", search))
-                    .or(FilterSpecification.like("firstName", search))
-                    .or(FilterSpecification.like("lastName", search));
-        }
+        return ResponseEntity.ok(accountService.getPages(accountFilter(search), pageable, accountMapper::entityToDto));
+    }
+
+    @GetMapping(ApiConstants.Account.API_ACCOUNT_SLICE)
+    @Operation(description = "Endpoint to get list of account without the total count, has_next tells if there is " +
+            "a next page. Without search it carries an approximate_total",
+            summary = "This is a summary for account slice endpoint")
+    @ApiResponse(description = "Success", responseCode = "200",
+            content = {@Content(mediaType = "application/json",
+                    schema = @Schema(implementation = SliceDto.class))})
+    @ApiResponse(description = "Error", responseCode = "400",
+            content = { @Content(mediaType = "application/json",
+                    schema = @Schema(implementation = ErrorMessage.class))})
+    @ResponseBody
+    @SecurityRequirement(name = SecurityConstants.AUTH_BEARER_TOKEN)
+    public ResponseEntity<SliceDto<AccountDto>> getSlice(@RequestParam(value = "page", defaultValue = "0") int page,
+                                                         @RequestParam(value = "size", defaultValue = "10") int size,
+                                                         @RequestParam(name = "search", required = false) String search,
+                                                         @RequestParam(name = "direction", required = false) String direction,
+                                                         @RequestParam(name = "field", required = false) String field) {
+
+        Pageable pageable = PageRequest.of(page, size, entityPathRegistry.sort(Account.class, direction, field));
+
+        var slice = accountService.getSlice(accountFilter(search), pageable, accountMapper::entityToDto);
+        return ResponseEntity.ok(SliceDto.of(slice, StringUtils.hasText(search) ? null : accountService.getEstimatedTotal()));
+    }
 
-        return ResponseEntity.ok(accountService.getPages(spec, pageable, accountMapper::entityToDto));
+    @GetMapping(ApiConstants.Account.API_ACCOUNT_SCROLL)
+    @Operation(description = "Endpoint to get list of account page by page with a cursor, without the total count. " +
+            "The first page is sorted by field (createdAt, username, mail or lastName) and direction, " +
+            "the next page is requested with next_cursor and keeps that sort",
+            summary = "This is a summary for account scroll endpoint")
+    @ApiResponse(description = "Success", responseCode = "200",
+            content = {@Content(mediaType = "application/json",
+                    schema = @Schema(implementation = CursorPageDto.class))})
+    @ApiResponse(description = "Error", responseCode = "400",
+            content = { @Content(mediaType = "application/json",
+                    schema = @Schema(implementation = ErrorMessage.class))})
+    @ResponseBody
+    @SecurityRequirement(name = SecurityConstants.AUTH_BEARER_TOKEN)
+    public ResponseEntity<CursorPageDto<AccountDto>> scroll(@RequestParam(value = "cursor", required = false) String cursor,
+                                                            @RequestParam(value = "size", defaultValue = "10") int size,
+                                                            @RequestParam(name = "search", required = false) String search,
+                                                            @RequestParam(name = "direction", defaultValue = "asc") String direction,
+                                                            @RequestParam(name = "field", defaultValue = "createdAt") String field) {
+
+        var position = StringUtils.hasText(cursor)
+                ? KeysetCursor.decode(cursor)
+                : KeysetCursor.first(field, entityPathRegistry.direction(direction));
+
+        return ResponseEntity.ok(accountService.getWindow(accountFilter(search), position, size, accountMapper::entityToDto));
     }
 
     @GetMapping(ApiConstants.Account.API_ACCOUNT_BY_ID)
@@ -134,6 +176,8 @@ public class AccountController {
         if(!PermissionUtils.inAdminRoleOrOwner(token,account.accountId()))
             throw new AccessException("You do not have permission to update this account");
         accountService.updateRole(account);
+        //issued tokens carry the previous role in their claims
+        jwtService.changeTokenStatus(account.accountId(), TokenStatus.INACTIVE);
         return ResponseEntity.noContent().build();
     }
 
@@ -154,5 +198,12 @@ public class AccountController {
         return ResponseEntity.noContent().build();
     }
 
-
-}
\ No newline at end of file
+    private Specification<Account> accountFilter(String search) {
+        Specification<Account> spec = Specification.allOf();
+        if(StringUtils.hasText(search)) {
+            //one column holds username, mail and both names, its trigram index serves the search
+            spec = spec.and(FilterSpecification.contains(entityPathRegistry.path(Account.class, "searchText"), search));
+        }
+        return spec;
+    }
+}
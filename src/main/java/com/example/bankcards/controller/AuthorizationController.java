@@ -6,11 +6,11 @@ import com.example.bankcards.dto.AuthorizationData;
 import com.example.bankcards.dto.AuthorizationToken;
 import com.example.bankcards.dto.ErrorMessage;
 import com.example.bankcards.dto.RefreshData;
-import com.example.bankcards.entity.Account;
 import com.example.bankcards.enums.TokenStatus;
 import com.example.bankcards.interfaces.services.AccountService;
 import com.example.bankcards.interfaces.services.JwtService;
 import com.example.bankcards.mappers.AccountMapper;
+import com.example.bankcards.util.PermissionUtils;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
@@ -67,7 +67,7 @@ public class AuthorizationController {
             summary = "This is a summary for account post endpoint")
     @SecurityRequirement(name = SecurityConstants.AUTH_BEARER_TOKEN)
     public ResponseEntity<?> logout(UsernamePasswordAuthenticationToken token) {
-        jwtService.changeTokenStatus(((Account)token.getPrincipal()).getId(), TokenStatus.INACTIVE);
+        jwtService.changeTokenStatus(PermissionUtils.getAccountId(token), TokenStatus.INACTIVE);
         return ResponseEntity.noContent().build();
     }
 }
@@ -1,5 +1,6 @@
 package com.example.bankcards.controller;
 
+import com.example.bankcards.annotations.AdmissionControlled;
 import com.example.bankcards.constants.ApiConstants;
 import com.example.bankcards.constants.SecurityConstants;
 import com.example.bankcards.dto.*;
@@ -9,39 +10,61 @@ import com.example.bankcards.enums.Role;
 import com.example.bankcards.enums.TokenStatus;
 import com.example.bankcards.exception.AccessException;
 import com.example.bankcards.interfaces.services.AccountService;
+import com.example.bankcards.interfaces.services.CardLedgerService;
 import com.example.bankcards.interfaces.services.CardService;
+import com.example.bankcards.interfaces.services.IdempotencyService;
 import com.example.bankcards.interfaces.services.JwtService;
+import com.example.bankcards.interfaces.services.TransferRequestService;
 import com.example.bankcards.mappers.CardMapper;
+import com.example.bankcards.mappers.CardTransactionMapper;
+import com.example.bankcards.mappers.TransferRequestMapper;
+import com.example.bankcards.repository.specifications.EntityPathRegistry;
 import com.example.bankcards.repository.specifications.FilterSpecification;
 import com.example.bankcards.util.PermissionUtils;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.ArraySchema;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
-import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.util.StringUtils;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.math.BigDecimal;
+import java.util.List;
 import java.util.UUID;
+import java.util.function.Consumer;
 
 @RestController
 @RequestMapping(ApiConstants.API_PREFIX_V1)
 @Tag(name = ApiConstants.Card.API_CARD_CONTROLLER_NAME)
 @RequiredArgsConstructor
 public class CardController {
+    private static final String NDJSON = "application/x-ndjson";
+
     private final CardService cardService;
     private final CardMapper cardMapper;
+    private final IdempotencyService idempotencyService;
+    private final CardLedgerService cardLedgerService;
+    private final CardTransactionMapper cardTransactionMapper;
+    private final TransferRequestService transferRequestService;
+    private final TransferRequestMapper transferRequestMapper;
+    private final ObjectMapper objectMapper;
+    private final EntityPathRegistry entityPathRegistry;
 
     @PostMapping(ApiConstants.Card.API_CARD_CREATE)
     @Operation(
@@ -89,32 +112,77 @@ public class CardController {
             @RequestParam(name = "direction", required = false) String direction,
             @RequestParam(name = "field", required = false) String field) {
 
-        Sort sort = Sort.unsorted();
-        if (direction != null && field != null) {
-            sort = Sort.by(Sort.Direction.fromString(direction), field);
-        }
+        Pageable pageable = PageRequest.of(page, size, entityPathRegistry.sort(Card.class, direction, field));
+        var spec = cardFilter(token, minBalance, maxBalance, ownerLike);
 
-        Pageable pageable = PageRequest.of(page, size, sort);
+        return ResponseEntity.ok(cardService.getPages(spec, pageable, cardMapper::viewToDto));
+    }
 
-        Specification<Card> spec = Specification.allOf();
+    @GetMapping(ApiConstants.Card.API_CARD_SLICE)
+    @Operation(summary = "Get a list of cards without the total count",
+            description = """
+                    Same filters, pagination and sorting as the paginated list. The total is not counted,
+                    has_next tells if there is a next page. An unfiltered listing of all cards
+                    carries an approximate_total.
+                    """)
+    @ApiResponse(description = "Success", responseCode = "200",
+            content = {@Content(mediaType = "application/json",
+                    schema = @Schema(implementation = SliceDto.class))})
+    @ApiResponse(description = "Error", responseCode = "400",
+            content = {@Content(mediaType = "application/json",
+                    schema = @Schema(implementation = ErrorMessage.class))})
+    @ResponseBody
+    @SecurityRequirement(name = SecurityConstants.AUTH_BEARER_TOKEN)
+    public ResponseEntity<SliceDto<CardDto>> getSlice(
+            UsernamePasswordAuthenticationToken token,
+            @RequestParam(value = "page", defaultValue = "0") int page,
+            @RequestParam(value = "size", defaultValue = "10") int size,
+            @RequestParam(value = "balanceGreaterThanOrEqual", required = false) Double minBalance,
+            @RequestParam(value = "balanceLessThanOrEqual", required = false) Double maxBalance,
+            @RequestParam(name = "ownerLike", required = false) String ownerLike,
+            @RequestParam(name = "direction", required = false) String direction,
+            @RequestParam(name = "field", required = false) String field) {
 
-        //if user in user role -> get info about his cards, if admin -> get all cards
-        if (PermissionUtils.inRole(token, Role.USER)) {
-            var accId = PermissionUtils.getAccountId(token);
-            spec = spec.and(FilterSpecification.equal("account.id", accId));
-        }
+        Pageable pageable = PageRequest.of(page, size, entityPathRegistry.sort(Card.class, direction, field));
+        var spec = cardFilter(token, minBalance, maxBalance, ownerLike);
+        var unfiltered = PermissionUtils.inRole(token, Role.ADMIN)
+                && minBalance == null && maxBalance == null && !StringUtils.hasText(ownerLike);
 
-        if (minBalance != null) {
-            spec = spec.and(FilterSpecification.greaterThanOrEqual("balance", BigDecimal.valueOf(minBalance), BigDecimal.class));
-        }
-        if (maxBalance != null) {
-            spec = spec.and(FilterSpecification.lessThanOrEqual("balance", BigDecimal.valueOf(maxBalance), BigDecimal.class));
-        }
-        if (StringUtils.hasText(ownerLike)) {
-            spec = spec.and(FilterSpecification.like("owner", ownerLike));
-        }
+        var slice = cardService.getSlice(spec, pageable, cardMapper::viewToDto);
+        return ResponseEntity.ok(SliceDto.of(slice, unfiltered ? cardService.getEstimatedTotal() : null));
+    }
 
-        return ResponseEntity.ok(cardService.getPages(spec, pageable, cardMapper::toDto));
+    @GetMapping(ApiConstants.Card.API_CARD_SCROLL)
+    @Operation(summary = "Get a list of cards page by page with a cursor",
+            description = """
+                    Same filters as the paginated list, without the total count. The first page is sorted by field
+                    (createdAt, balance, expiredIn or owner) and direction, the next page is requested with next_cursor
+                    and keeps that sort. A page costs the same however deep it is.
+                    """)
+    @ApiResponse(description = "Success", responseCode = "200",
+            content = {@Content(mediaType = "application/json",
+                    schema = @Schema(implementation = CursorPageDto.class))})
+    @ApiResponse(description = "Error", responseCode = "400",
+            content = {@Content(mediaType = "application/json",
+                    schema = @Schema(implementation = ErrorMessage.class))})
+    @ResponseBody
+    @SecurityRequirement(name = SecurityConstants.AUTH_BEARER_TOKEN)
+    public ResponseEntity<CursorPageDto<CardDto>> scroll(
+            UsernamePasswordAuthenticationToken token,
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "size", defaultValue = "10") int size,
+            @RequestParam(value = "balanceGreaterThanOrEqual", required = false) Double minBalance,
+            @RequestParam(value = "balanceLessThanOrEqual", required = false) Double maxBalance,
+            @RequestParam(name = "ownerLike", required = false) String ownerLike,
+            @RequestParam(name = "direction", defaultValue = "asc") String direction,
+            @RequestParam(name = "field", defaultValue = "createdAt") String field) {
+
+        var position = StringUtils.hasText(cursor)
+                ? KeysetCursor.decode(cursor)
+                : KeysetCursor.first(field, entityPathRegistry.direction(direction));
+        var spec = cardFilter(token, minBalance, maxBalance, ownerLike);
+
+        return ResponseEntity.ok(cardService.getWindow(spec, position, size, cardMapper::viewToDto));
     }
 
     @PutMapping(ApiConstants.Card.API_CARD_REQUEST_BLOCK)
@@ -146,6 +214,7 @@ public class CardController {
             summary = "Update payment card balance",
             description = """
                   Users with the USER role can update only their own cards; ADMINs can update any card.
+                  A request repeated with the same Idempotency-Key is answered without changing the balance again.
                     """
     )
 
@@ -156,9 +225,11 @@ public class CardController {
     @ResponseBody
     @SecurityRequirement(name = SecurityConstants.AUTH_BEARER_TOKEN)
     public ResponseEntity<?> balanceIncrease(UsernamePasswordAuthenticationToken token,
+                                               @RequestHeader(value = ApiConstants.IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey,
                                                @RequestBody @Valid BalanceDto balanceDto) {
         var accId = PermissionUtils.getAccountId(token);
-        cardService.balance(accId, balanceDto, PermissionUtils.inRole(token, Role.ADMIN));
+        idempotencyService.execute(accId, idempotencyKey, ApiConstants.Card.API_CARD_BALANCE_INCREASE, balanceDto,
+                () -> cardService.balance(accId, balanceDto, PermissionUtils.inRole(token, Role.ADMIN)));
         return ResponseEntity.noContent().build();
     }
 
@@ -208,25 +279,214 @@ public class CardController {
                     Allows transferring a specified amount from one active card to another active card within the same account.
                     Validates card ownership, status, and balance before performing the transfer.
                     The operation is transactional to ensure data integrity.
+                    A request repeated with the same Idempotency-Key is answered without moving the money again.
                     """)
     @ApiResponse(description = "Success", responseCode = "204")
     @ApiResponse(description = "Error", responseCode = "400",
             content = {@Content(mediaType = "application/json",
                     schema = @Schema(implementation = ErrorMessage.class))})
+    @ApiResponse(description = "Too many concurrent transfers", responseCode = "503",
+            content = {@Content(mediaType = "application/json",
+                    schema = @Schema(implementation = ErrorMessage.class))})
     @ResponseBody
     @SecurityRequirement(name = SecurityConstants.AUTH_BEARER_TOKEN)
+    @AdmissionControlled
     public ResponseEntity<?> transfer(
             UsernamePasswordAuthenticationToken token,
+            @RequestHeader(value = ApiConstants.IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey,
             @RequestBody @Valid CardTransferDto cardTransferDto) {
-        cardService.transfer(PermissionUtils.getAccountId(token), cardTransferDto);
+        var accId = PermissionUtils.getAccountId(token);
+        idempotencyService.execute(accId, idempotencyKey, ApiConstants.Card.API_CARD_TRANSFER, cardTransferDto,
+                () -> cardService.transfer(accId, cardTransferDto));
         return ResponseEntity.noContent().build();
     }
 
+    @PutMapping(ApiConstants.Card.API_CARD_TRANSFER_BATCH)
+    @Operation(summary = "Transfer funds between your own cards in one batch",
+            description = """
+                    Applies up to 1000 transfers in one transaction, in the order they are given.
+                    Every referenced card is read once and ownership is checked for all of them together.
+                    A transfer that fails validation is rejected alone, the result list has an entry for every item.
+                    A request repeated with the same Idempotency-Key returns the stored result list.
+                    """)
+    @ApiResponse(description = "Success", responseCode = "200",
+            content = {@Content(mediaType = "application/json",
+                    array = @ArraySchema(schema = @Schema(implementation = CardTransferResultDto.class)))})
+    @ApiResponse(description = "Error", responseCode = "400",
+            content = {@Content(mediaType = "application/json",
+                    schema = @Schema(implementation = ErrorMessage.class))})
+    @ApiResponse(description = "Too many concurrent transfers", responseCode = "503",
+            content = {@Content(mediaType = "application/json",
+                    schema = @Schema(implementation = ErrorMessage.class))})
+    @ResponseBody
+    @SecurityRequirement(name = SecurityConstants.AUTH_BEARER_TOKEN)
+    @AdmissionControlled
+    public ResponseEntity<List<CardTransferResultDto>> transferBatch(
+            UsernamePasswordAuthenticationToken token,
+            @RequestHeader(value = ApiConstants.IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey,
+            @RequestBody @Valid CardBatchTransferDto cardBatchTransferDto) {
+        var accId = PermissionUtils.getAccountId(token);
+        return ResponseEntity.ok(idempotencyService.execute(accId, idempotencyKey, ApiConstants.Card.API_CARD_TRANSFER_BATCH,
+                cardBatchTransferDto, new TypeReference<>() {},
+                () -> cardService.transfer(accId, cardBatchTransferDto.transfers())));
+    }
+
+    @GetMapping(ApiConstants.Card.API_CARD_TRANSACTIONS)
+    @Operation(summary = "Get the transaction history of a payment card",
+            description = """
+                    Returns the ledger rows of a card, newest first: the opening balance, top-ups and transfers.
+                    The next page is requested with the next_cursor of the previous one, it is null on the last page.
+                    Users with role USER can access only their own cards, ADMINs can view any card.
+                    """)
+    @ApiResponse(description = "Success", responseCode = "200",
+            content = {@Content(mediaType = "application/json",
+                    schema = @Schema(implementation = CursorPageDto.class))})
+    @ApiResponse(description = "Error", responseCode = "400",
+            content = {@Content(mediaType = "application/json",
+                    schema = @Schema(implementation = ErrorMessage.class))})
+    @ResponseBody
+    @SecurityRequirement(name = SecurityConstants.AUTH_BEARER_TOKEN)
+    public ResponseEntity<CursorPageDto<CardTransactionDto>> getTransactions(
+            UsernamePasswordAuthenticationToken token,
+            @RequestParam("id") UUID id,
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "size", defaultValue = "10") int size) {
+        var accId = PermissionUtils.getAccountId(token);
+        return ResponseEntity.ok(cardLedgerService.history(accId, id, PermissionUtils.inRole(token, Role.ADMIN),
+                cursor, size, cardTransactionMapper::toDto));
+    }
+
+    @GetMapping(ApiConstants.Card.API_CARDS_TRANSACTIONS)
+    @Operation(summary = "Get the transaction history of all cards of an account",
+            description = """
+                    Returns the ledger rows of every card of the account, newest first, continued by next_cursor.
+                    Users with role USER get their own history, ADMINs may pass the account_id of any account.
+                    """)
+    @ApiResponse(description = "Success", responseCode = "200",
+            content = {@Content(mediaType = "application/json",
+                    schema = @Schema(implementation = CursorPageDto.class))})
+    @ApiResponse(description = "Error", responseCode = "400",
+            content = {@Content(mediaType = "application/json",
+                    schema = @Schema(implementation = ErrorMessage.class))})
+    @ResponseBody
+    @SecurityRequirement(name = SecurityConstants.AUTH_BEARER_TOKEN)
+    public ResponseEntity<CursorPageDto<CardTransactionDto>> getAccountTransactions(
+            UsernamePasswordAuthenticationToken token,
+            @RequestParam(value = "account_id", required = false) UUID accountId,
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "size", defaultValue = "10") int size) {
+        return ResponseEntity.ok(cardLedgerService.history(historyAccountId(token, accountId), null, false,
+                cursor, size, cardTransactionMapper::toDto));
+    }
+
+    @GetMapping(ApiConstants.Card.API_CARD_TRANSACTIONS_EXPORT)
+    @Operation(summary = "Export the transaction history of a payment card",
+            description = """
+                    Streams every ledger row of the card as newline delimited JSON, newest first.
+                    Rows are read in batches, the export holds neither the history in memory nor a long transaction.
+                    """)
+    @ApiResponse(description = "Success", responseCode = "200",
+            content = {@Content(mediaType = NDJSON, schema = @Schema(implementation = CardTransactionDto.class))})
+    @ApiResponse(description = "Error", responseCode = "400",
+            content = {@Content(mediaType = "application/json",
+                    schema = @Schema(implementation = ErrorMessage.class))})
+    @SecurityRequirement(name = SecurityConstants.AUTH_BEARER_TOKEN)
+    public void exportTransactions(UsernamePasswordAuthenticationToken token, @RequestParam("id") UUID id,
+                                   HttpServletResponse response) throws IOException {
+        var accId = PermissionUtils.getAccountId(token);
+        export(response, consumer -> cardLedgerService.export(accId, id, PermissionUtils.inRole(token, Role.ADMIN),
+                cardTransactionMapper::toDto, consumer));
+    }
+
+    @GetMapping(ApiConstants.Card.API_CARDS_TRANSACTIONS_EXPORT)
+    @Operation(summary = "Export the transaction history of all cards of an account",
+            description = """
+                    Streams every ledger row of the account as newline delimited JSON, newest first.
+                    Users with role USER export their own history, ADMINs may pass the account_id of any account.
+                    """)
+    @ApiResponse(description = "Success", responseCode = "200",
+            content = {@Content(mediaType = NDJSON, schema = @Schema(implementation = CardTransactionDto.class))})
+    @ApiResponse(description = "Error", responseCode = "400",
+            content = {@Content(mediaType = "application/json",
+                    schema = @Schema(implementation = ErrorMessage.class))})
+    @SecurityRequirement(name = SecurityConstants.AUTH_BEARER_TOKEN)
+    public void exportAccountTransactions(UsernamePasswordAuthenticationToken token,
+                                          @RequestParam(value = "account_id", required = false) UUID accountId,
+                                          HttpServletResponse response) throws IOException {
+        var accId = historyAccountId(token, accountId);
+        export(response, consumer -> cardLedgerService.export(accId, null, false, cardTransactionMapper::toDto, consumer));
+    }
+
+    @GetMapping(ApiConstants.Card.API_CARD_LEDGER_BALANCE)
+    @Operation(summary = "Check a card balance against its ledger",
+            description = """
+                    Rebuilds the balance from the last balance snapshot and the ledger rows written after it,
+                    and compares it with the stored card balance.
+                    This operation is restricted to users with the ADMIN role only.
+                    """)
+    @ApiResponse(description = "Success", responseCode = "200",
+            content = {@Content(mediaType = "application/json",
+                    schema = @Schema(implementation = CardLedgerBalanceDto.class))})
+    @ApiResponse(description = "Error", responseCode = "400",
+            content = {@Content(mediaType = "application/json",
+                    schema = @Schema(implementation = ErrorMessage.class))})
+    @ResponseBody
+    @SecurityRequirement(name = SecurityConstants.AUTH_BEARER_TOKEN)
+    public ResponseEntity<CardLedgerBalanceDto> getLedgerBalance(@RequestParam("id") UUID id) {
+        return ResponseEntity.ok(cardLedgerService.ledgerBalance(id));
+    }
+
+    @PutMapping(ApiConstants.Card.API_CARD_TRANSFER_ASYNC)
+    @Operation(summary = "Submit a transfer between your own cards for asynchronous execution",
+            description = """
+                    Accepts the transfer without executing it and answers 202 with the id of the request.
+                    Transfer workers execute pending requests in batches, the outcome is read from the status endpoint.
+                    A request repeated with the same Idempotency-Key returns the request that was accepted first.
+                    """)
+    @ApiResponse(description = "Accepted", responseCode = "202",
+            content = {@Content(mediaType = "application/json",
+                    schema = @Schema(implementation = TransferRequestDto.class))})
+    @ApiResponse(description = "Error", responseCode = "400",
+            content = {@Content(mediaType = "application/json",
+                    schema = @Schema(implementation = ErrorMessage.class))})
+    @ResponseBody
+    @SecurityRequirement(name = SecurityConstants.AUTH_BEARER_TOKEN)
+    public ResponseEntity<TransferRequestDto> transferAsync(
+            UsernamePasswordAuthenticationToken token,
+            @RequestHeader(value = ApiConstants.IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey,
+            @RequestBody @Valid CardTransferDto cardTransferDto) {
+        var accId = PermissionUtils.getAccountId(token);
+        return ResponseEntity.accepted().body(idempotencyService.execute(accId, idempotencyKey,
+                ApiConstants.Card.API_CARD_TRANSFER_ASYNC, cardTransferDto, new TypeReference<>() {},
+                () -> transferRequestService.submit(accId, cardTransferDto, transferRequestMapper::toDto)));
+    }
+
+    @GetMapping(ApiConstants.Card.API_CARD_TRANSFER_STATUS)
+    @Operation(summary = "Get the status of an asynchronous transfer",
+            description = """
+                    Returns a transfer submitted to the async endpoint: PENDING until a worker executed it,
+                    then COMPLETED or REJECTED with the reason. Users can read only their own requests.
+                    """)
+    @ApiResponse(description = "Success", responseCode = "200",
+            content = {@Content(mediaType = "application/json",
+                    schema = @Schema(implementation = TransferRequestDto.class))})
+    @ApiResponse(description = "Error", responseCode = "400",
+            content = {@Content(mediaType = "application/json",
+                    schema = @Schema(implementation = ErrorMessage.class))})
+    @ResponseBody
+    @SecurityRequirement(name = SecurityConstants.AUTH_BEARER_TOKEN)
+    public ResponseEntity<TransferRequestDto> getTransferStatus(UsernamePasswordAuthenticationToken token,
+                                                                @RequestParam("id") UUID id) {
+        var accId = PermissionUtils.getAccountId(token);
+        return ResponseEntity.ok(transferRequestService.findById(accId, id, transferRequestMapper::toDto));
+    }
+
     @DeleteMapping(ApiConstants.Card.API_CARD_BY_ID)
     @Operation(
             summary = "Delete a payment card",
             description = """
-        Permanently deletes a payment card by its ID.
+        Closes a payment card by its ID. The card disappears from listings and can no longer be used,
+        its transaction history is kept.
         This operation is restricted to users with the ADMIN role only.
         Regular users (USER role) are not authorized to perform this action.
         """
@@ -241,4 +501,49 @@ public class CardController {
         cardService.deleteById(id);
         return ResponseEntity.noContent().build();
     }
-}
\ No newline at end of file
+
+    //users always read their own account, admins any account they ask for
+    private UUID historyAccountId(UsernamePasswordAuthenticationToken token, UUID accountId) {
+        return accountId != null && PermissionUtils.inRole(token, Role.ADMIN) ? accountId : PermissionUtils.getAccountId(token);
+    }
+
+    //the content type is set with the first row, a refused export is still answered with a json error message
+    private void export(HttpServletResponse response, Consumer<Consumer<CardTransactionDto>> export) throws IOException {
+        var out = response.getOutputStream();
+        export.accept(row -> {
+            try {
+                if (response.getContentType() == null) {
+                    response.setContentType(NDJSON);
+                }
+                out.write(objectMapper.writeValueAsBytes(row));
+                out.write('\n');
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        response.setContentType(NDJSON);
+        out.flush();
+    }
+
+    private Specification<Card> cardFilter(UsernamePasswordAuthenticationToken token, Double minBalance,
+                                           Double maxBalance, String ownerLike) {
+        Specification<Card> spec = Specification.allOf();
+
+        //if user in user role -> get info about his cards, if admin -> get all cards
+        if (PermissionUtils.inRole(token, Role.USER)) {
+            var accId = PermissionUtils.getAccountId(token);
+            spec = spec.and(FilterSpecification.equal(entityPathRegistry.path(Card.class, "account.id"), accId));
+        }
+
+        if (minBalance != null) {
+            spec = spec.and(FilterSpecification.greaterThanOrEqual(entityPathRegistry.path(Card.class, "balance"), BigDecimal.valueOf(minBalance)));
+        }
+        if (maxBalance != null) {
+            spec = spec.and(FilterSpecification.lessThanOrEqual(entityPathRegistry.path(Card.class, "balance"), BigDecimal.valueOf(maxBalance)));
+        }
+        if (StringUtils.hasText(ownerLike)) {
+            spec = spec.and(FilterSpecification.like(entityPathRegistry.path(Card.class, "owner"), ownerLike));
+        }
+        return spec;
+    }
+}
@@ -0,0 +1,62 @@
+package com.example.bankcards.controller;
+
+import com.example.bankcards.constants.ApiConstants;
+import com.example.bankcards.constants.SecurityConstants;
+import com.example.bankcards.dto.ErrorMessage;
+import com.example.bankcards.dto.KeyRotationJobDto;
+import com.example.bankcards.interfaces.services.KeyRotationService;
+import com.example.bankcards.mappers.KeyRotationJobMapper;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.UUID;
+
+@RestController
+@RequestMapping(ApiConstants.API_PREFIX_V1)
+@Tag(name = ApiConstants.Crypto.API_CRYPTO_CONTROLLER_NAME)
+@RequiredArgsConstructor
+public class CryptoController {
+    private final KeyRotationService keyRotationService;
+    private final KeyRotationJobMapper keyRotationJobMapper;
+
+    @PostMapping(ApiConstants.Crypto.API_KEY_ROTATION)
+    @Operation(summary = "Re-encrypt card numbers with the current key",
+            description = """
+                    Starts a background job that re-encrypts every card number not yet encrypted with security.crypto-key.
+                    The previous key must stay in security.crypto-retired-keys until the job is completed.
+                    An unfinished or failed job is resumed from its checkpoint instead of starting over.
+                    """)
+    @ApiResponse(description = "Job started", responseCode = "202",
+            content = {@Content(mediaType = "application/json",
+                    schema = @Schema(implementation = KeyRotationJobDto.class))})
+    @ApiResponse(description = "Error", responseCode = "400",
+            content = {@Content(mediaType = "application/json",
+                    schema = @Schema(implementation = ErrorMessage.class))})
+    @ResponseBody
+    @SecurityRequirement(name = SecurityConstants.AUTH_BEARER_TOKEN)
+    public ResponseEntity<KeyRotationJobDto> start() {
+        return ResponseEntity.accepted().body(keyRotationService.start(keyRotationJobMapper::toDto));
+    }
+
+    @GetMapping(ApiConstants.Crypto.API_KEY_ROTATION_BY_ID)
+    @Operation(summary = "Get key rotation progress",
+            description = "Returns the checkpoint, processed and rotated rows and the average rows per second of the job.")
+    @ApiResponse(description = "Success", responseCode = "200",
+            content = {@Content(mediaType = "application/json",
+                    schema = @Schema(implementation = KeyRotationJobDto.class))})
+    @ApiResponse(description = "Error", responseCode = "400",
+            content = {@Content(mediaType = "application/json",
+                    schema = @Schema(implementation = ErrorMessage.class))})
+    @ResponseBody
+    @SecurityRequirement(name = SecurityConstants.AUTH_BEARER_TOKEN)
+    public ResponseEntity<KeyRotationJobDto> getItem(@PathVariable("id") UUID id) {
+        return ResponseEntity.ok(keyRotationService.findById(id, keyRotationJobMapper::toDto));
+    }
+}
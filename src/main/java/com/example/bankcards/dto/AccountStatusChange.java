@@ -0,0 +1,9 @@
+package com.example.bankcards.dto;
+
+import com.example.bankcards.enums.AccountStatus;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+public record AccountStatusChange(UUID accountId, AccountStatus status, LocalDateTime changedAt) {
+}
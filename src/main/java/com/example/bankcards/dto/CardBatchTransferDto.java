@@ -0,0 +1,17 @@
+package com.example.bankcards.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+
+import java.util.List;
+
+public record CardBatchTransferDto(
+        @Valid
+        @NotEmpty(message = "transfers are required")
+        @Size(max = 1000, message = "No more than 1000 transfers in one request")
+        @JsonProperty("transfers")
+        List<CardTransferDto> transfers
+) {
+}
@@ -0,0 +1,8 @@
+package com.example.bankcards.dto;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+//a top-up requested by an account, admins may top up any card
+public record CardCredit(UUID accountId, boolean isAdmin, BigDecimal sum) {
+}
@@ -0,0 +1,21 @@
+package com.example.bankcards.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+public record CardLedgerBalanceDto(
+        @JsonProperty("card_id")
+        UUID cardId,
+
+        @JsonProperty("balance")
+        BigDecimal balance,
+
+        @JsonProperty("ledger_balance")
+        BigDecimal ledgerBalance,
+
+        @JsonProperty("consistent")
+        boolean consistent
+) {
+}
@@ -0,0 +1,30 @@
+package com.example.bankcards.dto;
+
+import com.example.bankcards.enums.CardTransactionType;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.*;
+import lombok.experimental.FieldDefaults;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class CardTransactionDto {
+    UUID id;
+    CardTransactionType type;
+    BigDecimal amount;
+
+    @JsonProperty("card_id")
+    UUID cardId;
+
+    @JsonProperty("counterpart_card_id")
+    UUID counterpartCardId;
+
+    @JsonProperty("created_at")
+    LocalDateTime createdAt;
+}
@@ -0,0 +1,33 @@
+package com.example.bankcards.dto;
+
+import com.example.bankcards.enums.TransferStatus;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.UUID;
+
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record CardTransferResultDto(
+        @JsonProperty("index")
+        int index,
+
+        @JsonProperty("source_id")
+        UUID sourceId,
+
+        @JsonProperty("target_id")
+        UUID targetId,
+
+        @JsonProperty("status")
+        TransferStatus status,
+
+        @JsonProperty("message")
+        String message
+) {
+    public static CardTransferResultDto completed(int index, CardTransferDto transfer) {
+        return new CardTransferResultDto(index, transfer.sourceId(), transfer.targetId(), TransferStatus.COMPLETED, null);
+    }
+
+    public static CardTransferResultDto rejected(int index, CardTransferDto transfer, String message) {
+        return new CardTransferResultDto(index, transfer.sourceId(), transfer.targetId(), TransferStatus.REJECTED, message);
+    }
+}
@@ -0,0 +1,13 @@
+package com.example.bankcards.dto;
+
+import com.example.bankcards.enums.CardStatus;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+//listing row of a card, only the columns a listing shows or sorts by, read without loading the entity
+public record CardView(UUID id, String cardLast4, String owner, BigDecimal balance, CardStatus status,
+                       LocalDate expiredIn, LocalDateTime createdAt) {
+}
@@ -0,0 +1,15 @@
+package com.example.bankcards.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.List;
+
+//a page of a keyset listing, the next page is requested with next_cursor, null on the last page
+public record CursorPageDto<T>(
+        @JsonProperty("content")
+        List<T> content,
+
+        @JsonProperty("next_cursor")
+        String nextCursor
+) {
+}
@@ -0,0 +1,37 @@
+package com.example.bankcards.dto;
+
+import com.example.bankcards.enums.KeyRotationStatus;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.*;
+import lombok.experimental.FieldDefaults;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class KeyRotationJobDto {
+    UUID id;
+    KeyRotationStatus status;
+    long processed;
+    long rotated;
+    String error;
+
+    @JsonProperty("last_card_id")
+    UUID lastCardId;
+
+    @JsonProperty("rows_per_second")
+    double rowsPerSecond;
+
+    @JsonProperty("started_at")
+    LocalDateTime startedAt;
+
+    @JsonProperty("updated_at")
+    LocalDateTime updatedAt;
+
+    @JsonProperty("finished_at")
+    LocalDateTime finishedAt;
+}
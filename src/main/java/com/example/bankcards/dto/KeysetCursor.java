@@ -0,0 +1,49 @@
+package com.example.bankcards.dto;
+
+import com.example.bankcards.exception.InvalidCursorException;
+import org.springframework.data.domain.Sort;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.UUID;
+
+//position in a listing sorted by one field and the id, value and id of the last row, both null before the first page
+public record KeysetCursor(String field, Sort.Direction direction, String value, UUID id) {
+    public static final String ID = "id";
+    private static final String SEPARATOR = ":";
+
+    public static KeysetCursor first(String field, Sort.Direction direction) {
+        return new KeysetCursor(field, direction, null, null);
+    }
+
+    public KeysetCursor after(Object value, UUID id) {
+        return new KeysetCursor(field, direction, value.toString(), id);
+    }
+
+    public boolean isFirst() {
+        return id == null;
+    }
+
+    //the id breaks ties, the order is total and a row is never skipped or repeated between pages
+    public Sort sort() {
+        return Sort.by(direction, field, ID);
+    }
+
+    //opaque for the clients, the sort travels with the position so later pages can not change it
+    public String encode() {
+        var raw = String.join(SEPARATOR, field, direction.name(), id.toString(), value);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static KeysetCursor decode(String cursor) {
+        try {
+            var parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split(SEPARATOR, 4);
+            if (parts.length != 4) {
+                throw new InvalidCursorException("Invalid cursor");
+            }
+            return new KeysetCursor(parts[0], Sort.Direction.valueOf(parts[1]), parts[3], UUID.fromString(parts[2]));
+        } catch (IllegalArgumentException e) {
+            throw new InvalidCursorException("Invalid cursor");
+        }
+    }
+}
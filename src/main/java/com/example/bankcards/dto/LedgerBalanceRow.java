@@ -0,0 +1,11 @@
+package com.example.bankcards.dto;
+
+import java.math.BigDecimal;
+
+//stored card balance and the balance rebuilt from the ledger, read by one statement
+public interface LedgerBalanceRow {
+    BigDecimal getBalance();
+
+    //null when the card has no snapshot
+    BigDecimal getLedger();
+}
@@ -0,0 +1,28 @@
+package com.example.bankcards.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import org.springframework.data.domain.Slice;
+
+import java.util.List;
+
+//a page without the exact total, approximate_total estimates what an unfiltered listing holds (closed cards left out) and is only set for those
+public record SliceDto<T>(
+        @JsonProperty("content")
+        List<T> content,
+
+        @JsonProperty("page")
+        int page,
+
+        @JsonProperty("size")
+        int size,
+
+        @JsonProperty("has_next")
+        boolean hasNext,
+
+        @JsonProperty("approximate_total")
+        Long approximateTotal
+) {
+    public static <T> SliceDto<T> of(Slice<T> slice, Long approximateTotal) {
+        return new SliceDto<>(slice.getContent(), slice.getNumber(), slice.getSize(), slice.hasNext(), approximateTotal);
+    }
+}
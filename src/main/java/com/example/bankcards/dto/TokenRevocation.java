@@ -0,0 +1,7 @@
+package com.example.bankcards.dto;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+public record TokenRevocation(UUID accountId, LocalDateTime revokedAt) {
+}
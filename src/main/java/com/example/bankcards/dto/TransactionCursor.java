@@ -0,0 +1,45 @@
+package com.example.bankcards.dto;
+
+import com.example.bankcards.entity.CardTransaction;
+import com.example.bankcards.exception.InvalidCursorException;
+
+import java.nio.ByteBuffer;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.Base64;
+import java.util.UUID;
+
+//position after the last row of a history page, (created_at, id) of that row
+public record TransactionCursor(LocalDateTime createdAt, UUID id) {
+    private static final int LENGTH = 3 * Long.BYTES;
+    private static final LocalDateTime EPOCH = LocalDateTime.ofEpochSecond(0, 0, ZoneOffset.UTC);
+
+    public static TransactionCursor of(CardTransaction transaction) {
+        return new TransactionCursor(transaction.getCreatedAt(), transaction.getId());
+    }
+
+    //opaque for the clients, microseconds since epoch and the id as url safe base64
+    public String encode() {
+        var buffer = ByteBuffer.allocate(LENGTH)
+                .putLong(ChronoUnit.MICROS.between(EPOCH, createdAt))
+                .putLong(id.getMostSignificantBits())
+                .putLong(id.getLeastSignificantBits());
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(buffer.array());
+    }
+
+    public static TransactionCursor decode(String cursor) {
+        byte[] bytes;
+        try {
+            bytes = Base64.getUrlDecoder().decode(cursor);
+        } catch (IllegalArgumentException e) {
+            throw new InvalidCursorException("Invalid cursor");
+        }
+        if (bytes.length != LENGTH) {
+            throw new InvalidCursorException("Invalid cursor");
+        }
+
+        var buffer = ByteBuffer.wrap(bytes);
+        return new TransactionCursor(EPOCH.plus(buffer.getLong(), ChronoUnit.MICROS), new UUID(buffer.getLong(), buffer.getLong()));
+    }
+}
@@ -0,0 +1,34 @@
+package com.example.bankcards.dto;
+
+import com.example.bankcards.enums.TransferRequestStatus;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.*;
+import lombok.experimental.FieldDefaults;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class TransferRequestDto {
+    UUID id;
+    TransferRequestStatus status;
+    BigDecimal sum;
+    String message;
+
+    @JsonProperty("source_id")
+    UUID sourceId;
+
+    @JsonProperty("target_id")
+    UUID targetId;
+
+    @JsonProperty("created_at")
+    LocalDateTime createdAt;
+
+    @JsonProperty("processed_at")
+    LocalDateTime processedAt;
+}
@@ -42,6 +42,10 @@ public class Account implements UserDetails {
     @Column(nullable = false)
     String lastName;
 
+    //lower cased username, mail and names, generated by the database for the trigram search index
+    @Column(name = "search_text", insertable = false, updatable = false)
+    String searchText;
+
     @Column(nullable = false, name = "hashed_password", columnDefinition = "VARCHAR(60)")
     String password;
 
@@ -54,10 +58,15 @@ public class Account implements UserDetails {
     @Enumerated(EnumType.ORDINAL)
     AccountStatus status;
 
+    //set by a database trigger whenever the status changes
+    @Column(name = "status_changed_at", insertable = false, updatable = false)
+    LocalDateTime statusChangedAt;
+
     @OneToMany(mappedBy = "account", fetch = FetchType.LAZY, cascade = CascadeType.ALL, orphanRemoval = true)
     List<Card> cards;
 
-    @OneToMany(mappedBy = "account", fetch = FetchType.LAZY, cascade = CascadeType.ALL, orphanRemoval = true)
+    //revoked tokens outlive the account until the purge, other instances read the revocation from them
+    @OneToMany(mappedBy = "account", fetch = FetchType.LAZY)
     List<Token> tokens;
 
     @Enumerated(EnumType.ORDINAL)
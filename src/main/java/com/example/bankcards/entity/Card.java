@@ -1,9 +1,7 @@
 package com.example.bankcards.entity;
 
 import com.example.bankcards.constants.DbConstants;
-import com.example.bankcards.entity.converters.ByteArrayConverter;
 import com.example.bankcards.enums.CardStatus;
-import com.example.bankcards.util.HashUtils;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.DecimalMin;
 import jakarta.validation.constraints.PositiveOrZero;
@@ -11,6 +9,7 @@ import lombok.*;
 import lombok.experimental.FieldDefaults;
 import org.hibernate.annotations.ColumnTransformer;
 import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.SQLRestriction;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
@@ -18,6 +17,8 @@ import java.time.LocalDateTime;
 import java.util.UUID;
 
 @Entity
+//closed cards keep their ledger but are invisible to every entity query
+@SQLRestriction("deleted_at IS NULL")
 @Getter
 @Setter
 @Builder
@@ -33,7 +34,7 @@ public class Card {
     @Column(nullable = false)
     String owner;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "account_id", nullable = false)
     Account account;
 
@@ -41,12 +42,12 @@ public class Card {
     @Enumerated(EnumType.ORDINAL)
     CardStatus status;
 
-    @Column(name = "card_number_encrypted", nullable = false, columnDefinition = "BYTEA")
-    @Convert(converter = ByteArrayConverter.class)
+    //plain number from the create request, it is persisted only encrypted in CardSecret
+    @Transient
     String cardNumber;
 
-    @Column(name = "card_number_hash", nullable = false, length = 64)
-    String cardNumberHash;
+    @Column(name = "card_last4", nullable = false, length = 4)
+    String cardLast4;
 
     @Temporal(TemporalType.DATE)
     @Column(name = "expired_in", nullable = false)
@@ -61,6 +62,10 @@ public class Card {
     @Column(name = "blocked_request_at")
     LocalDateTime blockedRequestAt;
 
+    @Temporal(TemporalType.TIMESTAMP)
+    @Column(name = "deleted_at")
+    LocalDateTime deletedAt;
+
     @Column(nullable = false)
     @PositiveOrZero(message = "Balance cannot be negative")
     BigDecimal balance;
@@ -76,8 +81,5 @@ public class Card {
         if(owner == null){
             owner = "%s %s".formatted(account.getLastName().toUpperCase(), account.getFirstName().toUpperCase());
         }
-        if(cardNumberHash == null){
-            cardNumberHash = HashUtils.sha256Hex(cardNumber);
-        }
     }
 }
@@ -0,0 +1,37 @@
+package com.example.bankcards.entity;
+
+import com.example.bankcards.constants.DbConstants;
+import jakarta.persistence.*;
+import lombok.*;
+import lombok.experimental.FieldDefaults;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+@Entity
+@Getter
+@Setter
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@Table(name = DbConstants.CARD_BALANCE_SNAPSHOT_TABLE_NAME)
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class CardBalanceSnapshot {
+    @Id
+    @GeneratedValue(strategy = GenerationType.UUID)
+    UUID id;
+
+    @Column(name = "card_id", nullable = false)
+    UUID cardId;
+
+    //balance of the card after every ledger row written by a transaction with a smaller id
+    @Column(name = "xid_before", nullable = false)
+    Long xidBefore;
+
+    @Column(nullable = false)
+    BigDecimal balance;
+
+    @Column(name = "created_at", nullable = false)
+    LocalDateTime createdAt;
+}
@@ -0,0 +1,43 @@
+package com.example.bankcards.entity;
+
+import com.example.bankcards.constants.DbConstants;
+import com.example.bankcards.entity.converters.ByteArrayConverter;
+import com.example.bankcards.util.HashUtils;
+import jakarta.persistence.*;
+import lombok.*;
+import lombok.experimental.FieldDefaults;
+
+import java.util.UUID;
+
+@Entity
+@Getter
+@Setter
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@Table(name = DbConstants.CARD_SECRET_TABLE_NAME)
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class CardSecret {
+    @Id
+    @Column(name = "card_id")
+    UUID cardId;
+
+    @MapsId
+    @OneToOne(fetch = FetchType.LAZY, optional = false)
+    @JoinColumn(name = "card_id")
+    Card card;
+
+    @Column(name = "card_number_encrypted", nullable = false, columnDefinition = "BYTEA")
+    @Convert(converter = ByteArrayConverter.class)
+    String cardNumber;
+
+    @Column(name = "card_number_hash", nullable = false, length = 64)
+    String cardNumberHash;
+
+    @PrePersist
+    protected void onCreate() {
+        if(cardNumberHash == null){
+            cardNumberHash = HashUtils.sha256Hex(cardNumber);
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.example.bankcards.entity;
+
+import com.example.bankcards.constants.DbConstants;
+import com.example.bankcards.enums.CardTransactionType;
+import jakarta.persistence.*;
+import lombok.*;
+import lombok.experimental.FieldDefaults;
+import org.hibernate.annotations.Immutable;
+import org.hibernate.annotations.UuidGenerator;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.UUID;
+
+//ledger row, inserted once and never updated
+@Entity
+@Immutable
+@Getter
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@Table(name = DbConstants.CARD_TRANSACTION_TABLE_NAME)
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class CardTransaction {
+    //time ordered, the id order is the order of the ledger
+    @Id
+    @GeneratedValue
+    @UuidGenerator(algorithm = UuidV7Generator.class)
+    UUID id;
+
+    @Column(name = "card_id", nullable = false)
+    UUID cardId;
+
+    //owner of the card, kept on the row so the account history is read from one index
+    @Column(name = "account_id", nullable = false)
+    UUID accountId;
+
+    @Column(nullable = false)
+    @Enumerated(EnumType.ORDINAL)
+    CardTransactionType type;
+
+    //signed, negative for money leaving the card
+    @Column(nullable = false)
+    BigDecimal amount;
+
+    @Column(name = "counterpart_card_id")
+    UUID counterpartCardId;
+
+    @Column(name = "created_at", nullable = false)
+    LocalDateTime createdAt;
+
+    @PrePersist
+    protected void onCreate() {
+        if(createdAt == null) {
+            //the column keeps microseconds, a cursor taken from this row must match the stored value
+            createdAt = LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
+        }
+    }
+
+    public static CardTransaction of(UUID cardId, UUID accountId, CardTransactionType type, BigDecimal amount, UUID counterpartCardId) {
+        return CardTransaction.builder()
+                .cardId(cardId)
+                .accountId(accountId)
+                .type(type)
+                .amount(amount)
+                .counterpartCardId(counterpartCardId)
+                .build();
+    }
+}
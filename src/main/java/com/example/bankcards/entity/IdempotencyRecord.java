@@ -0,0 +1,43 @@
+package com.example.bankcards.entity;
+
+import com.example.bankcards.constants.DbConstants;
+import jakarta.persistence.*;
+import lombok.*;
+import lombok.experimental.FieldDefaults;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+@Entity
+@Getter
+@Setter
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@Table(name = DbConstants.IDEMPOTENCY_KEY_TABLE_NAME)
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class IdempotencyRecord {
+    @Id
+    @GeneratedValue(strategy = GenerationType.UUID)
+    UUID id;
+
+    @Column(name = "account_id", nullable = false)
+    UUID accountId;
+
+    @Column(name = "idempotency_key", nullable = false, length = 100)
+    String key;
+
+    //sha-256 of the operation and the request body, a key can not be reused for another request
+    @Column(name = "request_hash", nullable = false, length = 64)
+    String requestHash;
+
+    //json of the result, written in the same transaction as the operation itself
+    @Column(columnDefinition = "TEXT")
+    String response;
+
+    @Column(name = "created_at", nullable = false)
+    LocalDateTime createdAt;
+
+    @Column(name = "expires_at", nullable = false)
+    LocalDateTime expiresAt;
+}
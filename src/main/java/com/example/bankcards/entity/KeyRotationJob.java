@@ -0,0 +1,53 @@
+package com.example.bankcards.entity;
+
+import com.example.bankcards.constants.DbConstants;
+import com.example.bankcards.enums.KeyRotationStatus;
+import jakarta.persistence.*;
+import lombok.*;
+import lombok.experimental.FieldDefaults;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+@Entity
+@Getter
+@Setter
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@Table(name = DbConstants.KEY_ROTATION_JOB_TABLE_NAME)
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class KeyRotationJob {
+    @Id
+    @GeneratedValue(strategy = GenerationType.UUID)
+    UUID id;
+
+    @Column(nullable = false)
+    @Enumerated(EnumType.ORDINAL)
+    KeyRotationStatus status;
+
+    //checkpoint, every card_secrets row up to this id is encrypted with the current key
+    @Column(name = "last_card_id")
+    UUID lastCardId;
+
+    @Column(nullable = false)
+    long processed;
+
+    @Column(nullable = false)
+    long rotated;
+
+    @Column(columnDefinition = "TEXT")
+    String error;
+
+    @Temporal(TemporalType.TIMESTAMP)
+    @Column(name = "started_at", nullable = false)
+    LocalDateTime startedAt;
+
+    @Temporal(TemporalType.TIMESTAMP)
+    @Column(name = "updated_at", nullable = false)
+    LocalDateTime updatedAt;
+
+    @Temporal(TemporalType.TIMESTAMP)
+    @Column(name = "finished_at")
+    LocalDateTime finishedAt;
+}
@@ -2,6 +2,7 @@ package com.example.bankcards.entity;
 
 import com.example.bankcards.constants.DbConstants;
 import com.example.bankcards.enums.TokenStatus;
+import com.example.bankcards.util.HashUtils;
 import jakarta.persistence.*;
 import lombok.*;
 import lombok.experimental.FieldDefaults;
@@ -24,7 +25,7 @@ public class Token {
     UUID id;
 
     @ManyToOne
-    @JoinColumn(name = "account_id", nullable = false)
+    @JoinColumn(name = "account_id", nullable = false, foreignKey = @ForeignKey(ConstraintMode.NO_CONSTRAINT))
     Account account;
 
     @Column(nullable = false, name = "access_token", columnDefinition = "TEXT")
@@ -33,6 +34,13 @@ public class Token {
     @Column(nullable = false, name = "refresh_token", columnDefinition = "TEXT")
     String refreshToken;
 
+    //tokens are looked up by these digests, the TEXT columns are not indexed
+    @Column(nullable = false, name = "access_token_hash", length = 64)
+    String accessTokenHash;
+
+    @Column(nullable = false, name = "refresh_token_hash", length = 64)
+    String refreshTokenHash;
+
     @Column(nullable = false, name = "access_token_expires")
     @Temporal(TemporalType.TIMESTAMP)
     LocalDateTime accessTokenExpires;
@@ -49,4 +57,17 @@ public class Token {
     @Temporal(TemporalType.TIMESTAMP)
     @Column(name = "created_at", nullable = false)
     LocalDateTime createdAt;
+
+    //access tokens of the account issued before this moment are no longer valid
+    @Temporal(TemporalType.TIMESTAMP)
+    @Column(name = "revoked_at")
+    LocalDateTime revokedAt;
+
+    @PrePersist
+    @PreUpdate
+    protected void onSave() {
+        //the access token is replaced in place on refresh
+        accessTokenHash = HashUtils.sha256Hex(accessToken);
+        refreshTokenHash = HashUtils.sha256Hex(refreshToken);
+    }
 }
\ No newline at end of file
@@ -0,0 +1,65 @@
+package com.example.bankcards.entity;
+
+import com.example.bankcards.constants.DbConstants;
+import com.example.bankcards.enums.TransferRequestStatus;
+import jakarta.persistence.*;
+import lombok.*;
+import lombok.experimental.FieldDefaults;
+import org.hibernate.annotations.UuidGenerator;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.UUID;
+
+//transfer accepted for asynchronous execution, pending rows are the queue of the transfer workers
+@Entity
+@Getter
+@Setter
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@Table(name = DbConstants.TRANSFER_REQUEST_TABLE_NAME)
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class TransferRequest {
+    //time ordered, workers take the oldest requests first
+    @Id
+    @GeneratedValue
+    @UuidGenerator(algorithm = UuidV7Generator.class)
+    UUID id;
+
+    @Column(name = "account_id", nullable = false)
+    UUID accountId;
+
+    @Column(name = "source_card_id", nullable = false)
+    UUID sourceCardId;
+
+    @Column(name = "target_card_id", nullable = false)
+    UUID targetCardId;
+
+    @Column(nullable = false)
+    BigDecimal amount;
+
+    @Column(nullable = false)
+    @Enumerated(EnumType.ORDINAL)
+    TransferRequestStatus status;
+
+    String message;
+
+    @Column(name = "created_at", nullable = false)
+    LocalDateTime createdAt;
+
+    @Column(name = "processed_at")
+    LocalDateTime processedAt;
+
+    @PrePersist
+    protected void onCreate() {
+        if(status == null) {
+            status = TransferRequestStatus.PENDING;
+        }
+        if(createdAt == null) {
+            //as stored, the accepted response shows the same time as later status reads
+            createdAt = LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package com.example.bankcards.entity;
+
+import com.example.bankcards.util.UuidUtils;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.id.uuid.UuidValueGenerator;
+
+import java.util.UUID;
+
+public class UuidV7Generator implements UuidValueGenerator {
+    @Override
+    public UUID generateUuid(SharedSessionContractImplementor session) {
+        return UuidUtils.v7();
+    }
+}
@@ -0,0 +1,8 @@
+package com.example.bankcards.enums;
+
+public enum CardTransactionType {
+    OPENING,
+    TOP_UP,
+    TRANSFER_OUT,
+    TRANSFER_IN
+}
@@ -11,4 +11,8 @@ public enum Role {
     public String getRoleWithoutPrefix() {
         return name();
     }
+
+    public static Role fromRoleWithPrefix(String role) {
+        return valueOf(role.substring("ROLE_".length()));
+    }
 }
\ No newline at end of file
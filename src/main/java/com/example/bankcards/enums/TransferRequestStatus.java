@@ -0,0 +1,7 @@
+package com.example.bankcards.enums;
+
+public enum TransferRequestStatus {
+    PENDING,
+    COMPLETED,
+    REJECTED
+}
@@ -0,0 +1,11 @@
+package com.example.bankcards.exception;
+
+public class EncryptionException extends RuntimeException {
+    public EncryptionException(String message) {
+        super(message);
+    }
+
+    public EncryptionException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,7 @@
+package com.example.bankcards.exception;
+
+public class InvalidFieldException extends RuntimeException {
+    public InvalidFieldException(String message) {
+        super(message);
+    }
+}
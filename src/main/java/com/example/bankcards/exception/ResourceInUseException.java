@@ -0,0 +1,7 @@
+package com.example.bankcards.exception;
+
+public class ResourceInUseException extends RuntimeException {
+    public ResourceInUseException(String message) {
+        super(message);
+    }
+}
@@ -4,10 +4,16 @@ import com.example.bankcards.dto.ErrorMessage;
 import com.example.bankcards.exception.AccessException;
 import com.example.bankcards.exception.BlockedStatusException;
 import com.example.bankcards.exception.ElementNotFoundException;
+import com.example.bankcards.exception.IdempotencyKeyException;
+import com.example.bankcards.exception.InvalidCursorException;
+import com.example.bankcards.exception.InvalidFieldException;
+import com.example.bankcards.exception.ResourceInUseException;
+import com.example.bankcards.exception.ServiceOverloadedException;
 import com.example.bankcards.exception.UserNotFoundException;
 import lombok.extern.slf4j.Slf4j;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
@@ -61,6 +67,35 @@ public class ControllerExceptionHandler {
     public ResponseEntity<ErrorMessage> methodArgumentNotValidException(MethodArgumentNotValidException ex, WebRequest request) {
         return getResponseEntity(ex, request, HttpStatus.BAD_REQUEST);
     }
+
+    @ExceptionHandler(IdempotencyKeyException.class)
+    public ResponseEntity<ErrorMessage> idempotencyKeyException(IdempotencyKeyException ex, WebRequest request) {
+        return getResponseEntity(ex, request, HttpStatus.UNPROCESSABLE_ENTITY);
+    }
+
+    @ExceptionHandler(ResourceInUseException.class)
+    public ResponseEntity<ErrorMessage> resourceInUseException(ResourceInUseException ex, WebRequest request) {
+        return getResponseEntity(ex, request, HttpStatus.CONFLICT);
+    }
+
+    @ExceptionHandler(InvalidCursorException.class)
+    public ResponseEntity<ErrorMessage> invalidCursorException(InvalidCursorException ex, WebRequest request) {
+        return getResponseEntity(ex, request, HttpStatus.BAD_REQUEST);
+    }
+
+    @ExceptionHandler(InvalidFieldException.class)
+    public ResponseEntity<ErrorMessage> invalidFieldException(InvalidFieldException ex, WebRequest request) {
+        return getResponseEntity(ex, request, HttpStatus.BAD_REQUEST);
+    }
+
+    @ExceptionHandler(ServiceOverloadedException.class)
+    public ResponseEntity<ErrorMessage> serviceOverloadedException(ServiceOverloadedException ex, WebRequest request) {
+        var response = getResponseEntity(ex, request, HttpStatus.SERVICE_UNAVAILABLE);
+        return ResponseEntity.status(response.getStatusCode())
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(Math.max(1, ex.getRetryAfter().toSeconds())))
+                .body(response.getBody());
+    }
+
     @ExceptionHandler(Exception.class)
     public ResponseEntity<ErrorMessage> resourceException(Exception ex, WebRequest request) {
         return getResponseEntity(ex, request, HttpStatus.INTERNAL_SERVER_ERROR);
@@ -8,7 +8,9 @@ import org.springframework.security.core.userdetails.UserDetailsService;
 public interface AccountService extends UserDetailsService,
         Creatable<AccountCreateDto, Account>,
         Updateable<AccountUpdateDto, Account>,
-        Pagetable<Account>,
+        Pagetable<Account, Account>,
+        Scrollable<Account, Account>,
+        Estimable,
         Deletable,
         Searchable<Account>
 {
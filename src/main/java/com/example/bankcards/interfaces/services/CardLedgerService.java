@@ -0,0 +1,27 @@
+package com.example.bankcards.interfaces.services;
+
+import com.example.bankcards.dto.CardLedgerBalanceDto;
+import com.example.bankcards.dto.CursorPageDto;
+import com.example.bankcards.entity.CardTransaction;
+
+import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+public interface CardLedgerService {
+    /**
+     * Newest rows first, continued by the cursor of the previous page. Without a card id the history of
+     * all cards of the account is returned. Users see only their own cards.
+     */
+    <T> CursorPageDto<T> history(UUID accountId, UUID cardId, boolean isAdmin, String cursor, int size,
+                                 Function<CardTransaction, T> mapper);
+
+    //the whole history in the order of history pages, read in batches and handed to the consumer batch by batch
+    <T> void export(UUID accountId, UUID cardId, boolean isAdmin, Function<CardTransaction, T> mapper, Consumer<T> consumer);
+
+    //last snapshot plus the ledger rows written after it, compared with the stored card balance
+    CardLedgerBalanceDto ledgerBalance(UUID cardId);
+
+    //snapshots every card with committed ledger rows that are not in its last snapshot yet
+    int takeSnapshots();
+}
@@ -5,20 +5,26 @@ import com.example.bankcards.entity.Card;
 import com.example.bankcards.enums.CardStatus;
 import com.example.bankcards.interfaces.services.base.Creatable;
 import com.example.bankcards.interfaces.services.base.Deletable;
+import com.example.bankcards.interfaces.services.base.Estimable;
 import com.example.bankcards.interfaces.services.base.Pagetable;
+import com.example.bankcards.interfaces.services.base.Scrollable;
 import com.example.bankcards.interfaces.services.base.Searchable;
 
 import java.math.BigDecimal;
+import java.util.List;
 import java.util.UUID;
 import java.util.function.Function;
 
 public interface CardService
         extends Deletable,
         Creatable<CardCreateDto, Card>,
-        Pagetable<Card>
+        Pagetable<Card, CardView>,
+        Scrollable<Card, CardView>,
+        Estimable
 {
     void changeCardStatus(UUID cardId, CardStatus newStatus);
     void transfer(UUID accountId, CardTransferDto transferDto);
+    List<CardTransferResultDto> transfer(UUID accountId, List<CardTransferDto> transfers);
     void balance(UUID accountId, BalanceDto balanceDto, boolean isAdmin);
     void setBlockRequest(UUID accountId, CardBlockedRequestDto blockRequest);
     <T> T findById(UUID accountId, UUID id, Function<Card,T> mapper);
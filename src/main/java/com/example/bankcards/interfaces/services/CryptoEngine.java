@@ -0,0 +1,36 @@
+package com.example.bankcards.interfaces.services;
+
+/**
+ * In-process cipher used by {@link com.example.bankcards.service.EncryptionService}.
+ * Engines that only exist to read legacy data may refuse to encrypt.
+ */
+public interface CryptoEngine {
+    /**
+     * Engine name used by the {@code security.crypto.engine} property.
+     */
+    String name();
+
+    /**
+     * Whether the engine writes new values, only such an engine can be selected by {@code security.crypto.engine}.
+     */
+    default boolean canEncrypt() {
+        return true;
+    }
+
+    /**
+     * Cheap header check, must not attempt the actual decryption.
+     */
+    boolean canDecrypt(byte[] ciphertext);
+
+    /**
+     * Whether the value is already encrypted by this engine with the current key,
+     * values that are not current are picked up by the key rotation.
+     */
+    default boolean isCurrent(byte[] ciphertext) {
+        return false;
+    }
+
+    byte[] encrypt(String plaintext);
+
+    String decrypt(byte[] ciphertext);
+}
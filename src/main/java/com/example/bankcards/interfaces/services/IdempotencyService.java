@@ -0,0 +1,17 @@
+package com.example.bankcards.interfaces.services;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+
+import java.util.UUID;
+import java.util.function.Supplier;
+
+public interface IdempotencyService {
+    /**
+     * Runs the action once per account and key, a repeated key returns the stored result without running it again.
+     * The key is claimed in the transaction of the action, a failed action leaves it free for the next attempt.
+     * Without a key the action simply runs.
+     */
+    <T> T execute(UUID accountId, String key, String operation, Object request, TypeReference<T> resultType, Supplier<T> action);
+
+    void execute(UUID accountId, String key, String operation, Object request, Runnable action);
+}
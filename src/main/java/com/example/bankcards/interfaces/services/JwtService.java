@@ -5,6 +5,8 @@ import com.example.bankcards.dto.AuthorizationToken;
 import com.example.bankcards.dto.ValidationResult;
 import com.example.bankcards.enums.TokenStatus;
 import com.example.bankcards.enums.TokenType;
+import com.example.bankcards.security.AccountPrincipal;
+import com.example.bankcards.security.VerifiedToken;
 import io.jsonwebtoken.Claims;
 import org.springframework.security.core.userdetails.UserDetails;
 
@@ -18,4 +20,15 @@ public interface JwtService {
     <T> T extractValue(String token, TokenType type, Function<Claims,T> claimsResolver);
     void changeTokenStatus(UUID accountId, TokenStatus status);
     ValidationResult validateToken(String token, TokenType type );
+
+    /**
+     * Parses the token once, throws {@link com.example.bankcards.exception.ValidationTokenException}
+     * when it is empty, expired or has an invalid signature.
+     */
+    VerifiedToken verify(String token, TokenType type);
+
+    /**
+     * Resolves the principal stored in the security context, detached from the persistence context.
+     */
+    AccountPrincipal getUserDetails(VerifiedToken token);
 }
\ No newline at end of file
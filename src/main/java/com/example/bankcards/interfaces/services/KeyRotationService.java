@@ -0,0 +1,14 @@
+package com.example.bankcards.interfaces.services;
+
+import com.example.bankcards.entity.KeyRotationJob;
+import com.example.bankcards.interfaces.services.base.Searchable;
+
+import java.util.function.Function;
+
+public interface KeyRotationService extends Searchable<KeyRotationJob> {
+    /**
+     * Starts re-encryption of card numbers with the current key,
+     * an unfinished or failed job is resumed from its checkpoint instead.
+     */
+    <T> T start(Function<KeyRotationJob, T> mapper);
+}
@@ -0,0 +1,17 @@
+package com.example.bankcards.interfaces.services;
+
+import com.example.bankcards.dto.CardTransferDto;
+import com.example.bankcards.entity.TransferRequest;
+
+import java.util.UUID;
+import java.util.function.Function;
+
+public interface TransferRequestService {
+    //stores the transfer as pending, it is executed later by the transfer workers
+    <T> T submit(UUID accountId, CardTransferDto transferDto, Function<TransferRequest, T> mapper);
+
+    <T> T findById(UUID accountId, UUID id, Function<TransferRequest, T> mapper);
+
+    //executes up to batchSize pending requests, one transaction per account, returns the number processed
+    int processPending(int batchSize);
+}
@@ -0,0 +1,6 @@
+package com.example.bankcards.interfaces.services.base;
+
+public interface Estimable {
+    long getEstimatedTotal();
+    void refreshEstimatedTotal();
+}
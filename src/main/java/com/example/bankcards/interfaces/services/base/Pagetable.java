@@ -2,11 +2,14 @@ package com.example.bankcards.interfaces.services.base;
 
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.domain.Specification;
 
 import java.util.function.Function;
 
-public interface Pagetable<TEntity> {
-    <T> Page<T> getPages(Specification<TEntity> specification, Pageable pageable, Function<TEntity, T> mapper);
+//TRow is what a listing reads per row, the entity itself or a projection of it
+public interface Pagetable<TEntity, TRow> {
+    <T> Page<T> getPages(Specification<TEntity> specification, Pageable pageable, Function<TRow, T> mapper);
+    <T> Slice<T> getSlice(Specification<TEntity> specification, Pageable pageable, Function<TRow, T> mapper);
 }
 
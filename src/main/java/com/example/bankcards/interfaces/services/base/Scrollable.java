@@ -0,0 +1,11 @@
+package com.example.bankcards.interfaces.services.base;
+
+import com.example.bankcards.dto.CursorPageDto;
+import com.example.bankcards.dto.KeysetCursor;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.function.Function;
+
+public interface Scrollable<TEntity, TRow> {
+    <T> CursorPageDto<T> getWindow(Specification<TEntity> specification, KeysetCursor position, int size, Function<TRow, T> mapper);
+}
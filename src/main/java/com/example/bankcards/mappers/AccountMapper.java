@@ -4,6 +4,7 @@ import com.example.bankcards.dto.AccountCreateDto;
 import com.example.bankcards.dto.AccountDto;
 import com.example.bankcards.dto.AccountUpdateDto;
 import com.example.bankcards.entity.Account;
+import com.example.bankcards.security.PasswordHashingExecutor;
 import lombok.RequiredArgsConstructor;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.stereotype.Component;
@@ -12,6 +13,7 @@ import org.springframework.stereotype.Component;
 @RequiredArgsConstructor
 public final class AccountMapper {
     private final BCryptPasswordEncoder bCryptPasswordEncoder;
+    private final PasswordHashingExecutor passwordHashingExecutor;
 
     public Account dtoToEntity(AccountCreateDto source) {
         return Account.builder()
@@ -19,7 +21,8 @@ public final class AccountMapper {
                 .mail(source.email())
                 .firstName(source.firstName())
                 .lastName(source.lastName())
-                .password(bCryptPasswordEncoder.encode(source.password().concat(source.login())))
+                .password(passwordHashingExecutor.execute(
+                        () -> bCryptPasswordEncoder.encode(source.password().concat(source.login()))))
                 .build();
     }
 
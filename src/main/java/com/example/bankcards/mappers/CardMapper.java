@@ -2,6 +2,7 @@ package com.example.bankcards.mappers;
 
 import com.example.bankcards.dto.CardCreateDto;
 import com.example.bankcards.dto.CardDto;
+import com.example.bankcards.dto.CardView;
 import com.example.bankcards.entity.Account;
 import com.example.bankcards.entity.Card;
 import com.example.bankcards.util.CardUtils;
@@ -25,9 +26,21 @@ public class CardMapper {
                 .id(entity.getId())
                 .owner(entity.getOwner())
                 .expiryDate(entity.getExpiredIn())
-                .number(CardUtils.maskCardNumber(entity.getCardNumber()))
+                .number(CardUtils.maskLastDigits(entity.getCardLast4()))
                 .status(entity.getStatus())
                 .balance(entity.getBalance())
                 .build();
     }
+
+    public CardDto viewToDto(CardView view) {
+        if(view == null) return null;
+        return CardDto.builder()
+                .id(view.id())
+                .owner(view.owner())
+                .expiryDate(view.expiredIn())
+                .number(CardUtils.maskLastDigits(view.cardLast4()))
+                .status(view.status())
+                .balance(view.balance())
+                .build();
+    }
 }
@@ -0,0 +1,20 @@
+package com.example.bankcards.mappers;
+
+import com.example.bankcards.dto.CardTransactionDto;
+import com.example.bankcards.entity.CardTransaction;
+import org.springframework.stereotype.Component;
+
+@Component
+public class CardTransactionMapper {
+    public CardTransactionDto toDto(CardTransaction entity) {
+        if(entity == null) return null;
+        return CardTransactionDto.builder()
+                .id(entity.getId())
+                .cardId(entity.getCardId())
+                .type(entity.getType())
+                .amount(entity.getAmount())
+                .counterpartCardId(entity.getCounterpartCardId())
+                .createdAt(entity.getCreatedAt())
+                .build();
+    }
+}
@@ -0,0 +1,31 @@
+package com.example.bankcards.mappers;
+
+import com.example.bankcards.dto.KeyRotationJobDto;
+import com.example.bankcards.entity.KeyRotationJob;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Component
+public class KeyRotationJobMapper {
+    public KeyRotationJobDto toDto(KeyRotationJob entity) {
+        if(entity == null) return null;
+        return KeyRotationJobDto.builder()
+                .id(entity.getId())
+                .status(entity.getStatus())
+                .lastCardId(entity.getLastCardId())
+                .processed(entity.getProcessed())
+                .rotated(entity.getRotated())
+                .rowsPerSecond(rowsPerSecond(entity))
+                .error(entity.getError())
+                .startedAt(entity.getStartedAt())
+                .updatedAt(entity.getUpdatedAt())
+                .finishedAt(entity.getFinishedAt())
+                .build();
+    }
+
+    private double rowsPerSecond(KeyRotationJob entity) {
+        var millis = Duration.between(entity.getStartedAt(), entity.getUpdatedAt()).toMillis();
+        return millis > 0 ? entity.getProcessed() * 1000.0 / millis : 0;
+    }
+}
@@ -0,0 +1,40 @@
+package com.example.bankcards.mappers;
+
+import com.example.bankcards.dto.CardTransferDto;
+import com.example.bankcards.dto.TransferRequestDto;
+import com.example.bankcards.entity.TransferRequest;
+import org.springframework.stereotype.Component;
+
+import java.util.UUID;
+
+@Component
+public class TransferRequestMapper {
+    public TransferRequest toEntity(UUID accountId, CardTransferDto dto) {
+        if(dto == null) return null;
+        return TransferRequest.builder()
+                .accountId(accountId)
+                .sourceCardId(dto.sourceId())
+                .targetCardId(dto.targetId())
+                .amount(dto.sum())
+                .build();
+    }
+
+    public CardTransferDto toTransferDto(TransferRequest entity) {
+        if(entity == null) return null;
+        return new CardTransferDto(entity.getSourceCardId(), entity.getTargetCardId(), entity.getAmount());
+    }
+
+    public TransferRequestDto toDto(TransferRequest entity) {
+        if(entity == null) return null;
+        return TransferRequestDto.builder()
+                .id(entity.getId())
+                .status(entity.getStatus())
+                .sourceId(entity.getSourceCardId())
+                .targetId(entity.getTargetCardId())
+                .sum(entity.getAmount())
+                .message(entity.getMessage())
+                .createdAt(entity.getCreatedAt())
+                .processedAt(entity.getProcessedAt())
+                .build();
+    }
+}
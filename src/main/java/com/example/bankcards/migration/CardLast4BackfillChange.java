@@ -0,0 +1,131 @@
+package com.example.bankcards.migration;
+
+import com.example.bankcards.service.EncryptionService;
+import com.example.bankcards.service.crypto.AesGcmCryptoEngine;
+import com.example.bankcards.service.crypto.PgpSymmetricCryptoEngine;
+import com.example.bankcards.util.CardUtils;
+import liquibase.change.CheckSum;
+import liquibase.change.custom.CustomChangeChecksum;
+import liquibase.change.custom.CustomTaskChange;
+import liquibase.database.Database;
+import liquibase.database.jvm.JdbcConnection;
+import liquibase.exception.CustomChangeException;
+import liquibase.exception.ValidationErrors;
+import liquibase.resource.ResourceAccessor;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Fills cards.card_last4 from the encrypted numbers, committing every batch.
+ * Rows that already have the value are skipped, so a failed run continues where it stopped.
+ * The keys come from the Spring environment through spring.liquibase.parameters and are left out of the checksum.
+ */
+public class CardLast4BackfillChange implements CustomTaskChange, CustomChangeChecksum {
+
+    //keyset over card_id, every batch starts after the last card of the previous one
+    private static final String SELECT_BATCH = """
+            SELECT s.card_id, s.card_number_encrypted
+              FROM card_secrets s
+              JOIN cards c ON c.id = s.card_id
+             WHERE c.card_last4 IS NULL AND s.card_id > ?
+             ORDER BY s.card_id
+             LIMIT ?
+            """;
+    private static final String HAS_MISSING = "SELECT EXISTS (SELECT 1 FROM cards WHERE card_last4 IS NULL)";
+    private static final String UPDATE_CARD = "UPDATE cards SET card_last4 = ? WHERE id = ?";
+
+    // changelog parameters are bound through bean properties
+    @Getter @Setter
+    private String batchSize;
+
+    @Getter @Setter
+    private String cryptoKey;
+
+    @Getter @Setter
+    private String retiredKeys;
+
+    private int updated;
+
+    @Override
+    public void execute(Database database) throws CustomChangeException {
+        var connection = (JdbcConnection) database.getConnection();
+        //a database without cards to fill does not need the key at all
+        if (!hasMissing(connection)) {
+            return;
+        }
+        if (cryptoKey == null || cryptoKey.isBlank()) {
+            throw new CustomChangeException("security.crypto-key is required to backfill card_last4");
+        }
+        var retired = retiredKeys == null || retiredKeys.isBlank() ? List.<String>of() : List.of(retiredKeys.split(","));
+        var encryptionService = new EncryptionService(
+                List.of(new AesGcmCryptoEngine(cryptoKey, retired), new PgpSymmetricCryptoEngine(cryptoKey, retired)),
+                AesGcmCryptoEngine.NAME);
+        int limit = Integer.parseInt(batchSize);
+
+        try (var select = connection.prepareStatement(SELECT_BATCH);
+             var update = connection.prepareStatement(UPDATE_CARD)) {
+            select.setInt(2, limit);
+            var lastCardId = new UUID(0, 0);
+            int rows;
+            do {
+                rows = 0;
+                select.setObject(1, lastCardId);
+                try (var resultSet = select.executeQuery()) {
+                    while (resultSet.next()) {
+                        lastCardId = resultSet.getObject("card_id", UUID.class);
+                        var number = encryptionService.decrypt(resultSet.getBytes("card_number_encrypted"));
+                        update.setString(1, CardUtils.lastDigits(number));
+                        update.setObject(2, lastCardId);
+                        update.addBatch();
+                        rows++;
+                    }
+                }
+                if (rows > 0) {
+                    update.executeBatch();
+                    connection.commit();
+                    updated += rows;
+                }
+            } while (rows == limit);
+        } catch (Exception e) {
+            throw new CustomChangeException("Unable to backfill card_last4", e);
+        }
+    }
+
+    @Override
+    public String getConfirmationMessage() {
+        return "card_last4 filled for %d cards".formatted(updated);
+    }
+
+    @Override
+    public void setUp() {
+    }
+
+    @Override
+    public void setFileOpener(ResourceAccessor resourceAccessor) {
+    }
+
+    //the keys change with every rotation, a ran changeset must stay valid
+    @Override
+    public CheckSum generateChecksum() {
+        return CheckSum.compute(getClass().getName() + ":" + batchSize);
+    }
+
+    @Override
+    public ValidationErrors validate(Database database) {
+        var errors = new ValidationErrors();
+        errors.checkRequiredField("batchSize", batchSize);
+        return errors;
+    }
+
+    private static boolean hasMissing(JdbcConnection connection) throws CustomChangeException {
+        try (var statement = connection.createStatement();
+             var resultSet = statement.executeQuery(HAS_MISSING)) {
+            return resultSet.next() && resultSet.getBoolean(1);
+        } catch (Exception e) {
+            throw new CustomChangeException("Unable to check card_last4", e);
+        }
+    }
+}
@@ -1,14 +1,18 @@
 package com.example.bankcards.repository;
 
+import com.example.bankcards.dto.AccountStatusChange;
 import com.example.bankcards.entity.Account;
+import com.example.bankcards.enums.AccountStatus;
 import com.example.bankcards.enums.Role;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
 
 @Repository
@@ -19,4 +23,23 @@ public interface AccountRepository extends JpaRepository<Account, UUID>, JpaSpec
 
     @Query("select a from Account a where a.role = :role")
     List<Account> getAllByRole(Role role);
+
+    @Query("select a.id from Account a where a.status = :status")
+    Set<UUID> getIdsByStatus(AccountStatus status);
+
+    @Query("select new com.example.bankcards.dto.AccountStatusChange(a.id, a.status, a.statusChangedAt) from Account a " +
+            "where a.statusChangedAt > :since")
+    List<AccountStatusChange> findStatusChangesSince(LocalDateTime since);
+
+    @Query("select max(a.statusChangedAt) from Account a")
+    Optional<LocalDateTime> findLastStatusChange();
+
+    //planner statistics scaled to the current table size like the planner does it, -1 for a never analyzed table
+    @Query(value = """
+            SELECT CASE WHEN reltuples < 0 OR relpages = 0 THEN reltuples::bigint
+                        ELSE (reltuples / relpages * (pg_relation_size(oid) / current_setting('block_size')::int))::bigint
+                   END
+              FROM pg_class WHERE oid = 'accounts'::regclass
+            """, nativeQuery = true)
+    long estimateCount();
 }
@@ -0,0 +1,51 @@
+package com.example.bankcards.repository;
+
+import com.example.bankcards.dto.LedgerBalanceRow;
+import com.example.bankcards.entity.CardBalanceSnapshot;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Optional;
+import java.util.UUID;
+
+@Repository
+public interface CardBalanceSnapshotRepository extends JpaRepository<CardBalanceSnapshot, UUID> {
+
+    //one statement sees the card, its last snapshot and the tail in the same state of the database,
+    //a transfer committing in between cannot count on one side only; closed cards are read too
+    @Query(value = """
+            SELECT c.balance AS balance, s.balance + COALESCE(tail.amount, 0) AS ledger
+              FROM cards c
+              LEFT JOIN LATERAL (SELECT xid_before, balance
+                                   FROM card_balance_snapshots
+                                  WHERE card_id = c.id
+                                  ORDER BY xid_before DESC LIMIT 1) s ON true
+              LEFT JOIN LATERAL (SELECT sum(t.amount) AS amount
+                                   FROM card_transactions t
+                                  WHERE t.card_id = c.id AND t.created_xid >= s.xid_before) tail ON true
+             WHERE c.id = :cardId
+            """, nativeQuery = true)
+    Optional<LedgerBalanceRow> findLedgerBalance(UUID cardId);
+
+    //a new snapshot for every card with ledger rows between its last snapshot and the oldest transaction
+    //still running, nothing can commit below that boundary any more; only the tail after the last snapshot is read
+    @Modifying
+    @Transactional
+    @Query(value = """
+            INSERT INTO card_balance_snapshots (id, card_id, xid_before, balance, created_at)
+            SELECT gen_random_uuid(), s.card_id, w.xid, s.balance + tail.amount, now()
+              FROM (SELECT pg_snapshot_xmin(pg_current_snapshot())::text::bigint AS xid) w
+             CROSS JOIN (SELECT DISTINCT ON (card_id) card_id, xid_before, balance
+                           FROM card_balance_snapshots
+                          ORDER BY card_id, xid_before DESC) s
+              JOIN LATERAL (SELECT sum(t.amount) AS amount
+                              FROM card_transactions t
+                             WHERE t.card_id = s.card_id
+                               AND t.created_xid >= s.xid_before AND t.created_xid < w.xid) tail ON tail.amount IS NOT NULL
+             WHERE s.xid_before < w.xid
+            """, nativeQuery = true)
+    int createSnapshots();
+}
@@ -2,12 +2,18 @@ package com.example.bankcards.repository;
 
 import com.example.bankcards.entity.Card;
 import com.example.bankcards.enums.CardStatus;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.math.BigDecimal;
+import java.util.Collection;
 import java.util.List;
 import java.time.LocalDate;
 import java.util.Optional;
@@ -15,19 +21,64 @@ import java.util.Set;
 import java.util.UUID;
 
 @Repository
-public interface CardRepository extends JpaRepository<Card, UUID>, JpaSpecificationExecutor<Card> {
+public interface CardRepository extends JpaRepository<Card, UUID>, JpaSpecificationExecutor<Card>, CardViewRepository {
     @Query("select c from Card c where c.id = :cardId and c.account.id = :accountId")
     Optional<Card> findByAccountId(UUID accountId, UUID cardId);
 
-    @Query("select c from Card c where c.id = :cardId and c.status = com.example.bankcards.enums.CardStatus.ACTIVE")
-    Optional<Card> findActiveById(UUID cardId);
+    @Query("select count(c) > 0 from Card c where c.id = :cardId and c.account.id = :accountId")
+    boolean existsByAccountId(UUID accountId, UUID cardId);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select c from Card c where c.id = :cardId")
+    Optional<Card> findByIdForUpdate(UUID cardId);
+
+    //rows are locked in id order, the same order the single transfers update them in
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select c from Card c where c.id in :cardIds order by c.id")
+    List<Card> findAllByIdForUpdate(Collection<UUID> cardIds);
+
+    //balance changes are single conditional statements, the affected row count tells if the change was allowed
+    @Modifying
+    @Transactional
+    @Query("""
+            update Card c set c.balance = c.balance - :sum
+             where c.id = :cardId and c.account.id = :accountId
+               and c.status = com.example.bankcards.enums.CardStatus.ACTIVE and c.balance >= :sum
+            """)
+    int debit(UUID cardId, UUID accountId, BigDecimal sum);
+
+    @Modifying
+    @Transactional
+    @Query("""
+            update Card c set c.balance = c.balance + :sum
+             where c.id = :cardId and c.account.id = :accountId
+               and c.status = com.example.bankcards.enums.CardStatus.ACTIVE
+            """)
+    int credit(UUID cardId, UUID accountId, BigDecimal sum);
+
+    //native, closed cards count too
+    @Query(value = "SELECT EXISTS (SELECT 1 FROM cards WHERE account_id = :accountId)", nativeQuery = true)
+    boolean existsAnyByAccountId(UUID accountId);
+
+    //planner statistics scaled to the current table size like the planner does it, -1 for a never analyzed table
+    @Query(value = """
+            SELECT CASE WHEN reltuples < 0 OR relpages = 0 THEN reltuples::bigint
+                        ELSE (reltuples / relpages * (pg_relation_size(oid) / current_setting('block_size')::int))::bigint
+                   END
+              FROM pg_class WHERE oid = 'cards'::regclass
+            """, nativeQuery = true)
+    long estimateCount();
+
+    //closed cards are in the statistics but hidden from count(), served by the partial idx_cards_closed
+    @Query(value = "SELECT count(*) FROM cards WHERE deleted_at IS NOT NULL", nativeQuery = true)
+    long countClosed();
 
     @Query("select c from Card c where c.expiredIn <= :date AND c.status <> com.example.bankcards.enums.CardStatus.EXPIRED")
     List<Card> findByExpiredIn(LocalDate date);
 
     @Query("""
-            select c from Card c 
-              where c.blockedRequestAt is not null 
+            select c from Card c
+              where c.blockedRequestAt is not null
                           AND c.status NOT IN :statuses
                                       """)
     List<Card> findByRequestNotIn(@Param("statuses") Set<CardStatus> statuses);
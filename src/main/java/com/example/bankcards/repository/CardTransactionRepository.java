@@ -0,0 +1,36 @@
+package com.example.bankcards.repository;
+
+import com.example.bankcards.entity.CardTransaction;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface CardTransactionRepository extends JpaRepository<CardTransaction, UUID> {
+
+    List<CardTransaction> findByCardIdOrderByCreatedAtDescIdDesc(UUID cardId, Limit limit);
+
+    List<CardTransaction> findByAccountIdOrderByCreatedAtDescIdDesc(UUID accountId, Limit limit);
+
+    //keyset pages, the row comparison is an index condition so a deep page reads only its own rows
+    @Query(value = """
+            SELECT * FROM card_transactions
+             WHERE card_id = :cardId AND (created_at, id) < (:createdAt, :id)
+             ORDER BY created_at DESC, id DESC
+             LIMIT :limit
+            """, nativeQuery = true)
+    List<CardTransaction> findByCardIdBefore(UUID cardId, LocalDateTime createdAt, UUID id, int limit);
+
+    @Query(value = """
+            SELECT * FROM card_transactions
+             WHERE account_id = :accountId AND (created_at, id) < (:createdAt, :id)
+             ORDER BY created_at DESC, id DESC
+             LIMIT :limit
+            """, nativeQuery = true)
+    List<CardTransaction> findByAccountIdBefore(UUID accountId, LocalDateTime createdAt, UUID id, int limit);
+}
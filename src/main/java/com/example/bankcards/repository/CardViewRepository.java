@@ -0,0 +1,12 @@
+package com.example.bankcards.repository;
+
+import com.example.bankcards.dto.CardView;
+import com.example.bankcards.entity.Card;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.List;
+
+public interface CardViewRepository {
+    List<CardView> findViews(Specification<Card> specification, Sort sort, long offset, int limit);
+}
@@ -0,0 +1,40 @@
+package com.example.bankcards.repository;
+
+import com.example.bankcards.dto.CardView;
+import com.example.bankcards.entity.Card;
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+
+import java.util.List;
+
+@RequiredArgsConstructor
+public class CardViewRepositoryImpl implements CardViewRepository {
+
+    private final EntityManager entityManager;
+
+    //the same filters as the entity listing, but the rows are built straight from the selected columns,
+    //nothing is put in the persistence context and the account is never read
+    @Override
+    public List<CardView> findViews(Specification<Card> specification, Sort sort, long offset, int limit) {
+        var cb = entityManager.getCriteriaBuilder();
+        var query = cb.createQuery(CardView.class);
+        var root = query.from(Card.class);
+
+        query.select(cb.construct(CardView.class,
+                root.get("id"), root.get("cardLast4"), root.get("owner"), root.get("balance"),
+                root.get("status"), root.get("expiredIn"), root.get("createdAt")));
+        var predicate = specification.toPredicate(root, query, cb);
+        if (predicate != null) {
+            query.where(predicate);
+        }
+        query.orderBy(QueryUtils.toOrders(sort, root, cb));
+
+        return entityManager.createQuery(query)
+                .setFirstResult(Math.toIntExact(offset))
+                .setMaxResults(limit)
+                .getResultList();
+    }
+}
@@ -0,0 +1,43 @@
+package com.example.bankcards.repository;
+
+import com.example.bankcards.entity.IdempotencyRecord;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.UUID;
+
+@Repository
+public interface IdempotencyRecordRepository extends JpaRepository<IdempotencyRecord, UUID> {
+
+    //claims the key, 0 rows when a live record exists. A concurrent insert of the same key is waited for,
+    //so the count reflects its committed outcome. An expired record that was not purged yet is taken over.
+    @Modifying
+    @Query(value = """
+            INSERT INTO idempotency_keys (id, account_id, idempotency_key, request_hash, created_at, expires_at)
+            VALUES (gen_random_uuid(), :accountId, :key, :requestHash, :now, :expiresAt)
+            ON CONFLICT (account_id, idempotency_key) DO UPDATE
+               SET request_hash = EXCLUDED.request_hash, response = NULL,
+                   created_at = EXCLUDED.created_at, expires_at = EXCLUDED.expires_at
+             WHERE idempotency_keys.expires_at <= :now
+            """, nativeQuery = true)
+    int claim(UUID accountId, String key, String requestHash, LocalDateTime now, LocalDateTime expiresAt);
+
+    @Modifying
+    @Query("update IdempotencyRecord r set r.response = :response where r.accountId = :accountId and r.key = :key")
+    int saveResponse(UUID accountId, String key, String response);
+
+    Optional<IdempotencyRecord> findByAccountIdAndKey(UUID accountId, String key);
+
+    @Modifying
+    @Transactional
+    @Query(value = """
+            DELETE FROM idempotency_keys WHERE id IN (
+                SELECT id FROM idempotency_keys WHERE expires_at <= :now LIMIT :batchSize)
+            """, nativeQuery = true)
+    int deleteExpired(LocalDateTime now, int batchSize);
+}
@@ -0,0 +1,18 @@
+package com.example.bankcards.repository;
+
+import com.example.bankcards.entity.KeyRotationJob;
+import com.example.bankcards.enums.KeyRotationStatus;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+@Repository
+public interface KeyRotationJobRepository extends JpaRepository<KeyRotationJob, UUID> {
+    List<KeyRotationJob> findByStatus(KeyRotationStatus status);
+
+    Optional<KeyRotationJob> findFirstByStatusInOrderByStartedAtDesc(Collection<KeyRotationStatus> statuses);
+}
@@ -1,10 +1,16 @@
 package com.example.bankcards.repository;
 
+import com.example.bankcards.dto.TokenRevocation;
 import com.example.bankcards.entity.Token;
+import com.example.bankcards.enums.TokenStatus;
+import com.example.bankcards.util.HashUtils;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -12,12 +18,58 @@ import java.util.UUID;
 @Repository
 public interface TokenRepository extends JpaRepository<Token, UUID> {
 
-    @Query("select t from Token t where t.account.id = :accountId")
-    List<Token> getTokensByAccountId(UUID accountId);
+    //active token that is still worth handing out again instead of issuing a new pair
+    @Query("""
+            select t from Token t
+             where t.account.id = :accountId
+               and t.status = com.example.bankcards.enums.TokenStatus.ACTIVE
+               and t.accessTokenExpires >= :accessExpiresAfter
+               and t.refreshTokenExpires >= :refreshExpiresAfter
+             order by t.createdAt desc
+             limit 1
+            """)
+    Optional<Token> findReusableToken(UUID accountId, LocalDateTime accessExpiresAfter, LocalDateTime refreshExpiresAfter);
 
-    @Query("select t from Token t where t.status = 0 and t.refreshToken = :refreshToken")
-    Optional<Token> findTokenByRefreshToken(String refreshToken);
+    @Query("select t from Token t where t.status = 0 and t.refreshTokenHash = :refreshTokenHash")
+    Optional<Token> findTokenByRefreshTokenHash(String refreshTokenHash);
 
-    @Query("select t from Token t where t.status = 0 and t.accessToken = :accessToken")
-    Optional<Token> findTokenByAccessToken(String accessToken);
+    @Query("select t from Token t where t.status = 0 and t.accessTokenHash = :accessTokenHash")
+    Optional<Token> findTokenByAccessTokenHash(String accessTokenHash);
+
+    default Optional<Token> findTokenByRefreshToken(String refreshToken) {
+        return findTokenByRefreshTokenHash(HashUtils.sha256Hex(refreshToken));
+    }
+
+    default Optional<Token> findTokenByAccessToken(String accessToken) {
+        return findTokenByAccessTokenHash(HashUtils.sha256Hex(accessToken));
+    }
+
+    @Query("select new com.example.bankcards.dto.TokenRevocation(t.account.id, max(t.revokedAt)) from Token t " +
+            "where t.revokedAt > :since group by t.account.id")
+    List<TokenRevocation> findRevocationsSince(LocalDateTime since);
+
+    @Modifying
+    @Transactional
+    @Query("""
+            update Token t set t.status = com.example.bankcards.enums.TokenStatus.INACTIVE, t.revokedAt = :revokedAt
+             where t.account.id = :accountId and t.status = com.example.bankcards.enums.TokenStatus.ACTIVE
+            """)
+    int revokeActiveTokens(UUID accountId, LocalDateTime revokedAt);
+
+    @Modifying
+    @Transactional
+    @Query("update Token t set t.status = :status where t.account.id = :accountId")
+    int updateStatusByAccountId(UUID accountId, TokenStatus status);
+
+    //inactive or expired rows, kept while their revoked_at can still reject a live access token
+    @Modifying
+    @Transactional
+    @Query(value = """
+            DELETE FROM tokens WHERE id IN (
+                SELECT id FROM tokens
+                 WHERE (status = 1 OR refresh_token_expires < :expiredBefore)
+                   AND COALESCE(revoked_at, created_at) < :revokedBefore
+                 LIMIT :batchSize)
+            """, nativeQuery = true)
+    int deleteDeadTokens(LocalDateTime expiredBefore, LocalDateTime revokedBefore, int batchSize);
 }
@@ -0,0 +1,46 @@
+package com.example.bankcards.repository;
+
+import com.example.bankcards.entity.TransferRequest;
+import com.example.bankcards.enums.TransferRequestStatus;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.SpecHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+@Repository
+public interface TransferRequestRepository extends JpaRepository<TransferRequest, UUID> {
+
+    Optional<TransferRequest> findByIdAndAccountId(UUID id, UUID accountId);
+
+    //accounts with the oldest waiting requests first, read without locks
+    @Query("""
+            select r.accountId from TransferRequest r
+             where r.status = :status
+             group by r.accountId
+             order by min(r.id)
+            """)
+    List<UUID> findPendingAccountIds(TransferRequestStatus status, Limit limit);
+
+    @Query("select r.id from TransferRequest r where r.accountId = :accountId and r.status = :status order by r.id")
+    List<UUID> findPendingIds(UUID accountId, TransferRequestStatus status, Limit limit);
+
+    //rows claimed by another worker are skipped instead of waited for (lock timeout -2 is SKIP LOCKED)
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = SpecHints.HINT_SPEC_LOCK_TIMEOUT, value = "-2"))
+    @Query("select r from TransferRequest r where r.accountId = :accountId and r.status = :status order by r.id")
+    List<TransferRequest> claimPending(UUID accountId, TransferRequestStatus status, Limit limit);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = SpecHints.HINT_SPEC_LOCK_TIMEOUT, value = "-2"))
+    @Query("select r from TransferRequest r where r.id = :id and r.status = :status")
+    Optional<TransferRequest> claimById(UUID id, TransferRequestStatus status);
+}
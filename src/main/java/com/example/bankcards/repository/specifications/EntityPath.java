@@ -0,0 +1,31 @@
+package com.example.bankcards.repository.specifications;
+
+import jakarta.persistence.criteria.From;
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.Path;
+
+//filter path of an entity resolved once from the metamodel, an attribute or an attribute of an associated entity
+public record EntityPath(String association, String attribute, boolean join, Class<?> javaType) {
+
+    //the id of an associated entity is the foreign key column of the root, it is read without a join
+    @SuppressWarnings("unchecked")
+    public <Y> Path<Y> resolve(From<?, ?> root) {
+        if (association == null) {
+            return root.get(attribute);
+        }
+        if (!join) {
+            return root.get(association).get(attribute);
+        }
+        return associationJoin(root).get(attribute);
+    }
+
+    //several filters on the same association share one join
+    private Join<?, ?> associationJoin(From<?, ?> root) {
+        for (Join<?, ?> join : root.getJoins()) {
+            if (join.getAttribute().getName().equals(association)) {
+                return join;
+            }
+        }
+        return root.join(association);
+    }
+}
@@ -0,0 +1,90 @@
+package com.example.bankcards.repository.specifications;
+
+import com.example.bankcards.entity.Account;
+import com.example.bankcards.exception.InvalidFieldException;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.metamodel.Attribute;
+import jakarta.persistence.metamodel.EntityType;
+import jakarta.persistence.metamodel.SingularAttribute;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Filter and sort paths of every entity, built once from the JPA metamodel. A path is an attribute of the entity
+ * or an attribute of an entity it references, collections are never filtered or sorted by. Sorting is allowed
+ * by the entity's own attributes only. Anything else is rejected before a query is built.
+ */
+@Component
+public class EntityPathRegistry {
+
+    //attributes that must not be filtered or sorted by, a filter would let a client probe their values
+    private static final Map<Class<?>, Set<String>> HIDDEN = Map.of(Account.class, Set.of("password"));
+
+    private final Map<Class<?>, Map<String, EntityPath>> paths = new HashMap<>();
+    private final Map<Class<?>, Set<String>> sortFields = new HashMap<>();
+
+    public EntityPathRegistry(EntityManagerFactory entityManagerFactory) {
+        for (var entity : entityManagerFactory.getMetamodel().getEntities()) {
+            var entityPaths = new HashMap<String, EntityPath>();
+            var entitySortFields = new HashSet<String>();
+
+            for (var attribute : entity.getSingularAttributes()) {
+                if (hidden(entity, attribute)) {
+                    continue;
+                }
+                if (attribute.getPersistentAttributeType() == Attribute.PersistentAttributeType.BASIC) {
+                    entityPaths.put(attribute.getName(), new EntityPath(null, attribute.getName(), false, attribute.getJavaType()));
+                    entitySortFields.add(attribute.getName());
+                } else if (attribute.isAssociation() && attribute.getType() instanceof EntityType<?> target) {
+                    addAssociation(entityPaths, attribute, target);
+                }
+            }
+            paths.put(entity.getJavaType(), Map.copyOf(entityPaths));
+            sortFields.put(entity.getJavaType(), Set.copyOf(entitySortFields));
+        }
+    }
+
+    public EntityPath path(Class<?> entity, String path) {
+        var entityPath = paths.getOrDefault(entity, Map.of()).get(path);
+        if (entityPath == null) {
+            throw new InvalidFieldException("Unknown filter field " + path);
+        }
+        return entityPath;
+    }
+
+    //unsorted unless both are given, like the listings always did
+    public Sort sort(Class<?> entity, String direction, String field) {
+        if (direction == null || field == null) {
+            return Sort.unsorted();
+        }
+        if (!sortFields.getOrDefault(entity, Set.of()).contains(field)) {
+            throw new InvalidFieldException("Unknown sort field " + field);
+        }
+        return Sort.by(direction(direction), field);
+    }
+
+    public Sort.Direction direction(String direction) {
+        return Sort.Direction.fromOptionalString(direction)
+                .orElseThrow(() -> new InvalidFieldException("Unknown sort direction " + direction));
+    }
+
+    private void addAssociation(Map<String, EntityPath> entityPaths, SingularAttribute<?, ?> association, EntityType<?> target) {
+        for (var attribute : target.getSingularAttributes()) {
+            if (hidden(target, attribute)
+                    || attribute.getPersistentAttributeType() != Attribute.PersistentAttributeType.BASIC) {
+                continue;
+            }
+            var path = association.getName() + "." + attribute.getName();
+            entityPaths.put(path, new EntityPath(association.getName(), attribute.getName(), !attribute.isId(), attribute.getJavaType()));
+        }
+    }
+
+    private boolean hidden(EntityType<?> entity, SingularAttribute<?, ?> attribute) {
+        return HIDDEN.getOrDefault(entity.getJavaType(), Set.of()).contains(attribute.getName());
+    }
+}
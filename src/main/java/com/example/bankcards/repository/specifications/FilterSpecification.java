@@ -1,81 +1,68 @@
 package com.example.bankcards.repository.specifications;
 
-import jakarta.persistence.ManyToMany;
-import jakarta.persistence.ManyToOne;
-import jakarta.persistence.OneToMany;
-import jakarta.persistence.OneToOne;
-import jakarta.persistence.criteria.CriteriaBuilder;
-import jakarta.persistence.criteria.Join;
-import jakarta.persistence.criteria.Path;
-import jakarta.persistence.criteria.Root;
+import com.example.bankcards.exception.InvalidFieldException;
 import org.springframework.data.jpa.domain.Specification;
 
-import java.lang.reflect.Field;
+import java.util.Collection;
+import java.util.regex.Pattern;
 
+//paths come resolved from EntityPathRegistry, a value of the wrong type is rejected before a query is built
 public class FilterSpecification {
-    public static <T> Specification<T> equal(String field, Object value) {
+
+    private static final Pattern CONTROL_CHARACTERS = Pattern.compile("\\p{Cntrl}");
+
+    public static <T> Specification<T> equal(EntityPath path, Object value) {
+        checkType(path, value);
         return (root, query, cb) ->
-                value == null ? null : cb.equal(resolvePath(field, root), value);
+                value == null ? null : cb.equal(path.resolve(root), value);
     }
 
-    public static <T> Specification<T> like(String field, String value) {
+    public static <T> Specification<T> like(EntityPath path, String value) {
+        checkType(path, value);
         return (root, query, cb) ->
                 (value == null || value.isBlank())
                         ? null
-                        : cb.like(cb.lower(root.get(field)), "%" + value.toLowerCase() + "%");
+                        : cb.like(cb.lower(path.resolve(root)), "%" + value.toLowerCase() + "%");
     }
 
-    public static <T, V extends Comparable<? super V>> Specification<T> lessThanOrEqual(String field, V value, Class<V> valueType) {
+    //for columns that are already lower cased, the bare column keeps a trigram index on it usable
+    //control characters are dropped, they separate the fields of such a column and must not be matched across
+    public static <T> Specification<T> contains(EntityPath path, String value) {
+        checkType(path, value);
+        var term = value == null ? null : CONTROL_CHARACTERS.matcher(value).replaceAll("");
         return (root, query, cb) ->
-                value == null ? null : cb.lessThanOrEqualTo(root.get(field).as(valueType), value);
+                (term == null || term.isBlank())
+                        ? null
+                        : cb.like(path.resolve(root), "%" + escapeLike(term.toLowerCase()) + "%", '\\');
     }
 
-    public static <T, V extends Comparable<? super V>> Specification<T> greaterThanOrEqual(String field, V value, Class<V> valueType) {
+    public static <T, V extends Comparable<? super V>> Specification<T> lessThanOrEqual(EntityPath path, V value) {
+        checkType(path, value);
         return (root, query, cb) ->
-                value == null ? null : cb.greaterThanOrEqualTo(root.get(field).as(valueType), value);
+                value == null ? null : cb.lessThanOrEqualTo(path.resolve(root), value);
     }
 
-    public static <T> Specification<T> in(String field, Iterable<?> values) {
+    public static <T, V extends Comparable<? super V>> Specification<T> greaterThanOrEqual(EntityPath path, V value) {
+        checkType(path, value);
         return (root, query, cb) ->
-                values == null ? null : root.get(field).in(values);
+                value == null ? null : cb.greaterThanOrEqualTo(path.resolve(root), value);
     }
 
-    private static <T> Path<?> resolvePath(String field, Root<T> root) {
-        String[] parts = field.split("\\.");
-        Path<?> path = root;
-
-        for (String part : parts) {
-            if (path instanceof Root) {
-                Class<?> clazz = ((Root<?>) path).getModel().getBindableJavaType();
-                if (isAssociation(clazz, part)) {
-                    path = ((Root<?>) path).join(part);
-                } else {
-                    path = ((Root<?>) path).get(part);
-                }
-            } else if (path instanceof Join) {
-                Class<?> clazz = ((Join<?, ?>) path).getModel().getBindableJavaType();
-                if (isAssociation(clazz, part)) {
-                    path = ((Join<?, ?>) path).join(part);
-                } else {
-                    path = path.get(part);
-                }
-            } else {
-                path = path.get(part);
-            }
+    public static <T> Specification<T> in(EntityPath path, Collection<?> values) {
+        if (values != null) {
+            values.forEach(value -> checkType(path, value));
         }
-
-        return path;
+        return (root, query, cb) ->
+                values == null ? null : path.resolve(root).in(values);
     }
 
-    private static boolean isAssociation(Class<?> clazz, String fieldName) {
-        try {
-            Field field = clazz.getDeclaredField(fieldName);
-            return field.isAnnotationPresent(OneToOne.class)
-                    || field.isAnnotationPresent(OneToMany.class)
-                    || field.isAnnotationPresent(ManyToOne.class)
-                    || field.isAnnotationPresent(ManyToMany.class);
-        } catch (NoSuchFieldException e) {
-            return false;
+    private static void checkType(EntityPath path, Object value) {
+        if (value != null && !path.javaType().isInstance(value)) {
+            throw new InvalidFieldException("Invalid value for field " + path.attribute());
         }
     }
+
+    static String escapeLike(String value) {
+        return value.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
 }
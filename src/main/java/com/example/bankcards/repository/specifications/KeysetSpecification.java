@@ -0,0 +1,65 @@
+package com.example.bankcards.repository.specifications;
+
+import com.example.bankcards.dto.KeysetCursor;
+import com.example.bankcards.exception.InvalidCursorException;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.UUID;
+
+public class KeysetSpecification {
+
+    //rows behind the cursor in its own sort order
+    @SuppressWarnings("rawtypes")
+    public static <T> Specification<T> after(KeysetCursor cursor) {
+        return (root, query, cb) -> {
+            if (cursor.isFirst()) {
+                return null;
+            }
+            Path<Comparable> field = root.get(cursor.field());
+            return after(cb, field, parse(cursor, field.getJavaType()), root.get(KeysetCursor.ID), cursor.id(),
+                    cursor.direction());
+        };
+    }
+
+    //the leading bound on the field alone is what the (field, id) index is scanned from, the rest only filters ties
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static Predicate after(CriteriaBuilder cb, Path<Comparable> field, Comparable value,
+                                   Path<UUID> id, UUID lastId, Sort.Direction direction) {
+        if (direction.isAscending()) {
+            return cb.and(cb.greaterThanOrEqualTo(field, value),
+                    cb.or(cb.greaterThan(field, value), cb.greaterThan(id, lastId)));
+        }
+        return cb.and(cb.lessThanOrEqualTo(field, value),
+                cb.or(cb.lessThan(field, value), cb.lessThan(id, lastId)));
+    }
+
+    private static Comparable<?> parse(KeysetCursor cursor, Class<?> type) {
+        try {
+            Comparable<?> value;
+            if (type == String.class) {
+                value = cursor.value();
+            } else if (type == BigDecimal.class) {
+                value = new BigDecimal(cursor.value());
+            } else if (type == LocalDateTime.class) {
+                value = LocalDateTime.parse(cursor.value());
+            } else if (type == LocalDate.class) {
+                value = LocalDate.parse(cursor.value());
+            } else if (type == UUID.class) {
+                value = UUID.fromString(cursor.value());
+            } else {
+                throw new InvalidCursorException("Invalid cursor");
+            }
+            return value;
+        } catch (NumberFormatException | DateTimeParseException e) {
+            throw new InvalidCursorException("Invalid cursor");
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.example.bankcards.security;
+
+import com.example.bankcards.entity.Account;
+import com.example.bankcards.enums.AccountStatus;
+import com.example.bankcards.enums.Role;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.IntStream;
+
+/**
+ * Authenticated account kept in the security context instead of the {@link Account} entity.
+ * <p>
+ * Immutable and detached from the persistence context, roles are a bitmask of {@link Role} ordinals
+ * and the authority lists are built once and shared between all principals.
+ */
+public record AccountPrincipal(UUID id, String login, AccountStatus status, int roles) implements UserDetails {
+
+    //authority list for every possible mask, indexed by the mask itself
+    private static final List<List<GrantedAuthority>> AUTHORITIES = IntStream.range(0, 1 << Role.values().length)
+            .mapToObj(mask -> Arrays.stream(Role.values())
+                    .filter(role -> (mask & (1 << role.ordinal())) != 0)
+                    .<GrantedAuthority>map(role -> new SimpleGrantedAuthority(role.getRoleWithPrefix()))
+                    .toList())
+            .toList();
+
+    public static AccountPrincipal of(Account account) {
+        return new AccountPrincipal(account.getId(), account.getUsername(), account.getStatus(), mask(account.getRole()));
+    }
+
+    public static int mask(Role... roles) {
+        return Arrays.stream(roles).mapToInt(role -> 1 << role.ordinal()).reduce(0, (a, b) -> a | b);
+    }
+
+    public boolean hasRole(Role role) {
+        return (roles & (1 << role.ordinal())) != 0;
+    }
+
+    @Override
+    public Collection<? extends GrantedAuthority> getAuthorities() {
+        return AUTHORITIES.get(roles);
+    }
+
+    @Override
+    public String getPassword() {
+        return null;
+    }
+
+    @Override
+    public String getUsername() {
+        return login;
+    }
+
+    @Override
+    public boolean isAccountNonLocked() {
+        return status != AccountStatus.BLOCKED;
+    }
+}
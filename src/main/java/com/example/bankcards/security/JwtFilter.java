@@ -1,6 +1,7 @@
 package com.example.bankcards.security;
 
 import com.example.bankcards.enums.TokenType;
+import com.example.bankcards.exception.ValidationTokenException;
 import com.example.bankcards.interfaces.services.JwtService;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.http.HttpServletRequest;
@@ -10,7 +11,6 @@ import lombok.SneakyThrows;
 
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
@@ -30,10 +30,12 @@ public class JwtFilter extends OncePerRequestFilter {
             return;
         }
 
-        var token = authorization.substring(7);
-        var validationResult = jwtService.validateToken(token, TokenType.ACCESS_TOKEN);
-        if (!validationResult.isValid()) {
-            response.sendError(HttpServletResponse.SC_UNAUTHORIZED, validationResult.getMessage());
+        //the token is parsed once, the verified claims are reused for the principal lookup
+        VerifiedToken token;
+        try {
+            token = jwtService.verify(authorization.substring(7), TokenType.ACCESS_TOKEN);
+        } catch (ValidationTokenException e) {
+            response.sendError(HttpServletResponse.SC_UNAUTHORIZED, e.getMessage());
             return;
         }
         if (SecurityContextHolder.getContext().getAuthentication() != null) {
@@ -42,9 +44,9 @@ public class JwtFilter extends OncePerRequestFilter {
         }
 
         try {
-            UserDetails userDetails = jwtService.getUserDetailsByToken(token, TokenType.ACCESS_TOKEN);
+            AccountPrincipal principal = jwtService.getUserDetails(token);
             UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(
-                    userDetails, null, userDetails.getAuthorities()
+                    principal, null, principal.getAuthorities()
             );
             authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
             SecurityContextHolder.getContext().setAuthentication(authentication);
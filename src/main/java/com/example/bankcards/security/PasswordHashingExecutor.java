@@ -0,0 +1,83 @@
+package com.example.bankcards.security;
+
+import com.example.bankcards.exception.ServiceOverloadedException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.*;
+import java.util.function.Supplier;
+
+/**
+ * Runs BCrypt hashing on a small dedicated pool, so a login or registration burst
+ * can not take the request threads and the CPU from the other endpoints.
+ * <p>
+ * A full queue is rejected immediately, and a caller that does not get its result within
+ * {@code security.password-hashing.queue-timeout} gives up. Both end with {@link ServiceOverloadedException}.
+ */
+@Component
+public class PasswordHashingExecutor {
+
+    private final ThreadPoolExecutor executor;
+    private final Duration queueTimeout;
+
+    private final Timer hashTimer;
+    private final Counter rejected;
+
+    public PasswordHashingExecutor(@Value("${security.password-hashing.threads}") int threads,
+                                   @Value("${security.password-hashing.queue-capacity}") int queueCapacity,
+                                   @Value("${security.password-hashing.queue-timeout}") Duration queueTimeout,
+                                   MeterRegistry meterRegistry) {
+        this.queueTimeout = queueTimeout;
+        this.executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                Thread.ofPlatform().name("password-hashing-", 0).factory(),
+                new ThreadPoolExecutor.AbortPolicy());
+
+        this.hashTimer = meterRegistry.timer("password.hashing");
+        this.rejected = meterRegistry.counter("password.hashing.rejected");
+        Gauge.builder("password.hashing.queue", executor, e -> e.getQueue().size()).register(meterRegistry);
+        Gauge.builder("password.hashing.active", executor, ThreadPoolExecutor::getActiveCount).register(meterRegistry);
+    }
+
+    public <T> T execute(Supplier<T> task) {
+        Future<T> future;
+        try {
+            future = executor.submit(() -> hashTimer.record(task));
+        } catch (RejectedExecutionException e) {
+            throw overloaded();
+        }
+
+        try {
+            return future.get(queueTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            //a task still in the queue is skipped, a running one can not be interrupted and just finishes
+            future.cancel(false);
+            throw overloaded();
+        } catch (InterruptedException e) {
+            future.cancel(false);
+            Thread.currentThread().interrupt();
+            throw overloaded();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private ServiceOverloadedException overloaded() {
+        rejected.increment();
+        return new ServiceOverloadedException("Too many authentication requests, try again later", queueTimeout);
+    }
+}
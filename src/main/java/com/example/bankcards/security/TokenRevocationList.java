@@ -0,0 +1,121 @@
+package com.example.bankcards.security;
+
+import com.example.bankcards.enums.AccountStatus;
+import com.example.bankcards.repository.AccountRepository;
+import com.example.bankcards.repository.TokenRepository;
+import com.example.bankcards.util.DateTimeUtils;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Date;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory revocation state for the stateless access-token mode.
+ * <p>
+ * Keeps one cutoff per account (tokens issued before it are revoked) and the ids of blocked accounts.
+ * Revocations made by this instance apply immediately, the ones made by other instances
+ * are picked up from {@code tokens.revoked_at} on the next refresh. Blocked accounts are loaded
+ * once and then follow {@code accounts.status_changed_at}.
+ */
+@Component
+@Slf4j
+public class TokenRevocationList {
+
+    //revocations committed slightly out of order are still seen by the next refresh
+    private static final long REFRESH_OVERLAP_SECONDS = 30;
+    private static final LocalDateTime NO_STATUS_CHANGE = LocalDateTime.of(1970, 1, 1, 0, 0);
+
+    private final TokenRepository tokenRepository;
+    private final AccountRepository accountRepository;
+    private final boolean enabled;
+    private final long accessTokenExpiresIn;
+
+    private final Map<UUID, LocalDateTime> revokedBefore = new ConcurrentHashMap<>();
+    private final Set<UUID> blockedAccounts = ConcurrentHashMap.newKeySet();
+    private volatile LocalDateTime lastRefresh;
+    //database time of the newest status change seen, null until the blocked accounts are loaded
+    private volatile LocalDateTime lastStatusChange;
+
+    public TokenRevocationList(TokenRepository tokenRepository,
+                               AccountRepository accountRepository,
+                               @Value("${security.jwt.stateless:false}") boolean enabled,
+                               @Value("${security.jwt.access-token.expired}") long accessTokenExpiresIn) {
+        this.tokenRepository = tokenRepository;
+        this.accountRepository = accountRepository;
+        this.enabled = enabled;
+        this.accessTokenExpiresIn = accessTokenExpiresIn;
+    }
+
+    public boolean isLoaded() {
+        return lastRefresh != null;
+    }
+
+    public boolean isRevoked(UUID accountId, Date issuedAt) {
+        var cutoff = revokedBefore.get(accountId);
+        //iat has a one second precision
+        return cutoff != null && (issuedAt == null
+                || DateTimeUtils.toLocalDateTime(issuedAt).isBefore(cutoff.truncatedTo(ChronoUnit.SECONDS)));
+    }
+
+    public boolean isBlocked(UUID accountId) {
+        return blockedAccounts.contains(accountId);
+    }
+
+    public void revoke(UUID accountId, LocalDateTime revokedAt) {
+        revokedBefore.merge(accountId, revokedAt, (current, next) -> next.isAfter(current) ? next : current);
+    }
+
+    @Scheduled(fixedDelayString = "${security.jwt.revocation.refresh-interval:5000}")
+    public void refresh() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            var now = LocalDateTime.now();
+            //a revocation older than the access token lifetime has nothing left to revoke
+            var oldest = now.minus(accessTokenExpiresIn, ChronoUnit.MILLIS);
+            var since = lastRefresh == null ? oldest : lastRefresh.minusSeconds(REFRESH_OVERLAP_SECONDS);
+
+            tokenRepository.findRevocationsSince(since)
+                    .forEach(revocation -> revoke(revocation.accountId(), revocation.revokedAt()));
+            revokedBefore.values().removeIf(cutoff -> cutoff.isBefore(oldest));
+            refreshBlockedAccounts();
+            lastRefresh = now;
+        } catch (Exception e) {
+            log.error("Error while refreshing token revocations", e);
+        }
+    }
+
+    private void refreshBlockedAccounts() {
+        if (lastStatusChange == null) {
+            //the watermark is read first, a change made during the full load is polled again
+            var watermark = accountRepository.findLastStatusChange().orElse(NO_STATUS_CHANGE);
+            var blocked = accountRepository.getIdsByStatus(AccountStatus.BLOCKED);
+            blockedAccounts.retainAll(blocked);
+            blockedAccounts.addAll(blocked);
+            lastStatusChange = watermark;
+            return;
+        }
+        //the trigger stamps the transaction start, a change committed late is still inside the overlap
+        var watermark = lastStatusChange;
+        for (var change : accountRepository.findStatusChangesSince(watermark.minusSeconds(REFRESH_OVERLAP_SECONDS))) {
+            if (change.status() == AccountStatus.BLOCKED) {
+                blockedAccounts.add(change.accountId());
+            } else {
+                blockedAccounts.remove(change.accountId());
+            }
+            if (change.changedAt().isAfter(watermark)) {
+                watermark = change.changedAt();
+            }
+        }
+        lastStatusChange = watermark;
+    }
+}
@@ -0,0 +1,14 @@
+package com.example.bankcards.security;
+
+import com.example.bankcards.enums.TokenType;
+import io.jsonwebtoken.Claims;
+
+/**
+ * JWT whose signature and expiration are already checked, created once per request
+ * by {@link com.example.bankcards.interfaces.services.JwtService#verify} and passed along instead of the raw string.
+ */
+public record VerifiedToken(String value, TokenType type, Claims claims) {
+    public String subject() {
+        return claims.getSubject();
+    }
+}
@@ -1,15 +1,24 @@
 package com.example.bankcards.service;
 
+import com.example.bankcards.annotations.RetryableTransaction;
 import com.example.bankcards.dto.*;
 import com.example.bankcards.entity.Account;
 import com.example.bankcards.enums.AccountStatus;
+import com.example.bankcards.enums.TokenStatus;
 import com.example.bankcards.exception.BlockedStatusException;
+import com.example.bankcards.exception.InvalidCursorException;
+import com.example.bankcards.exception.ResourceInUseException;
 import com.example.bankcards.interfaces.services.AccountService;
+import com.example.bankcards.interfaces.services.JwtService;
 import com.example.bankcards.mappers.AccountMapper;
 import com.example.bankcards.repository.AccountRepository;
+import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.repository.specifications.KeysetSpecification;
+import com.example.bankcards.security.PasswordHashingExecutor;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
@@ -17,6 +26,7 @@ import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Map;
 import java.util.UUID;
 import java.util.function.Function;
 
@@ -25,9 +35,23 @@ import java.util.function.Function;
 public class AccountServiceImpl
         implements AccountService {
 
+    private static final int MAX_WINDOW_SIZE = 100;
+    //fields a keyset listing may sort by, none is nullable and each has a (field, id) or unique index
+    private static final Map<String, Function<Account, Object>> SCROLL_KEYS = Map.of(
+            "createdAt", Account::getCreatedAt,
+            "username", Account::getUsername,
+            "mail", Account::getMail,
+            "lastName", Account::getLastName);
+
+    //row count of the whole table for unfiltered listings, taken from the planner statistics
+    private volatile long estimatedTotal = -1;
+
     private final AccountRepository accountRepository;
+    private final CardRepository cardRepository;
     private final AccountMapper accountMapper;
     private final BCryptPasswordEncoder bCryptPasswordEncoder;
+    private final PasswordHashingExecutor passwordHashingExecutor;
+    private final JwtService jwtService;
 
     @Override
     public <T> T create(AccountCreateDto account, Function<Account, T> mapper) {
@@ -36,6 +60,8 @@ public class AccountServiceImpl
     }
 
     @Override
+    @RetryableTransaction
+    @Transactional
     public <T> T update(AccountUpdateDto account, Function<Account, T> mapper) {
         var entity = accountRepository.findById(account.id())
                 .orElseThrow(() -> new UsernameNotFoundException("Username not found"));
@@ -56,20 +82,25 @@ public class AccountServiceImpl
         return accountRepository.findByUsername(username).orElseThrow(() -> new UsernameNotFoundException("Username not found"));
     }
 
+    //not transactional and open-in-view is off, the connection of the account read is returned
+    //before the hash waits for the hashing pool
     @Override
-    @Transactional(readOnly = true)
     public AccountDto getAccountBy(AuthorizationData data) {
         var account = (Account) loadUserByUsername(data.login());
         if (account.getStatus() == AccountStatus.BLOCKED) {
             throw new BlockedStatusException("Your account is blocked");
         }
-        if (!bCryptPasswordEncoder.matches(data.password().concat(data.login()), account.getPassword())) {
+        var matches = passwordHashingExecutor.execute(
+                () -> bCryptPasswordEncoder.matches(data.password().concat(data.login()), account.getPassword()));
+        if (!matches) {
             throw new UsernameNotFoundException("Username or password is incorrect");
         }
         return accountMapper.entityToDto(account);
     }
 
     @Override
+    @RetryableTransaction
+    @Transactional
     public void updateRole(RoleUpdateDto roleUpdateDto) {
         var entity = accountRepository.findById(roleUpdateDto.accountId())
                 .orElseThrow(() -> new UsernameNotFoundException("Username not found"));
@@ -78,9 +109,17 @@ public class AccountServiceImpl
     }
 
     @Override
+    @RetryableTransaction
+    @Transactional
     public void deleteById(UUID id) {
         var entity = accountRepository.findById(id)
                 .orElseThrow(() -> new UsernameNotFoundException("Username not found"));
+        //the ledger of its cards has to outlive them, such an account can only be blocked
+        if (cardRepository.existsAnyByAccountId(id)) {
+            throw new ResourceInUseException("Account has cards and cannot be deleted");
+        }
+        //a stateless access token is only checked against the revocations, the tokens are not removed with the account
+        jwtService.changeTokenStatus(id, TokenStatus.INACTIVE);
         accountRepository.delete(entity);
     }
 
@@ -89,4 +128,44 @@ public class AccountServiceImpl
     public <T> Page<T> getPages(Specification<Account> specification, Pageable pageable, Function<Account, T> mapper) {
         return accountRepository.findAll(specification, pageable).map(mapper);
     }
+
+    @Override
+    @Transactional(readOnly = true)
+    public <T> Slice<T> getSlice(Specification<Account> specification, Pageable pageable, Function<Account, T> mapper) {
+        //one row more than the page tells if there is a next page, no count query is run
+        return accountRepository.findBy(specification, query -> query.slice(pageable)).map(mapper);
+    }
+
+    @Override
+    public long getEstimatedTotal() {
+        if (estimatedTotal < 0) {
+            refreshEstimatedTotal();
+        }
+        return estimatedTotal;
+    }
+
+    @Override
+    public void refreshEstimatedTotal() {
+        var estimate = accountRepository.estimateCount();
+        //a table without statistics yet is counted once, the next refresh after an analyze replaces it
+        estimatedTotal = estimate >= 0 ? estimate : accountRepository.count();
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public <T> CursorPageDto<T> getWindow(Specification<Account> specification, KeysetCursor position, int size,
+                                          Function<Account, T> mapper) {
+        var key = SCROLL_KEYS.get(position.field());
+        if (key == null) {
+            throw new InvalidCursorException("Unsupported sort field " + position.field());
+        }
+        var limit = Math.clamp(size, 1, MAX_WINDOW_SIZE);
+
+        //one row more than the page tells if there is a next page, no count query is run
+        var rows = accountRepository.findBy(specification.and(KeysetSpecification.after(position)),
+                query -> query.sortBy(position.sort()).limit(limit + 1).all());
+        var page = rows.size() > limit ? rows.subList(0, limit) : rows;
+        var next = rows.size() > limit ? position.after(key.apply(page.getLast()), page.getLast().getId()).encode() : null;
+        return new CursorPageDto<>(page.stream().map(mapper).toList(), next);
+    }
 }
\ No newline at end of file
@@ -0,0 +1,198 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.dto.CardCredit;
+import com.example.bankcards.exception.ServiceOverloadedException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Serializes top-ups per card inside the JVM. Every card with waiting top-ups has its own queue, drained by
+ * one task at a time on a bounded pool: the task applies everything queued for the card in one transaction
+ * with one balance update, then hands every caller its own result. A card that is slow to write holds one
+ * pool thread, the other cards go on on the others.
+ * <p>
+ * A call made inside a transaction, an idempotent top-up records its response in it, is applied directly
+ * because it has to commit or roll back with the caller; {@link CardCreditWriter} gives it the same turn of
+ * the card as the queued credits. More than {@code card.credit-sequencer.queue-capacity}
+ * waiting top-ups and a caller not served within {@code card.credit-sequencer.timeout} end with
+ * {@link ServiceOverloadedException}, a credit is never applied after its caller gave up.
+ */
+@Component
+@Slf4j
+public class CardCreditSequencer {
+
+    private final CardCreditWriter cardCreditWriter;
+    private final ConcurrentMap<UUID, CardQueue> cards = new ConcurrentHashMap<>();
+    private final ExecutorService executor;
+    private final AtomicInteger queued = new AtomicInteger();
+    private final int queueCapacity;
+    private final int maxBatch;
+    private final Duration timeout;
+
+    private final Counter rejected;
+    private final DistributionSummary batchSize;
+
+    public CardCreditSequencer(CardCreditWriter cardCreditWriter,
+                               MeterRegistry meterRegistry,
+                               @Value("${card.credit-sequencer.workers}") int workers,
+                               @Value("${card.credit-sequencer.queue-capacity}") int queueCapacity,
+                               @Value("${card.credit-sequencer.max-batch}") int maxBatch,
+                               @Value("${card.credit-sequencer.timeout}") Duration timeout) {
+        this.cardCreditWriter = cardCreditWriter;
+        this.queueCapacity = queueCapacity;
+        this.maxBatch = maxBatch;
+        this.timeout = timeout;
+        this.rejected = meterRegistry.counter("card.credit.rejected");
+        this.batchSize = meterRegistry.summary("card.credit.batch");
+        //at most one task per card is queued or running, the task queue is bounded by the waiting credits
+        this.executor = Executors.newFixedThreadPool(workers, Thread.ofPlatform().name("card-credit-", 0).daemon().factory());
+        Gauge.builder("card.credit.queue", queued, AtomicInteger::get).register(meterRegistry);
+    }
+
+    public void credit(UUID cardId, CardCredit credit) {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            throwIfRejected(cardCreditWriter.apply(cardId, List.of(credit)).getFirst());
+            return;
+        }
+
+        if (queued.incrementAndGet() > queueCapacity) {
+            queued.decrementAndGet();
+            throw overloaded();
+        }
+        var pending = new PendingCredit(credit);
+        var schedule = new AtomicBoolean();
+        cards.compute(cardId, (id, current) -> {
+            var cardQueue = current != null ? current : new CardQueue();
+            cardQueue.pending.add(pending);
+            if (!cardQueue.scheduled) {
+                cardQueue.scheduled = true;
+                schedule.set(true);
+            }
+            return cardQueue;
+        });
+        if (schedule.get()) {
+            executor.execute(() -> drain(cardId));
+        }
+        throwIfRejected(await(pending));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+        cards.keySet().forEach(cardId -> cards.computeIfPresent(cardId, (id, cardQueue) -> {
+            cardQueue.pending.forEach(pending -> pending.result().completeExceptionally(overloaded()));
+            cardQueue.pending.clear();
+            return cardQueue;
+        }));
+    }
+
+    private RuntimeException await(PendingCredit pending) {
+        try {
+            return pending.result().get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            //a credit the worker already took is being applied, its caller has to learn how it ended
+            if (pending.taken().compareAndSet(false, true)) {
+                throw overloaded();
+            }
+            return pending.result().join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            if (pending.taken().compareAndSet(false, true)) {
+                throw overloaded();
+            }
+            return pending.result().join();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    private void drain(UUID cardId) {
+        var batch = take(cardId);
+        //credits whose callers gave up are dropped, the others can not be given up from now on
+        batch.removeIf(pending -> !pending.taken().compareAndSet(false, true));
+        if (!batch.isEmpty()) {
+            apply(cardId, batch);
+        }
+
+        //credits that came in meanwhile get a new task, behind the cards that were waiting for a worker
+        var again = new AtomicBoolean();
+        cards.compute(cardId, (id, cardQueue) -> {
+            if (!cardQueue.pending.isEmpty()) {
+                again.set(true);
+                return cardQueue;
+            }
+            return null;
+        });
+        if (again.get()) {
+            executor.execute(() -> drain(cardId));
+        }
+    }
+
+    private List<PendingCredit> take(UUID cardId) {
+        var batch = new ArrayList<PendingCredit>(maxBatch);
+        cards.computeIfPresent(cardId, (id, cardQueue) -> {
+            while (batch.size() < maxBatch && !cardQueue.pending.isEmpty()) {
+                batch.add(cardQueue.pending.poll());
+            }
+            return cardQueue;
+        });
+        queued.addAndGet(-batch.size());
+        return batch;
+    }
+
+    private void apply(UUID cardId, List<PendingCredit> pending) {
+        try {
+            var errors = cardCreditWriter.apply(cardId, pending.stream().map(PendingCredit::credit).toList());
+            for (int i = 0; i < pending.size(); i++) {
+                pending.get(i).result().complete(errors.get(i));
+            }
+            batchSize.record(pending.size());
+        } catch (RuntimeException e) {
+            log.warn("Credits of card {} failed: {}", cardId, e.getMessage());
+            pending.forEach(p -> p.result().completeExceptionally(e));
+        }
+    }
+
+    private void throwIfRejected(RuntimeException error) {
+        if (error != null) {
+            throw error;
+        }
+    }
+
+    private ServiceOverloadedException overloaded() {
+        rejected.increment();
+        return new ServiceOverloadedException("Too many top-ups of this card, try again later", timeout);
+    }
+
+    //changed only inside compute of the card's map entry, a card without waiting credits is removed
+    private static final class CardQueue {
+        private final Queue<PendingCredit> pending = new ArrayDeque<>();
+        private boolean scheduled;
+    }
+
+    private record PendingCredit(CardCredit credit, AtomicBoolean taken, CompletableFuture<RuntimeException> result) {
+        PendingCredit(CardCredit credit) {
+            this(credit, new AtomicBoolean(), new CompletableFuture<>());
+        }
+    }
+}
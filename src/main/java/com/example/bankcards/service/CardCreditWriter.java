@@ -0,0 +1,127 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.annotations.RetryableTransaction;
+import com.example.bankcards.dto.CardCredit;
+import com.example.bankcards.entity.CardTransaction;
+import com.example.bankcards.enums.CardStatus;
+import com.example.bankcards.enums.CardTransactionType;
+import com.example.bankcards.exception.AccessException;
+import com.example.bankcards.exception.ElementNotFoundException;
+import com.example.bankcards.exception.ServiceOverloadedException;
+import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.repository.CardTransactionRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+@Component
+public class CardCreditWriter {
+
+    private final CardRepository cardRepository;
+    private final CardTransactionRepository cardTransactionRepository;
+    private final ConcurrentMap<UUID, Turn> turns = new ConcurrentHashMap<>();
+    private final Duration timeout;
+    private final Counter rejected;
+
+    public CardCreditWriter(CardRepository cardRepository,
+                            CardTransactionRepository cardTransactionRepository,
+                            MeterRegistry meterRegistry,
+                            @Value("${card.credit-sequencer.timeout}") Duration timeout) {
+        this.cardRepository = cardRepository;
+        this.cardTransactionRepository = cardTransactionRepository;
+        this.timeout = timeout;
+        this.rejected = meterRegistry.counter("card.credit.rejected");
+    }
+
+    /**
+     * Applies the credits of one card with a single balance update, every credit still gets its own ledger row.
+     * Returns the error of every rejected credit in the order of the credits, null for an applied one.
+     * Credits queued by {@link CardCreditSequencer} and the ones applied inside a caller's transaction take
+     * the same turn of the card, it is held until the transaction ends.
+     */
+    @RetryableTransaction
+    @Transactional
+    public List<RuntimeException> apply(UUID cardId, List<CardCredit> credits) {
+        takeTurn(cardId);
+        var card = cardRepository.findByIdForUpdate(cardId)
+                .filter(c -> c.getStatus() == CardStatus.ACTIVE)
+                .orElse(null);
+        if(card == null) {
+            return Stream.generate(() -> (RuntimeException) new ElementNotFoundException("card not found or blocked/expired"))
+                    .limit(credits.size())
+                    .toList();
+        }
+
+        var ownerId = card.getAccount().getId();
+        var errors = new ArrayList<RuntimeException>(credits.size());
+        var ledger = new ArrayList<CardTransaction>(credits.size());
+        var total = BigDecimal.ZERO;
+        for (var credit : credits) {
+            if(credit.isAdmin() || ownerId.equals(credit.accountId())) {
+                total = total.add(credit.sum());
+                ledger.add(CardTransaction.of(cardId, ownerId, CardTransactionType.TOP_UP, credit.sum(), null));
+                errors.add(null);
+            } else {
+                errors.add(new AccessException("You don't have access to this card"));
+            }
+        }
+
+        if(!ledger.isEmpty()) {
+            card.setBalance(card.getBalance().add(total));
+            cardTransactionRepository.saveAll(ledger);
+        }
+        return errors;
+    }
+
+    //taken inside the transaction, the holder of a turn already has its connection and never waits for the pool
+    private void takeTurn(UUID cardId) {
+        var turn = turns.compute(cardId, (id, current) -> {
+            var cardTurn = current != null ? current : new Turn();
+            cardTurn.holders++;
+            return cardTurn;
+        });
+        boolean acquired = false;
+        try {
+            acquired = turn.semaphore.tryAcquire(timeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (!acquired) {
+            leave(cardId);
+            rejected.increment();
+            throw new ServiceOverloadedException("Too many top-ups of this card, try again later", timeout);
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                turn.semaphore.release();
+                leave(cardId);
+            }
+        });
+    }
+
+    private void leave(UUID cardId) {
+        turns.computeIfPresent(cardId, (id, turn) -> --turn.holders == 0 ? null : turn);
+    }
+
+    //holders is changed only inside compute of the card's map entry, a turn nobody holds or waits for is removed
+    private static final class Turn {
+        private final Semaphore semaphore = new Semaphore(1, true);
+        private int holders;
+    }
+}
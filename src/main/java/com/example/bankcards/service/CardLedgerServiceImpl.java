@@ -0,0 +1,96 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.dto.CardLedgerBalanceDto;
+import com.example.bankcards.dto.CursorPageDto;
+import com.example.bankcards.dto.TransactionCursor;
+import com.example.bankcards.entity.CardTransaction;
+import com.example.bankcards.exception.ElementNotFoundException;
+import com.example.bankcards.interfaces.services.CardLedgerService;
+import com.example.bankcards.repository.CardBalanceSnapshotRepository;
+import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.repository.CardTransactionRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+@Service
+@RequiredArgsConstructor
+public class CardLedgerServiceImpl implements CardLedgerService {
+    private static final int MAX_PAGE_SIZE = 100;
+    private static final int EXPORT_BATCH_SIZE = 500;
+
+    private final CardRepository cardRepository;
+    private final CardTransactionRepository cardTransactionRepository;
+    private final CardBalanceSnapshotRepository cardBalanceSnapshotRepository;
+
+    @Override
+    @Transactional(readOnly = true)
+    public <T> CursorPageDto<T> history(UUID accountId, UUID cardId, boolean isAdmin, String cursor, int size,
+                                        Function<CardTransaction, T> mapper) {
+        checkAccess(accountId, cardId, isAdmin);
+        var limit = Math.clamp(size, 1, MAX_PAGE_SIZE);
+        var after = cursor == null || cursor.isBlank() ? null : TransactionCursor.decode(cursor);
+
+        //one row more than the page tells if there is a next page
+        var rows = rows(accountId, cardId, after, limit + 1);
+        var page = rows.size() > limit ? rows.subList(0, limit) : rows;
+        var next = rows.size() > limit ? TransactionCursor.of(page.getLast()).encode() : null;
+        return new CursorPageDto<>(page.stream().map(mapper).toList(), next);
+    }
+
+    //no transaction around the export, every batch is read in a short one of its own by the repository
+    //and no connection is held while the client reads the rows written so far
+    @Override
+    public <T> void export(UUID accountId, UUID cardId, boolean isAdmin, Function<CardTransaction, T> mapper,
+                           Consumer<T> consumer) {
+        checkAccess(accountId, cardId, isAdmin);
+        TransactionCursor after = null;
+        List<CardTransaction> rows;
+        do {
+            rows = rows(accountId, cardId, after, EXPORT_BATCH_SIZE);
+            rows.forEach(row -> consumer.accept(mapper.apply(row)));
+            after = rows.isEmpty() ? null : TransactionCursor.of(rows.getLast());
+        } while (rows.size() == EXPORT_BATCH_SIZE);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public CardLedgerBalanceDto ledgerBalance(UUID cardId) {
+        var row = cardBalanceSnapshotRepository.findLedgerBalance(cardId)
+                .orElseThrow(() -> new ElementNotFoundException("Card not found"));
+        if (row.getLedger() == null) {
+            throw new ElementNotFoundException("Card has no balance snapshot");
+        }
+        return new CardLedgerBalanceDto(cardId, row.getBalance(), row.getLedger(),
+                row.getBalance().compareTo(row.getLedger()) == 0);
+    }
+
+    @Override
+    @Transactional
+    public int takeSnapshots() {
+        return cardBalanceSnapshotRepository.createSnapshots();
+    }
+
+    private List<CardTransaction> rows(UUID accountId, UUID cardId, TransactionCursor after, int limit) {
+        if (cardId != null) {
+            return after == null
+                    ? cardTransactionRepository.findByCardIdOrderByCreatedAtDescIdDesc(cardId, Limit.of(limit))
+                    : cardTransactionRepository.findByCardIdBefore(cardId, after.createdAt(), after.id(), limit);
+        }
+        return after == null
+                ? cardTransactionRepository.findByAccountIdOrderByCreatedAtDescIdDesc(accountId, Limit.of(limit))
+                : cardTransactionRepository.findByAccountIdBefore(accountId, after.createdAt(), after.id(), limit);
+    }
+
+    private void checkAccess(UUID accountId, UUID cardId, boolean isAdmin) {
+        if(cardId != null && !isAdmin && !cardRepository.existsByAccountId(accountId, cardId)) {
+            throw new ElementNotFoundException("Card not found");
+        }
+    }
+}
@@ -1,60 +1,162 @@
 package com.example.bankcards.service;
 
+import com.example.bankcards.annotations.RetryableTransaction;
 import com.example.bankcards.dto.*;
 import com.example.bankcards.entity.Card;
+import com.example.bankcards.entity.CardBalanceSnapshot;
+import com.example.bankcards.entity.CardSecret;
+import com.example.bankcards.entity.CardTransaction;
 import com.example.bankcards.enums.CardStatus;
+import com.example.bankcards.enums.CardTransactionType;
 import com.example.bankcards.exception.AccessException;
 import com.example.bankcards.exception.ElementNotFoundException;
+import com.example.bankcards.exception.InvalidCursorException;
 import com.example.bankcards.interfaces.services.CardService;
 import com.example.bankcards.mappers.CardMapper;
 import com.example.bankcards.repository.AccountRepository;
+import com.example.bankcards.repository.CardBalanceSnapshotRepository;
 import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.repository.CardSecretRepository;
+import com.example.bankcards.repository.CardTransactionRepository;
+import com.example.bankcards.repository.specifications.KeysetSpecification;
+import com.example.bankcards.util.CardUtils;
+import com.example.bankcards.util.UuidUtils;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 import org.springframework.data.domain.Pageable;
-import org.springframework.transaction.annotation.Isolation;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.support.PageableExecutionUtils;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
-import java.util.Set;
+import java.util.Map;
 import java.util.UUID;
 import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 public class CardServiceImpl implements CardService {
 
+    private static final int MAX_WINDOW_SIZE = 100;
+    //fields a keyset listing may sort by, none is nullable and each has a (field, id) index
+    private static final Map<String, Function<CardView, Object>> SCROLL_KEYS = Map.of(
+            "createdAt", CardView::createdAt,
+            "balance", CardView::balance,
+            "expiredIn", CardView::expiredIn,
+            "owner", CardView::owner);
+
+    //row count of the whole table for unfiltered listings, taken from the planner statistics
+    private volatile long estimatedTotal = -1;
+
     private final CardRepository cardRepository;
     private final AccountRepository accountRepository;
+    private final CardSecretRepository cardSecretRepository;
+    private final CardTransactionRepository cardTransactionRepository;
+    private final CardBalanceSnapshotRepository cardBalanceSnapshotRepository;
+    private final CardCreditSequencer cardCreditSequencer;
     private final CardMapper cardMapper;
 
     @Override
+    @RetryableTransaction
+    @Transactional
     public <T> T create(CardCreateDto dto, Function<Card, T> mapper) {
         var card = accountRepository.getActiveAccountById(dto.accountId())
                 .map((acc) -> {
                     var entity = cardMapper.toEntity(dto);
                     entity.setAccount(acc);
+                    entity.setCardLast4(CardUtils.lastDigits(dto.number()));
                     return entity;
                 })
                 .orElseThrow(() -> new UsernameNotFoundException("Username not found or blocked"));
 
-        return mapper.apply(cardRepository.save(card));
+        var saved = cardRepository.save(card);
+        cardSecretRepository.save(CardSecret.builder()
+                .card(saved)
+                .cardNumber(card.getCardNumber())
+                .build());
+
+        //an empty snapshot before any ledger row, the opening balance is the first row
+        cardBalanceSnapshotRepository.save(CardBalanceSnapshot.builder()
+                .cardId(saved.getId())
+                .xidBefore(0L)
+                .balance(BigDecimal.ZERO)
+                .createdAt(LocalDateTime.now())
+                .build());
+        if(saved.getBalance().signum() != 0) {
+            cardTransactionRepository.save(CardTransaction.of(saved.getId(), saved.getAccount().getId(), CardTransactionType.OPENING, saved.getBalance(), null));
+        }
+        return mapper.apply(saved);
     }
 
+    //the card is closed, not removed, its ledger rows keep pointing at it
     @Override
+    @RetryableTransaction
+    @Transactional
     public void deleteById(UUID id) {
-        cardRepository.deleteById(id);
+        var card = cardRepository.findById(id)
+                .orElseThrow(() -> new ElementNotFoundException("Card not found"));
+        card.setDeletedAt(LocalDateTime.now());
+        cardRepository.save(card);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public <T> Page<T> getPages(Specification<Card> specification, Pageable pageable, Function<CardView, T> mapper) {
+        var rows = cardRepository.findViews(specification, pageable.getSort(), pageable.getOffset(), pageable.getPageSize());
+        //the count is skipped when the page itself tells the total
+        return PageableExecutionUtils.getPage(rows, pageable, () -> cardRepository.count(specification)).map(mapper);
     }
 
     @Override
     @Transactional(readOnly = true)
-    public <T> Page<T> getPages(Specification<Card> specification, Pageable pageable, Function<Card, T> mapper) {
-        return cardRepository.findAll(specification, pageable).map(mapper);
+    public <T> Slice<T> getSlice(Specification<Card> specification, Pageable pageable, Function<CardView, T> mapper) {
+        //one row more than the page tells if there is a next page, no count query is run
+        var rows = cardRepository.findViews(specification, pageable.getSort(), pageable.getOffset(), pageable.getPageSize() + 1);
+        var hasNext = rows.size() > pageable.getPageSize();
+        var page = hasNext ? rows.subList(0, pageable.getPageSize()) : rows;
+        return new SliceImpl<>(page, pageable, hasNext).map(mapper);
+    }
+
+    @Override
+    public long getEstimatedTotal() {
+        if (estimatedTotal < 0) {
+            refreshEstimatedTotal();
+        }
+        return estimatedTotal;
+    }
+
+    @Override
+    public void refreshEstimatedTotal() {
+        var estimate = cardRepository.estimateCount();
+        //a table without statistics yet is counted once, the next refresh after an analyze replaces it
+        //count() skips closed cards, they are taken out of the estimate too
+        estimatedTotal = estimate >= 0 ? Math.max(0, estimate - cardRepository.countClosed()) : cardRepository.count();
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public <T> CursorPageDto<T> getWindow(Specification<Card> specification, KeysetCursor position, int size,
+                                          Function<CardView, T> mapper) {
+        var key = SCROLL_KEYS.get(position.field());
+        if (key == null) {
+            throw new InvalidCursorException("Unsupported sort field " + position.field());
+        }
+        var limit = Math.clamp(size, 1, MAX_WINDOW_SIZE);
+
+        //one row more than the page tells if there is a next page, no count query is run
+        var rows = cardRepository.findViews(specification.and(KeysetSpecification.after(position)), position.sort(), 0, limit + 1);
+        var page = rows.size() > limit ? rows.subList(0, limit) : rows;
+        var next = rows.size() > limit ? position.after(key.apply(page.getLast()), page.getLast().id()).encode() : null;
+        return new CursorPageDto<>(page.stream().map(mapper).toList(), next);
     }
 
     @Override
@@ -64,9 +166,10 @@ public class CardServiceImpl implements CardService {
     }
 
     @Override
-    @Transactional(isolation = Isolation.SERIALIZABLE)
+    @RetryableTransaction
+    @Transactional
     public void changeCardStatus(UUID cardId, CardStatus newStatus) {
-        var card = cardRepository.findById(cardId)
+        var card = cardRepository.findByIdForUpdate(cardId)
                 .orElseThrow(() -> new ElementNotFoundException("card not found"));
 
         if(newStatus == CardStatus.BLOCKED && card.getBlockedRequestAt() != null) {
@@ -78,9 +181,10 @@ public class CardServiceImpl implements CardService {
     }
 
     @Override
-    @Transactional(isolation = Isolation.SERIALIZABLE)
+    @RetryableTransaction
+    @Transactional
     public void setBlockRequest(UUID accountId, CardBlockedRequestDto blockRequest){
-        var card = cardRepository.findById(blockRequest.targetId())
+        var card = cardRepository.findByIdForUpdate(blockRequest.targetId())
                 .orElseThrow(() -> new ElementNotFoundException("card not found"));
 
         if(!card.getAccount().getId().equals(accountId)) {
@@ -100,50 +204,86 @@ public class CardServiceImpl implements CardService {
     }
 
     @Override
-    @Transactional(isolation = Isolation.SERIALIZABLE)
+    @RetryableTransaction
+    @Transactional
     public void transfer(UUID accountId, CardTransferDto transferDto) {
+        if(transferDto.sourceId().equals(transferDto.targetId())) {
+            throw new ElementNotFoundException("Source and target cards must be different");
+        }
 
-        var cards = cardRepository.findAllById(Set.of(transferDto.sourceId(),transferDto.targetId()));
-        if(cards.isEmpty()) {
-            throw new ElementNotFoundException("Cards not found");
+        //rows are updated in id order, so two transfers over the same pair of cards can not deadlock,
+        //a failed second statement rolls back the first one
+        if(UuidUtils.compare(transferDto.sourceId(), transferDto.targetId()) < 0) {
+            debit(accountId, transferDto);
+            credit(accountId, transferDto);
+        } else {
+            credit(accountId, transferDto);
+            debit(accountId, transferDto);
         }
+        cardTransactionRepository.saveAll(ledgerRows(accountId, transferDto));
+    }
 
-        //get source card from collection by predicate -> if not found throw exception
-        var sourceCard = cards.stream().filter(c -> c.getId().equals(transferDto.sourceId())
-                        //only for active card
-                        && c.getStatus() == CardStatus.ACTIVE
-                        //check account -> allowed transfer between account's cards
-                        && c.getAccount().getId().equals(accountId)
-                        && (c.getBalance().subtract(transferDto.sum())).compareTo(BigDecimal.ZERO) >= 0)
-                .findFirst()
-                .orElseThrow(() -> new ElementNotFoundException("Source card not found, blocked/expired or not enough money"));
+    @Override
+    @RetryableTransaction
+    @Transactional
+    public List<CardTransferResultDto> transfer(UUID accountId, List<CardTransferDto> transfers) {
+        var cardIds = new HashSet<UUID>();
+        transfers.forEach(transfer -> {
+            cardIds.add(transfer.sourceId());
+            cardIds.add(transfer.targetId());
+        });
 
-        //get target card from collection by predicate -> if not found throw exception
-        var targetCard = cards.stream().filter(c->c.getId().equals(transferDto.targetId())
-                        //check account -> allowed transfer between account's cards
-                        && c.getAccount().getId().equals(accountId)
-                        //only for active card
-                        && c.getStatus() == CardStatus.ACTIVE)
-                .findFirst()
-                .orElseThrow(()->new ElementNotFoundException("Target card not found, blocked/expired"));
+        //ownership and status are checked once for every referenced card, balances are then tracked on the entities
+        var cards = cardRepository.findAllByIdForUpdate(cardIds).stream()
+                .filter(c -> c.getAccount().getId().equals(accountId) && c.getStatus() == CardStatus.ACTIVE)
+                .collect(Collectors.toMap(Card::getId, Function.identity()));
 
-        sourceCard.setBalance(sourceCard.getBalance().subtract(transferDto.sum()));
-        targetCard.setBalance(targetCard.getBalance().add(transferDto.sum()));
+        var results = new ArrayList<CardTransferResultDto>(transfers.size());
+        var ledger = new ArrayList<CardTransaction>();
+        for (int i = 0; i < transfers.size(); i++) {
+            var transfer = transfers.get(i);
+            var source = cards.get(transfer.sourceId());
+            var target = cards.get(transfer.targetId());
 
-        cardRepository.saveAll(List.of(sourceCard,targetCard));
+            if(transfer.sourceId().equals(transfer.targetId())) {
+                results.add(CardTransferResultDto.rejected(i, transfer, "Source and target cards must be different"));
+            } else if(source == null || source.getBalance().compareTo(transfer.sum()) < 0) {
+                results.add(CardTransferResultDto.rejected(i, transfer, "Source card not found, blocked/expired or not enough money"));
+            } else if(target == null) {
+                results.add(CardTransferResultDto.rejected(i, transfer, "Target card not found, blocked/expired"));
+            } else {
+                source.setBalance(source.getBalance().subtract(transfer.sum()));
+                target.setBalance(target.getBalance().add(transfer.sum()));
+                ledger.addAll(ledgerRows(accountId, transfer));
+                results.add(CardTransferResultDto.completed(i, transfer));
+            }
+        }
+        //changed cards and ledger rows are written on flush as jdbc batches (hibernate.jdbc.batch_size)
+        cardTransactionRepository.saveAll(ledger);
+        return results;
     }
 
     @Override
-    @Transactional(isolation = Isolation.SERIALIZABLE)
     public void balance(UUID accountId, BalanceDto balanceDto, boolean isAdmin) {
-        var card = cardRepository.findActiveById(balanceDto.cardId())
-                .orElseThrow(()->new ElementNotFoundException("card not found or blocked/expired"));
-        if(!card.getAccount().getId().equals(accountId) && !isAdmin) {
-            throw new AccessException("You don't have access to this card");
-        }
-        card.setBalance(card.getBalance().add(balanceDto.sum()));
-        cardRepository.save(card);
+        //top-ups of the same card are queued and applied together, see CardCreditSequencer
+        cardCreditSequencer.credit(balanceDto.cardId(), new CardCredit(accountId, isAdmin, balanceDto.sum()));
+    }
+
+    private List<CardTransaction> ledgerRows(UUID accountId, CardTransferDto transferDto) {
+        return List.of(
+                CardTransaction.of(transferDto.sourceId(), accountId, CardTransactionType.TRANSFER_OUT, transferDto.sum().negate(), transferDto.targetId()),
+                CardTransaction.of(transferDto.targetId(), accountId, CardTransactionType.TRANSFER_IN, transferDto.sum(), transferDto.sourceId()));
     }
 
+    private void debit(UUID accountId, CardTransferDto transferDto) {
+        if(cardRepository.debit(transferDto.sourceId(), accountId, transferDto.sum()) == 0) {
+            throw new ElementNotFoundException("Source card not found, blocked/expired or not enough money");
+        }
+    }
 
-}
\ No newline at end of file
+    private void credit(UUID accountId, CardTransferDto transferDto) {
+        if(cardRepository.credit(transferDto.targetId(), accountId, transferDto.sum()) == 0) {
+            throw new ElementNotFoundException("Target card not found, blocked/expired");
+        }
+    }
+}
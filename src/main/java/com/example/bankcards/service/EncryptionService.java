@@ -1,36 +1,51 @@
 package com.example.bankcards.service;
 
-import lombok.RequiredArgsConstructor;
+import com.example.bankcards.exception.EncryptionException;
+import com.example.bankcards.interfaces.services.CryptoEngine;
+import com.example.bankcards.service.crypto.AesGcmCryptoEngine;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
 
+import java.util.List;
+
 @Service
-@RequiredArgsConstructor
 public class EncryptionService {
 
-    private final JdbcTemplate jdbcTemplate;
-
-    @Value("${security.crypto-key}")
-    private String encryptionKey;
+    private final List<CryptoEngine> engines;
+    private final CryptoEngine writer;
+
+    public EncryptionService(List<CryptoEngine> engines,
+                             @Value("${security.crypto.engine:" + AesGcmCryptoEngine.NAME + "}") String engineName) {
+        this.engines = engines;
+        this.writer = engines.stream()
+                .filter(engine -> engine.name().equals(engineName))
+                .findFirst()
+                .orElseThrow(() -> new IllegalStateException("Unknown crypto engine: " + engineName));
+        //a read-only engine would fail every write, the application must not start with it
+        if (!writer.canEncrypt()) {
+            throw new IllegalStateException("Crypto engine " + engineName + " can only decrypt");
+        }
+    }
 
     public byte[] encrypt(String plaintext) {
         if (plaintext == null) return null;
 
-        return jdbcTemplate.queryForObject(
-                "SELECT pgp_sym_encrypt(?, ?)",
-                new Object[]{plaintext, encryptionKey},
-                byte[].class
-        );
+        return writer.encrypt(plaintext);
     }
 
     public String decrypt(byte[] ciphertext) {
         if (ciphertext == null) return null;
 
-        return jdbcTemplate.queryForObject(
-                "SELECT pgp_sym_decrypt(?, ?)",
-                new Object[]{ciphertext, encryptionKey},
-                String.class
-        );
+        //values are read by the engine that recognizes the header, so old pgcrypto rows stay readable
+        for (var engine : engines) {
+            if (engine.canDecrypt(ciphertext)) {
+                return engine.decrypt(ciphertext);
+            }
+        }
+        throw new EncryptionException("Unknown ciphertext format");
+    }
+
+    public boolean needsRotation(byte[] ciphertext) {
+        return ciphertext != null && !writer.isCurrent(ciphertext);
     }
-}
\ No newline at end of file
+}
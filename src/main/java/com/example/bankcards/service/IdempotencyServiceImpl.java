@@ -0,0 +1,144 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.annotations.RetryableTransaction;
+import com.example.bankcards.exception.IdempotencyKeyException;
+import com.example.bankcards.interfaces.services.IdempotencyService;
+import com.example.bankcards.repository.IdempotencyRecordRepository;
+import com.example.bankcards.util.HashUtils;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+/**
+ * Idempotency keys backed by the idempotency_keys table, with a bounded LRU cache of committed results in front.
+ * <p>
+ * The table is the source of truth: the key is claimed with an insert in the same transaction as the operation,
+ * so a result is visible to a retry only together with the balance change it describes.
+ * A request without a key opens no transaction here, the operation manages its own.
+ */
+@Service
+public class IdempotencyServiceImpl implements IdempotencyService {
+
+    private static final int MAX_KEY_LENGTH = 100;
+
+    private final IdempotencyRecordRepository idempotencyRecordRepository;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+    private final TransactionTemplate transactionTemplate;
+    private final Duration ttl;
+    private final Map<String, StoredResult> cache;
+
+    public IdempotencyServiceImpl(IdempotencyRecordRepository idempotencyRecordRepository,
+                                  ObjectMapper objectMapper,
+                                  MeterRegistry meterRegistry,
+                                  PlatformTransactionManager transactionManager,
+                                  @Value("${idempotency.ttl}") Duration ttl,
+                                  @Value("${idempotency.cache-size}") int cacheSize) {
+        this.idempotencyRecordRepository = idempotencyRecordRepository;
+        this.objectMapper = objectMapper;
+        this.meterRegistry = meterRegistry;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.ttl = ttl;
+        this.cache = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, StoredResult> eldest) {
+                return size() > cacheSize;
+            }
+        });
+    }
+
+    @Override
+    @RetryableTransaction
+    public <T> T execute(UUID accountId, String key, String operation, Object request,
+                         TypeReference<T> resultType, Supplier<T> action) {
+        if (key == null) {
+            return action.get();
+        }
+        if (key.isBlank() || key.length() > MAX_KEY_LENGTH) {
+            throw new IdempotencyKeyException("Idempotency-Key must be 1 to %d characters long".formatted(MAX_KEY_LENGTH));
+        }
+        return transactionTemplate.execute(status -> executeOnce(accountId, key, operation, request, resultType, action));
+    }
+
+    @Override
+    @RetryableTransaction
+    public void execute(UUID accountId, String key, String operation, Object request, Runnable action) {
+        execute(accountId, key, operation, request, new TypeReference<Void>() {}, () -> {
+            action.run();
+            return null;
+        });
+    }
+
+    private <T> T executeOnce(UUID accountId, String key, String operation, Object request,
+                              TypeReference<T> resultType, Supplier<T> action) {
+
+        var now = LocalDateTime.now();
+        var requestHash = HashUtils.sha256Hex(operation + ":" + toJson(request));
+        var cacheKey = accountId + ":" + key;
+
+        var cached = cache.get(cacheKey);
+        if (cached != null && cached.expiresAt().isAfter(now)) {
+            return replay(cached, requestHash, resultType, "cache");
+        }
+
+        var expiresAt = now.plus(ttl);
+        if (idempotencyRecordRepository.claim(accountId, key, requestHash, now, expiresAt) == 0) {
+            var stored = idempotencyRecordRepository.findByAccountIdAndKey(accountId, key)
+                    .map(r -> new StoredResult(r.getRequestHash(), r.getResponse(), r.getExpiresAt()))
+                    .orElseThrow(() -> new IdempotencyKeyException("Idempotency-Key is being processed, retry later"));
+            cache.put(cacheKey, stored);
+            return replay(stored, requestHash, resultType, "database");
+        }
+
+        var result = action.get();
+        var response = toJson(result);
+        idempotencyRecordRepository.saveResponse(accountId, key, response);
+
+        //only a committed result is cached, a rolled back one must run again on retry
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                cache.put(cacheKey, new StoredResult(requestHash, response, expiresAt));
+            }
+        });
+        return result;
+    }
+
+    private <T> T replay(StoredResult stored, String requestHash, TypeReference<T> resultType, String source) {
+        if (!stored.requestHash().equals(requestHash)) {
+            throw new IdempotencyKeyException("Idempotency-Key was already used for a different request");
+        }
+        meterRegistry.counter("idempotency.replays", "source", source).increment();
+        try {
+            return objectMapper.readValue(stored.response(), resultType);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Stored idempotent response can not be read", e);
+        }
+    }
+
+    private String toJson(Object value) {
+        try {
+            return objectMapper.writeValueAsString(value);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Idempotent request can not be serialized", e);
+        }
+    }
+
+    private record StoredResult(String requestHash, String response, LocalDateTime expiresAt) {
+    }
+}
@@ -9,6 +9,7 @@ import com.example.bankcards.dto.ValidationResult;
 import com.example.bankcards.entity.Account;
 import com.example.bankcards.entity.Token;
 import com.example.bankcards.enums.AccountStatus;
+import com.example.bankcards.enums.Role;
 import com.example.bankcards.enums.TokenStatus;
 import com.example.bankcards.enums.TokenType;
 import com.example.bankcards.exception.BlockedStatusException;
@@ -16,22 +17,27 @@ import com.example.bankcards.exception.ValidationTokenException;
 import com.example.bankcards.interfaces.services.JwtService;
 import com.example.bankcards.mappers.TokenMapper;
 import com.example.bankcards.repository.TokenRepository;
+import com.example.bankcards.security.AccountPrincipal;
+import com.example.bankcards.security.TokenRevocationList;
+import com.example.bankcards.security.VerifiedToken;
 import com.example.bankcards.util.DateTimeUtils;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
-import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.security.Keys;
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Component;
 import org.springframework.stereotype.Service;
 
-import java.security.Key;
+import javax.crypto.SecretKey;
 import java.time.LocalDateTime;
 import java.time.temporal.ChronoUnit;
 import java.util.Date;
-import java.util.List;
 import java.util.Map;
 import java.util.UUID;
 import java.util.function.Function;
@@ -58,17 +64,36 @@ public class JwtServiceImpl implements JwtService {
     @Value("${security.jwt.issuer}")
     private String issuer;
 
+    //principal is built from the signed claims, revocations are checked in memory
+    @Value("${security.jwt.stateless:false}")
+    private boolean stateless;
+
     private final TokenRepository tokenRepository;
     private final TokenMapper tokenMapper;
+    private final TokenRevocationList tokenRevocationList;
+
+    //keys and parsers are immutable and thread-safe, they are built once instead of on every request
+    private SecretKey accessTokenKey;
+    private SecretKey refreshTokenKey;
+    private JwtParser accessTokenParser;
+    private JwtParser refreshTokenParser;
+
+    @PostConstruct
+    public void init() {
+        accessTokenKey = getSigningKey(accessTokenSecret);
+        refreshTokenKey = getSigningKey(refreshTokenSecret);
+        accessTokenParser = Jwts.parser().verifyWith(accessTokenKey).build();
+        refreshTokenParser = Jwts.parser().verifyWith(refreshTokenKey).build();
+    }
 
-    private Key getSigningKey(String secret) {
+    private SecretKey getSigningKey(String secret) {
         return Keys.hmacShaKeyFor(secret.getBytes());
     }
 
     private String generateJwt(String subject,
                                String issuer,
                                Date expiration,
-                               String secret,
+                               SecretKey key,
                                Map<String, Object> claims ) {
         return Jwts.builder()
                 .subject(subject)
@@ -76,19 +101,15 @@ public class JwtServiceImpl implements JwtService {
                 .expiration(expiration)
                 .issuedAt(new Date(System.currentTimeMillis()))
                 .issuer(issuer)
-                .signWith(getSigningKey(secret), SignatureAlgorithm.HS256)
+                .signWith(key, Jwts.SIG.HS256)
                 .compact();
     }
 
-    private Claims extractClaims(String token, String secret) {
-        return Jwts.parser().setSigningKey(getSigningKey(secret)).build().parseClaimsJws(token).getBody();
-    }
-
     private TokenDto generateAccessToken(String subject, Map<String, Object> claims) {
         var expiration = new Date(System.currentTimeMillis() + accessTokenExpiresIn);
         var token = TokenDto.builder()
                 .expires(DateTimeUtils.toLocalDateTime(expiration))
-                .token(generateJwt(subject, issuer, expiration, accessTokenSecret, claims));
+                .token(generateJwt(subject, issuer, expiration, accessTokenKey, claims));
         return token.build();
     }
 
@@ -96,7 +117,7 @@ public class JwtServiceImpl implements JwtService {
         var expiration = new Date(System.currentTimeMillis() + refreshTokenExpiresIn);
         var token = TokenDto.builder()
                 .expires(DateTimeUtils.toLocalDateTime(expiration))
-                .token(generateJwt(subject,issuer, expiration, refreshTokenSecret, claims));
+                .token(generateJwt(subject,issuer, expiration, refreshTokenKey, claims));
         return token.build();
     }
 
@@ -112,16 +133,16 @@ public class JwtServiceImpl implements JwtService {
                 ClaimConstants.ACCOUNT_ROLE, accountDto.getRole()
         );
 
-        var tokens = tokenRepository.getTokensByAccountId(accountDto.getId());
-        var activeToken = tokens.stream().filter(t->t.getStatus() == TokenStatus.ACTIVE
-                && ChronoUnit.HOURS.between( LocalDateTime.now(), t.getAccessTokenExpires()) > ONE_HOUR
-                && ChronoUnit.DAYS.between( LocalDateTime.now(), t.getRefreshTokenExpires()) > ONE_DAY).findFirst();
+        //same bounds as the HOURS/DAYS.between checks of the refresh
+        var now = LocalDateTime.now();
+        var activeToken = tokenRepository.findReusableToken(accountDto.getId(),
+                now.plusHours(ONE_HOUR + 1), now.plusDays(ONE_DAY + 1));
 
         if(activeToken.isPresent())
         {
             return  tokenMapper.entityToDto(activeToken.get());
         }
-        setTokensStatus(tokens, TokenStatus.INACTIVE);
+        revokeTokens(accountDto.getId());
         var newToken = createNewToken(accountDto.getLogin(), accountDto.getId(), claims);
         return tokenMapper.entityToDto(newToken);
     }
@@ -136,22 +157,33 @@ public class JwtServiceImpl implements JwtService {
 
         Map<String, Object> claims = Map.of(
                 ClaimConstants.ACCOUNT_ID, token.getAccount().getId(),
-                ClaimConstants.ACCOUNT_LOGIN, token.getAccount().getUsername());
+                ClaimConstants.ACCOUNT_LOGIN, token.getAccount().getUsername(),
+                ClaimConstants.ACCOUNT_ROLE, token.getAccount().getRole().getRoleWithPrefix());
 
         if(ChronoUnit.DAYS.between( LocalDateTime.now(), token.getRefreshTokenExpires()) <= ONE_DAY){
             token.setStatus(TokenStatus.INACTIVE);
+            revoke(token, LocalDateTime.now());
             tokenRepository.save(token);
             return tokenMapper.entityToDto(createNewToken(token.getAccount().getUsername(), token.getAccount().getId(), claims));
         }
+        //the replaced access token is revoked
+        revoke(token, LocalDateTime.now());
         var accessToken = generateAccessToken(token.getAccount().getUsername(), claims);
         token.setAccessTokenExpires(accessToken.getExpires());
         token.setAccessToken(accessToken.getToken());
         return tokenMapper.entityToDto(tokenRepository.save(token));
     }
 
-    private void setTokensStatus(List<Token> tokens, TokenStatus status) {
-        tokens.forEach(token -> token.setStatus(status));
-        tokenRepository.saveAll(tokens);
+    private void revokeTokens(UUID accountId) {
+        var now = LocalDateTime.now();
+        if(tokenRepository.revokeActiveTokens(accountId, now) > 0) {
+            tokenRevocationList.revoke(accountId, now);
+        }
+    }
+
+    private void revoke(Token token, LocalDateTime revokedAt) {
+        token.setRevokedAt(revokedAt);
+        tokenRevocationList.revoke(token.getAccount().getId(), revokedAt);
     }
 
     private Token createNewToken(String subject, UUID accountId, Map<String, Object> claims) {
@@ -168,24 +200,60 @@ public class JwtServiceImpl implements JwtService {
     @Override
     public ValidationResult validateToken(String token, TokenType type) {
         var builder = ValidationResult.builder();
-        if(token.isBlank())
+        try {
+            verify(token, type);
+            return builder.valid(true).build();
+        } catch (ValidationTokenException e) {
+            return builder.valid(false).message(e.getMessage()).build();
+        }
+    }
+
+    @Override
+    public VerifiedToken verify(String token, TokenType type) {
+        if(token == null || token.isBlank())
         {
-            return builder.valid(false).message("Token is empty or null").build();
+            throw new ValidationTokenException("Token is empty or null");
         }
-        if(isTokenExpired(token, type)){
-            return builder.valid(false).message("Token expired").build();
+
+        Claims claims;
+        try {
+            //signature and expiration are checked by the parser
+            var parser = type == TokenType.ACCESS_TOKEN ? accessTokenParser : refreshTokenParser;
+            claims = parser.parseSignedClaims(token).getPayload();
+        } catch (ExpiredJwtException e) {
+            throw new ValidationTokenException("Token expired");
+        } catch (JwtException | IllegalArgumentException e) {
+            throw new ValidationTokenException("Token is invalid");
         }
-        return builder.valid(true).build();
+
+        if(claims.getSubject() == null || claims.getSubject().isBlank()){
+            throw new ValidationTokenException("username is empty or null");
+        }
+        return new VerifiedToken(token, type, claims);
     }
 
     @Override
     public UserDetails getUserDetailsByToken(String token, TokenType type) {
-        String username = extractUsername(token, type);
-        if(username.isBlank()){
-            throw new ValidationTokenException("username is empty or null");
+        return getUserDetails(verify(token, type));
+    }
+
+    @Override
+    public AccountPrincipal getUserDetails(VerifiedToken token) {
+        if(stateless && tokenRevocationList.isLoaded()) {
+            var principal = getPrincipalFromClaims(token.claims());
+            //tokens issued before the role claim was added are checked in the database
+            if(principal != null) {
+                if(tokenRevocationList.isBlocked(principal.id())){
+                    throw new BlockedStatusException("account is blocked");
+                }
+                if(tokenRevocationList.isRevoked(principal.id(), token.claims().getIssuedAt())){
+                    throw new ValidationTokenException("token is invalid");
+                }
+                return principal;
+            }
         }
 
-        var tokenEntity = tokenRepository.findTokenByAccessToken(token)
+        var tokenEntity = tokenRepository.findTokenByAccessToken(token.value())
                 .orElseThrow(()-> new ValidationTokenException("token is invalid"));
 
         var account = tokenEntity.getAccount();
@@ -194,38 +262,37 @@ public class JwtServiceImpl implements JwtService {
             throw new BlockedStatusException("account is blocked");
         }
 
-        return account;
+        return AccountPrincipal.of(account);
     }
 
     @Override
     public <T> T extractValue(String token, TokenType type, Function<Claims, T> claimsResolver) {
-        String secret = type == TokenType.ACCESS_TOKEN ? accessTokenSecret : refreshTokenSecret;
-        return extractClaims(token, secret, claimsResolver);
+        return claimsResolver.apply(verify(token, type).claims());
     }
 
     @Override
     public void changeTokenStatus(UUID accountId, TokenStatus status) {
-        var tokens = tokenRepository.getTokensByAccountId(accountId);
-        setTokensStatus(tokens, status);
-    }
-
-    private boolean isTokenExpired(String token, TokenType type) {
-        return extractExpiration(token, type).before(new Date());
-    }
-
-    private Date extractExpiration(String token, TokenType type) {
-        String secret = type == TokenType.ACCESS_TOKEN ? accessTokenSecret : refreshTokenSecret;
-        return extractClaims(token, secret, Claims::getExpiration);
+        if(status == TokenStatus.INACTIVE) {
+            revokeTokens(accountId);
+            return;
+        }
+        tokenRepository.updateStatusByAccountId(accountId, status);
     }
 
-    private <T> T extractClaims(String token, String secret, Function<Claims,T> claimsResolver) {
-        final Claims claims = extractClaims(token, secret);
-        return claimsResolver.apply(claims);
+    private AccountPrincipal getPrincipalFromClaims(Claims claims) {
+        var accountId = claims.get(ClaimConstants.ACCOUNT_ID, String.class);
+        var role = claims.get(ClaimConstants.ACCOUNT_ROLE, String.class);
+        if(accountId == null || role == null) {
+            return null;
+        }
+        return new AccountPrincipal(UUID.fromString(accountId),
+                claims.get(ClaimConstants.ACCOUNT_LOGIN, String.class),
+                AccountStatus.ACTIVE,
+                AccountPrincipal.mask(Role.fromRoleWithPrefix(role)));
     }
 
     public String extractUsername(String token, TokenType type) {
-        String secret = type  == TokenType.ACCESS_TOKEN ? accessTokenSecret : refreshTokenSecret;
-        return extractClaims(token, secret, Claims::getSubject);
+        return verify(token, type).subject();
     }
 
 }
@@ -0,0 +1,198 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.entity.KeyRotationJob;
+import com.example.bankcards.enums.KeyRotationStatus;
+import com.example.bankcards.exception.ElementNotFoundException;
+import com.example.bankcards.interfaces.services.KeyRotationService;
+import com.example.bankcards.repository.KeyRotationJobRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
+
+/**
+ * Re-encrypts card_secrets with the current key in keyset ordered chunks.
+ * <p>
+ * Every chunk is a short transaction that locks the job row, reads the checkpoint, rewrites
+ * the rows that are not encrypted with the current key and moves the checkpoint forward.
+ * Progress survives a crash and several instances never process the same chunk twice.
+ * Card rows themselves are only locked while their chunk is being updated.
+ */
+@Service
+@Slf4j
+public class KeyRotationServiceImpl implements KeyRotationService {
+
+    private static final UUID FIRST_CARD_ID = new UUID(0, 0);
+
+    private static final String LOCK_JOB = """
+            SELECT last_card_id FROM key_rotation_jobs WHERE id = ? AND status = 0 FOR UPDATE
+            """;
+    private static final String SELECT_CHUNK = """
+            SELECT card_id, card_number_encrypted
+              FROM card_secrets
+             WHERE card_id > ?
+             ORDER BY card_id
+             LIMIT ?
+            """;
+    private static final String UPDATE_SECRET = "UPDATE card_secrets SET card_number_encrypted = ? WHERE card_id = ?";
+    private static final String UPDATE_CHECKPOINT = """
+            UPDATE key_rotation_jobs
+               SET last_card_id = ?, processed = processed + ?, rotated = rotated + ?, updated_at = ?,
+                   status = ?, finished_at = ?
+             WHERE id = ?
+            """;
+    private static final String MARK_FAILED = """
+            UPDATE key_rotation_jobs SET status = ?, error = ?, updated_at = ? WHERE id = ? AND status = 0
+            """;
+
+    private final KeyRotationJobRepository keyRotationJobRepository;
+    private final EncryptionService encryptionService;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final int chunkSize;
+
+    private final Counter rotatedRows;
+    private final Counter skippedRows;
+    private final Timer chunkTimer;
+
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(Thread.ofPlatform().name("key-rotation").factory());
+    private final Set<UUID> activeJobs = ConcurrentHashMap.newKeySet();
+
+    public KeyRotationServiceImpl(KeyRotationJobRepository keyRotationJobRepository,
+                                  EncryptionService encryptionService,
+                                  JdbcTemplate jdbcTemplate,
+                                  PlatformTransactionManager transactionManager,
+                                  MeterRegistry meterRegistry,
+                                  @Value("${security.crypto.rotation.chunk-size:1000}") int chunkSize) {
+        this.keyRotationJobRepository = keyRotationJobRepository;
+        this.encryptionService = encryptionService;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.chunkSize = chunkSize;
+
+        //rows/sec is the rate of these counters
+        this.rotatedRows = meterRegistry.counter("card.key.rotation.rows", "result", "rotated");
+        this.skippedRows = meterRegistry.counter("card.key.rotation.rows", "result", "skipped");
+        this.chunkTimer = meterRegistry.timer("card.key.rotation.chunk");
+    }
+
+    @Override
+    public <T> T start(Function<KeyRotationJob, T> mapper) {
+        var now = LocalDateTime.now();
+        var job = keyRotationJobRepository
+                .findFirstByStatusInOrderByStartedAtDesc(Set.of(KeyRotationStatus.RUNNING, KeyRotationStatus.FAILED))
+                .orElseGet(() -> KeyRotationJob.builder().startedAt(now).build());
+        job.setStatus(KeyRotationStatus.RUNNING);
+        job.setError(null);
+        job.setUpdatedAt(now);
+
+        var saved = keyRotationJobRepository.save(job);
+        submit(saved.getId());
+        return mapper.apply(saved);
+    }
+
+    @Override
+    public <T> T findById(UUID id, Function<KeyRotationJob, T> mapper) {
+        return keyRotationJobRepository.findById(id).map(mapper)
+                .orElseThrow(() -> new ElementNotFoundException("Key rotation job not found"));
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void resumeRunningJobs() {
+        keyRotationJobRepository.findByStatus(KeyRotationStatus.RUNNING).forEach(job -> {
+            log.info("Resuming key rotation {} after card {}", job.getId(), job.getLastCardId());
+            submit(job.getId());
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private void submit(UUID jobId) {
+        if (!activeJobs.add(jobId)) {
+            return;
+        }
+        executor.execute(() -> {
+            try {
+                run(jobId);
+            } finally {
+                activeJobs.remove(jobId);
+            }
+        });
+    }
+
+    private void run(UUID jobId) {
+        log.info("Key rotation {} started", jobId);
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                var hasMore = chunkTimer.record(() -> transactionTemplate.execute(status -> processChunk(jobId)));
+                if (!Boolean.TRUE.equals(hasMore)) {
+                    break;
+                }
+            }
+            log.info("Key rotation {} stopped", jobId);
+        } catch (Exception e) {
+            log.error("Key rotation {} failed", jobId, e);
+            jdbcTemplate.update(MARK_FAILED, KeyRotationStatus.FAILED.ordinal(), e.getMessage(), LocalDateTime.now(), jobId);
+        }
+    }
+
+    private boolean processChunk(UUID jobId) {
+        var checkpoint = jdbcTemplate.query(LOCK_JOB, (rs, i) -> rs.getObject("last_card_id", UUID.class), jobId);
+        if (checkpoint.isEmpty()) {
+            //finished or failed meanwhile, possibly by another instance
+            return false;
+        }
+        var lastCardId = checkpoint.get(0) != null ? checkpoint.get(0) : FIRST_CARD_ID;
+
+        var rows = jdbcTemplate.query(SELECT_CHUNK,
+                (rs, i) -> new SecretRow(rs.getObject("card_id", UUID.class), rs.getBytes("card_number_encrypted")),
+                lastCardId, chunkSize);
+
+        List<Object[]> updates = new ArrayList<>();
+        for (var row : rows) {
+            if (encryptionService.needsRotation(row.ciphertext())) {
+                var number = encryptionService.decrypt(row.ciphertext());
+                updates.add(new Object[]{encryptionService.encrypt(number), row.cardId()});
+            }
+        }
+        if (!updates.isEmpty()) {
+            jdbcTemplate.batchUpdate(UPDATE_SECRET, updates);
+        }
+
+        var hasMore = rows.size() == chunkSize;
+        var now = LocalDateTime.now();
+        var status = hasMore ? KeyRotationStatus.RUNNING : KeyRotationStatus.COMPLETED;
+        jdbcTemplate.update(UPDATE_CHECKPOINT,
+                rows.isEmpty() ? checkpoint.get(0) : rows.get(rows.size() - 1).cardId(),
+                rows.size(), updates.size(), now,
+                status.ordinal(), hasMore ? null : now,
+                jobId);
+
+        rotatedRows.increment(updates.size());
+        skippedRows.increment(rows.size() - updates.size());
+        return hasMore;
+    }
+
+    private record SecretRow(UUID cardId, byte[] ciphertext) { }
+}
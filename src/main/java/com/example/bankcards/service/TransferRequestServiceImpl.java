@@ -0,0 +1,142 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.annotations.RetryableTransaction;
+import com.example.bankcards.aspects.RetryableTransactionAspect;
+import com.example.bankcards.dto.CardTransferDto;
+import com.example.bankcards.entity.TransferRequest;
+import com.example.bankcards.enums.TransferRequestStatus;
+import com.example.bankcards.enums.TransferStatus;
+import com.example.bankcards.exception.ElementNotFoundException;
+import com.example.bankcards.interfaces.services.CardService;
+import com.example.bankcards.interfaces.services.TransferRequestService;
+import com.example.bankcards.mappers.TransferRequestMapper;
+import com.example.bankcards.repository.TransferRequestRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Function;
+
+@Service
+@Slf4j
+public class TransferRequestServiceImpl implements TransferRequestService {
+    private static final String FAILED_MESSAGE = "Transfer could not be executed";
+
+    private final TransferRequestRepository transferRequestRepository;
+    private final CardService cardService;
+    private final TransferRequestMapper transferRequestMapper;
+    private final MeterRegistry meterRegistry;
+    private final TransactionTemplate transactionTemplate;
+
+    public TransferRequestServiceImpl(TransferRequestRepository transferRequestRepository,
+                                      CardService cardService,
+                                      TransferRequestMapper transferRequestMapper,
+                                      MeterRegistry meterRegistry,
+                                      PlatformTransactionManager transactionManager) {
+        this.transferRequestRepository = transferRequestRepository;
+        this.cardService = cardService;
+        this.transferRequestMapper = transferRequestMapper;
+        this.meterRegistry = meterRegistry;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @Override
+    @Transactional
+    public <T> T submit(UUID accountId, CardTransferDto transferDto, Function<TransferRequest, T> mapper) {
+        return mapper.apply(transferRequestRepository.save(transferRequestMapper.toEntity(accountId, transferDto)));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public <T> T findById(UUID accountId, UUID id, Function<TransferRequest, T> mapper) {
+        return transferRequestRepository.findByIdAndAccountId(id, accountId)
+                .map(mapper)
+                .orElseThrow(() -> new ElementNotFoundException("Transfer request not found"));
+    }
+
+    //every account is claimed and executed in its own transaction, a failing account does not roll back
+    //the others; a retry after a deadlock only re-runs the accounts that are still pending
+    @Override
+    @RetryableTransaction
+    public int processPending(int batchSize) {
+        var processed = 0;
+        for (var accountId : transferRequestRepository.findPendingAccountIds(TransferRequestStatus.PENDING, Limit.of(batchSize))) {
+            if (processed >= batchSize) {
+                break;
+            }
+            processed += processAccount(accountId, batchSize - processed);
+        }
+        return processed;
+    }
+
+    private int processAccount(UUID accountId, int limit) {
+        try {
+            return transactionTemplate.execute(status -> {
+                var requests = transferRequestRepository.claimPending(accountId, TransferRequestStatus.PENDING, Limit.of(limit));
+                execute(accountId, requests);
+                return requests.size();
+            });
+        } catch (RuntimeException e) {
+            if (RetryableTransactionAspect.isTransient(e)) {
+                throw e;
+            }
+            //one request broke the batch of the account, each one runs alone now so only that one is rejected
+            log.warn("Transfer requests of account {} failed as a batch, executing them one by one", accountId, e);
+            var processed = 0;
+            for (var id : transferRequestRepository.findPendingIds(accountId, TransferRequestStatus.PENDING, Limit.of(limit))) {
+                processed += processRequest(accountId, id);
+            }
+            return processed;
+        }
+    }
+
+    private int processRequest(UUID accountId, UUID id) {
+        try {
+            return transactionTemplate.execute(status -> transferRequestRepository.claimById(id, TransferRequestStatus.PENDING)
+                    .map(request -> {
+                        execute(accountId, List.of(request));
+                        return 1;
+                    })
+                    .orElse(0));
+        } catch (RuntimeException e) {
+            if (RetryableTransactionAspect.isTransient(e)) {
+                throw e;
+            }
+            //rejected in a transaction of its own, a poison request does not stay in the queue
+            log.error("Transfer request {} failed and is rejected", id, e);
+            return transactionTemplate.execute(status -> transferRequestRepository.claimById(id, TransferRequestStatus.PENDING)
+                    .map(request -> {
+                        complete(request, TransferRequestStatus.REJECTED, FAILED_MESSAGE, LocalDateTime.now());
+                        return 1;
+                    })
+                    .orElse(0));
+        }
+    }
+
+    private void execute(UUID accountId, List<TransferRequest> requests) {
+        if (requests.isEmpty()) {
+            return;
+        }
+        var results = cardService.transfer(accountId, requests.stream().map(transferRequestMapper::toTransferDto).toList());
+        var now = LocalDateTime.now();
+        for (int i = 0; i < requests.size(); i++) {
+            var result = results.get(i);
+            complete(requests.get(i), result.status() == TransferStatus.COMPLETED ? TransferRequestStatus.COMPLETED : TransferRequestStatus.REJECTED,
+                    result.message(), now);
+        }
+    }
+
+    private void complete(TransferRequest request, TransferRequestStatus status, String message, LocalDateTime now) {
+        request.setStatus(status);
+        request.setMessage(message);
+        request.setProcessedAt(now);
+        meterRegistry.counter("transfer.async.processed", "status", status.name()).increment();
+    }
+}
@@ -0,0 +1,132 @@
+package com.example.bankcards.service.crypto;
+
+import com.example.bankcards.exception.EncryptionException;
+import com.example.bankcards.interfaces.services.CryptoEngine;
+import com.example.bankcards.util.HashUtils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Cipher;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * AES-256-GCM engine, the key is SHA-256 of {@code security.crypto-key}.
+ * <p>
+ * Ciphertext layout (version 1):
+ * <pre>
+ * [0]      format version (0x01)
+ * [1..4]   key fingerprint, first 4 bytes of SHA-256 over the AES key
+ * [5..16]  random 96-bit IV
+ * [17..]   ciphertext followed by the 128-bit tag
+ * </pre>
+ * The version byte and fingerprint are authenticated as AAD.
+ * Keys listed in {@code security.crypto-retired-keys} are only used for decryption and are
+ * selected by the fingerprint, so values stay readable while they are being rotated.
+ */
+@Component
+public class AesGcmCryptoEngine implements CryptoEngine {
+
+    public static final String NAME = "aes-gcm";
+
+    static final byte FORMAT_V1 = 0x01;
+
+    private static final String TRANSFORMATION = "AES/GCM/NoPadding";
+    private static final int FINGERPRINT_LENGTH = 4;
+    private static final int HEADER_LENGTH = 1 + FINGERPRINT_LENGTH;
+    private static final int IV_LENGTH = 12;
+    private static final int TAG_LENGTH = 16;
+
+    private final SecureRandom random = new SecureRandom();
+    private final SecretKey key;
+    private final byte[] fingerprint;
+    private final Map<Integer, SecretKey> keysByFingerprint = new HashMap<>();
+
+    public AesGcmCryptoEngine(@Value("${security.crypto-key}") String secret,
+                              @Value("${security.crypto-retired-keys:}") List<String> retiredSecrets) {
+        var keyBytes = HashUtils.sha256(secret.getBytes(StandardCharsets.UTF_8));
+        this.key = new SecretKeySpec(keyBytes, "AES");
+        this.fingerprint = fingerprint(keyBytes);
+
+        for (var retired : retiredSecrets) {
+            var retiredBytes = HashUtils.sha256(retired.getBytes(StandardCharsets.UTF_8));
+            keysByFingerprint.put(ByteBuffer.wrap(fingerprint(retiredBytes)).getInt(),
+                    new SecretKeySpec(retiredBytes, "AES"));
+        }
+        keysByFingerprint.put(ByteBuffer.wrap(fingerprint).getInt(), key);
+    }
+
+    @Override
+    public String name() {
+        return NAME;
+    }
+
+    @Override
+    public boolean canDecrypt(byte[] ciphertext) {
+        return ciphertext != null
+                && ciphertext.length >= HEADER_LENGTH + IV_LENGTH + TAG_LENGTH
+                && ciphertext[0] == FORMAT_V1;
+    }
+
+    @Override
+    public boolean isCurrent(byte[] ciphertext) {
+        return canDecrypt(ciphertext) && Arrays.equals(ciphertext, 1, HEADER_LENGTH, fingerprint, 0, FINGERPRINT_LENGTH);
+    }
+
+    @Override
+    public byte[] encrypt(String plaintext) {
+        var data = plaintext.getBytes(StandardCharsets.UTF_8);
+        var out = new byte[HEADER_LENGTH + IV_LENGTH + data.length + TAG_LENGTH];
+        out[0] = FORMAT_V1;
+        System.arraycopy(fingerprint, 0, out, 1, FINGERPRINT_LENGTH);
+
+        var iv = new byte[IV_LENGTH];
+        random.nextBytes(iv);
+        System.arraycopy(iv, 0, out, HEADER_LENGTH, IV_LENGTH);
+
+        try {
+            var cipher = Cipher.getInstance(TRANSFORMATION);
+            cipher.init(Cipher.ENCRYPT_MODE, key, new GCMParameterSpec(TAG_LENGTH * 8, iv));
+            cipher.updateAAD(out, 0, HEADER_LENGTH);
+            cipher.doFinal(data, 0, data.length, out, HEADER_LENGTH + IV_LENGTH);
+            return out;
+        } catch (GeneralSecurityException e) {
+            throw new EncryptionException("Unable to encrypt value", e);
+        }
+    }
+
+    @Override
+    public String decrypt(byte[] ciphertext) {
+        if (!canDecrypt(ciphertext)) {
+            throw new EncryptionException("Unsupported ciphertext format");
+        }
+        var decryptionKey = keysByFingerprint.get(ByteBuffer.wrap(ciphertext, 1, FINGERPRINT_LENGTH).getInt());
+        if (decryptionKey == null) {
+            throw new EncryptionException("Value was encrypted with an unknown key");
+        }
+
+        try {
+            var cipher = Cipher.getInstance(TRANSFORMATION);
+            cipher.init(Cipher.DECRYPT_MODE, decryptionKey,
+                    new GCMParameterSpec(TAG_LENGTH * 8, ciphertext, HEADER_LENGTH, IV_LENGTH));
+            cipher.updateAAD(ciphertext, 0, HEADER_LENGTH);
+            var offset = HEADER_LENGTH + IV_LENGTH;
+            return new String(cipher.doFinal(ciphertext, offset, ciphertext.length - offset), StandardCharsets.UTF_8);
+        } catch (GeneralSecurityException e) {
+            throw new EncryptionException("Unable to decrypt value", e);
+        }
+    }
+
+    private static byte[] fingerprint(byte[] keyBytes) {
+        return Arrays.copyOf(HashUtils.sha256(keyBytes), FINGERPRINT_LENGTH);
+    }
+}
@@ -0,0 +1,340 @@
+package com.example.bankcards.service.crypto;
+
+import com.example.bankcards.exception.EncryptionException;
+import com.example.bankcards.interfaces.services.CryptoEngine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Cipher;
+import javax.crypto.spec.IvParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * Read-only reader for values written by pgcrypto {@code pgp_sym_encrypt} before the
+ * card numbers were encrypted in the application (RFC 4880 symmetric messages with AES keys).
+ * The message carries no key id, so the current key is tried first and then the retired ones.
+ */
+@Component
+public class PgpSymmetricCryptoEngine implements CryptoEngine {
+
+    public static final String NAME = "pgcrypto";
+
+    private static final int TAG_SYMMETRIC_KEY_ESK = 3;
+    private static final int TAG_COMPRESSED = 8;
+    private static final int TAG_SYMMETRIC_DATA = 9;
+    private static final int TAG_LITERAL = 11;
+    private static final int TAG_SYMMETRIC_DATA_MDC = 18;
+
+    private static final int BLOCK_SIZE = 16;
+    private static final int MDC_LENGTH = 22;
+
+    private final List<byte[]> passphrases = new ArrayList<>();
+
+    public PgpSymmetricCryptoEngine(@Value("${security.crypto-key}") String secret,
+                                    @Value("${security.crypto-retired-keys:}") List<String> retiredSecrets) {
+        passphrases.add(secret.getBytes(StandardCharsets.UTF_8));
+        retiredSecrets.forEach(retired -> passphrases.add(retired.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Override
+    public String name() {
+        return NAME;
+    }
+
+    @Override
+    public boolean canEncrypt() {
+        return false;
+    }
+
+    @Override
+    public boolean canDecrypt(byte[] ciphertext) {
+        return ciphertext != null
+                && ciphertext.length > 2
+                && (ciphertext[0] & 0x80) != 0
+                && PacketReader.tagOf(ciphertext[0]) == TAG_SYMMETRIC_KEY_ESK;
+    }
+
+    @Override
+    public byte[] encrypt(String plaintext) {
+        throw new EncryptionException("pgcrypto format is read-only, use " + AesGcmCryptoEngine.NAME);
+    }
+
+    @Override
+    public String decrypt(byte[] ciphertext) {
+        EncryptionException failure = null;
+        for (var passphrase : passphrases) {
+            try {
+                return decrypt(ciphertext, passphrase);
+            } catch (EncryptionException e) {
+                failure = e;
+            }
+        }
+        throw failure;
+    }
+
+    private String decrypt(byte[] ciphertext, byte[] passphrase) {
+        try {
+            var packets = new PacketReader(ciphertext);
+            var esk = packets.next();
+            if (esk.tag() != TAG_SYMMETRIC_KEY_ESK) {
+                throw new EncryptionException("Symmetric-key packet expected");
+            }
+            var sessionKey = sessionKey(esk.body(), passphrase);
+
+            var data = packets.next();
+            var payload = switch (data.tag()) {
+                case TAG_SYMMETRIC_DATA_MDC -> decryptWithMdc(sessionKey, data.body());
+                case TAG_SYMMETRIC_DATA -> decryptWithResync(sessionKey, data.body());
+                default -> throw new EncryptionException("Encrypted data packet expected");
+            };
+            return new String(literalData(payload), StandardCharsets.UTF_8);
+        } catch (GeneralSecurityException | DataFormatException | ArrayIndexOutOfBoundsException e) {
+            throw new EncryptionException("Unable to decrypt pgcrypto value", e);
+        }
+    }
+
+    private SecretKeySpec sessionKey(byte[] body, byte[] passphrase) throws GeneralSecurityException {
+        if (body[0] != 4) {
+            throw new EncryptionException("Unsupported symmetric-key packet version " + body[0]);
+        }
+        int algorithm = body[1] & 0xff;
+        int s2kType = body[2] & 0xff;
+        var digest = digest(body[3] & 0xff);
+        int pos = 4;
+        var salt = new byte[0];
+        long count = 0;
+        if (s2kType == 1 || s2kType == 3) {
+            salt = Arrays.copyOfRange(body, pos, pos + 8);
+            pos += 8;
+        }
+        if (s2kType == 3) {
+            int c = body[pos++] & 0xff;
+            count = (16L + (c & 15)) << ((c >> 4) + 6);
+        } else if (s2kType != 0 && s2kType != 1) {
+            throw new EncryptionException("Unsupported S2K type " + s2kType);
+        }
+
+        var key = new SecretKeySpec(deriveKey(digest, passphrase, salt, count, keyLength(algorithm)), "AES");
+        if (pos == body.length) {
+            return key;
+        }
+
+        // session key encrypted with the S2K key (pgcrypto sess-key=1)
+        var cipher = Cipher.getInstance("AES/CFB/NoPadding");
+        cipher.init(Cipher.DECRYPT_MODE, key, new IvParameterSpec(new byte[BLOCK_SIZE]));
+        var esk = cipher.doFinal(body, pos, body.length - pos);
+        int sessionAlgorithm = esk[0] & 0xff;
+        if (esk.length - 1 != keyLength(sessionAlgorithm)) {
+            throw new EncryptionException("Malformed encrypted session key");
+        }
+        return new SecretKeySpec(esk, 1, esk.length - 1, "AES");
+    }
+
+    private byte[] deriveKey(MessageDigest digest, byte[] passphrase, byte[] salt, long count, int keyLength) {
+        var input = new byte[salt.length + passphrase.length];
+        System.arraycopy(salt, 0, input, 0, salt.length);
+        System.arraycopy(passphrase, 0, input, salt.length, passphrase.length);
+
+        var key = new byte[keyLength];
+        int produced = 0;
+        for (int preload = 0; produced < keyLength; preload++) {
+            digest.reset();
+            digest.update(new byte[preload]);
+            long remaining = Math.max(count, input.length);
+            while (remaining > 0) {
+                int chunk = (int) Math.min(remaining, input.length);
+                digest.update(input, 0, chunk);
+                remaining -= chunk;
+            }
+            var hash = digest.digest();
+            int n = Math.min(hash.length, keyLength - produced);
+            System.arraycopy(hash, 0, key, produced, n);
+            produced += n;
+        }
+        return key;
+    }
+
+    private byte[] decryptWithMdc(SecretKeySpec key, byte[] body) throws GeneralSecurityException {
+        if (body[0] != 1) {
+            throw new EncryptionException("Unsupported encrypted data packet version " + body[0]);
+        }
+        var cipher = Cipher.getInstance("AES/CFB/NoPadding");
+        cipher.init(Cipher.DECRYPT_MODE, key, new IvParameterSpec(new byte[BLOCK_SIZE]));
+        var plain = cipher.doFinal(body, 1, body.length - 1);
+        checkPrefix(plain);
+
+        int mdcOffset = plain.length - MDC_LENGTH;
+        if (mdcOffset < BLOCK_SIZE + 2 || (plain[mdcOffset] & 0xff) != 0xd3 || plain[mdcOffset + 1] != 0x14) {
+            throw new EncryptionException("Modification detection code is missing");
+        }
+        var sha1 = MessageDigest.getInstance("SHA-1");
+        sha1.update(plain, 0, mdcOffset + 2);
+        if (!MessageDigest.isEqual(sha1.digest(), Arrays.copyOfRange(plain, mdcOffset + 2, plain.length))) {
+            throw new EncryptionException("Modification detection code mismatch");
+        }
+        return Arrays.copyOfRange(plain, BLOCK_SIZE + 2, mdcOffset);
+    }
+
+    private byte[] decryptWithResync(SecretKeySpec key, byte[] body) throws GeneralSecurityException {
+        var cipher = Cipher.getInstance("AES/CFB/NoPadding");
+        cipher.init(Cipher.DECRYPT_MODE, key, new IvParameterSpec(new byte[BLOCK_SIZE]));
+        checkPrefix(cipher.doFinal(body, 0, BLOCK_SIZE + 2));
+
+        cipher.init(Cipher.DECRYPT_MODE, key, new IvParameterSpec(body, 2, BLOCK_SIZE));
+        return cipher.doFinal(body, BLOCK_SIZE + 2, body.length - BLOCK_SIZE - 2);
+    }
+
+    private void checkPrefix(byte[] plain) {
+        if (plain[BLOCK_SIZE - 2] != plain[BLOCK_SIZE] || plain[BLOCK_SIZE - 1] != plain[BLOCK_SIZE + 1]) {
+            throw new EncryptionException("Wrong key or corrupted value");
+        }
+    }
+
+    private byte[] literalData(byte[] payload) throws DataFormatException {
+        var packets = new PacketReader(payload);
+        while (packets.hasNext()) {
+            var packet = packets.next();
+            var body = packet.body();
+            if (packet.tag() == TAG_LITERAL) {
+                int offset = 2 + (body[1] & 0xff) + 4;
+                return Arrays.copyOfRange(body, offset, body.length);
+            }
+            if (packet.tag() == TAG_COMPRESSED) {
+                return literalData(inflate(body));
+            }
+        }
+        throw new EncryptionException("Literal data packet not found");
+    }
+
+    private byte[] inflate(byte[] body) throws DataFormatException {
+        int algorithm = body[0] & 0xff;
+        if (algorithm == 0) {
+            return Arrays.copyOfRange(body, 1, body.length);
+        }
+        if (algorithm != 1 && algorithm != 2) {
+            throw new EncryptionException("Unsupported compression algorithm " + algorithm);
+        }
+        var inflater = new Inflater(algorithm == 1);
+        try {
+            inflater.setInput(body, 1, body.length - 1);
+            var out = new ByteArrayOutputStream();
+            var buffer = new byte[256];
+            while (!inflater.finished()) {
+                int n = inflater.inflate(buffer);
+                if (n == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+                out.write(buffer, 0, n);
+            }
+            return out.toByteArray();
+        } finally {
+            inflater.end();
+        }
+    }
+
+    private static int keyLength(int algorithm) {
+        return switch (algorithm) {
+            case 7 -> 16;
+            case 8 -> 24;
+            case 9 -> 32;
+            default -> throw new EncryptionException("Unsupported cipher algorithm " + algorithm);
+        };
+    }
+
+    private static MessageDigest digest(int algorithm) throws GeneralSecurityException {
+        return MessageDigest.getInstance(switch (algorithm) {
+            case 1 -> "MD5";
+            case 2 -> "SHA-1";
+            case 8 -> "SHA-256";
+            case 9 -> "SHA-384";
+            case 10 -> "SHA-512";
+            case 11 -> "SHA-224";
+            default -> throw new EncryptionException("Unsupported S2K hash algorithm " + algorithm);
+        });
+    }
+
+    private record Packet(int tag, byte[] body) { }
+
+    /**
+     * OpenPGP packet framing: old and new format headers, partial body lengths are joined.
+     */
+    private static final class PacketReader {
+        private final byte[] data;
+        private int pos;
+
+        PacketReader(byte[] data) {
+            this.data = data;
+        }
+
+        static int tagOf(byte header) {
+            return (header & 0x40) != 0 ? header & 0x3f : (header >> 2) & 0x0f;
+        }
+
+        boolean hasNext() {
+            return pos < data.length;
+        }
+
+        Packet next() {
+            int header = data[pos++] & 0xff;
+            if ((header & 0x80) == 0) {
+                throw new EncryptionException("Malformed OpenPGP packet header");
+            }
+            int tag = tagOf((byte) header);
+
+            if ((header & 0x40) == 0) {
+                int length = switch (header & 3) {
+                    case 0 -> data[pos++] & 0xff;
+                    case 1 -> readInt(2);
+                    case 2 -> readInt(4);
+                    default -> data.length - pos;
+                };
+                return new Packet(tag, take(length));
+            }
+
+            var body = new ByteArrayOutputStream();
+            while (true) {
+                int first = data[pos++] & 0xff;
+                if (first >= 224 && first < 255) {
+                    body.writeBytes(take(1 << (first & 0x1f)));
+                    continue;
+                }
+                int length;
+                if (first < 192) {
+                    length = first;
+                } else if (first < 224) {
+                    length = ((first - 192) << 8) + (data[pos++] & 0xff) + 192;
+                } else {
+                    length = readInt(4);
+                }
+                body.writeBytes(take(length));
+                return new Packet(tag, body.toByteArray());
+            }
+        }
+
+        private int readInt(int bytes) {
+            int value = 0;
+            for (int i = 0; i < bytes; i++) {
+                value = (value << 8) | (data[pos++] & 0xff);
+            }
+            return value;
+        }
+
+        private byte[] take(int length) {
+            if (length < 0 || pos + length > data.length) {
+                throw new EncryptionException("Truncated OpenPGP packet");
+            }
+            var chunk = Arrays.copyOfRange(data, pos, pos + length);
+            pos += length;
+            return chunk;
+        }
+    }
+}
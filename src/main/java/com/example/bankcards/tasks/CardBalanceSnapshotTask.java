@@ -0,0 +1,31 @@
+package com.example.bankcards.tasks;
+
+import com.example.bankcards.interfaces.services.CardLedgerService;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class CardBalanceSnapshotTask {
+
+    private final CardLedgerService cardLedgerService;
+    private final MeterRegistry meterRegistry;
+
+    @Scheduled(cron = "${task.balancesnapshot.cron}")
+    public void takeSnapshots() {
+        try {
+            var created = cardLedgerService.takeSnapshots();
+            meterRegistry.counter("ledger.snapshots.created").increment(created);
+
+            if (created > 0) {
+                log.info("Balance snapshots successfully end, {} created", created);
+            }
+        } catch (Exception e) {
+            log.error("Error while taking balance snapshots", e);
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.example.bankcards.tasks;
+
+import com.example.bankcards.repository.IdempotencyRecordRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class IdempotencyKeyPurgeTask {
+
+    @Value("${task.idempotencypurge.batch-size}")
+    private int batchSize;
+
+    private final IdempotencyRecordRepository idempotencyRecordRepository;
+    private final MeterRegistry meterRegistry;
+
+    @Scheduled(cron = "${task.idempotencypurge.cron}")
+    public void purgeExpiredKeys() {
+        try {
+            var now = LocalDateTime.now();
+            var deleted = 0L;
+            int batch;
+            do {
+                batch = idempotencyRecordRepository.deleteExpired(now, batchSize);
+                deleted += batch;
+                meterRegistry.counter("idempotency.purge.deleted").increment(batch);
+            } while (batch == batchSize);
+
+            if (deleted > 0) {
+                log.info("Purge idempotency keys successfully end, {} deleted", deleted);
+            }
+        } catch (Exception e) {
+            log.error("Error while purging idempotency keys", e);
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package com.example.bankcards.tasks;
+
+import com.example.bankcards.interfaces.services.AccountService;
+import com.example.bankcards.interfaces.services.CardService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ListingTotalsTask {
+
+    private final CardService cardService;
+    private final AccountService accountService;
+
+    //the statistics change only after autovacuum or analyze, reading them more often gains nothing
+    @Scheduled(cron = "${task.listingtotals.cron}")
+    public void refreshEstimatedTotals() {
+        try {
+            cardService.refreshEstimatedTotal();
+            accountService.refreshEstimatedTotal();
+            log.debug("Listing totals refreshed, cards {}, accounts {}",
+                    cardService.getEstimatedTotal(), accountService.getEstimatedTotal());
+        } catch (Exception e) {
+            log.error("Error while refreshing listing totals", e);
+        }
+    }
+}
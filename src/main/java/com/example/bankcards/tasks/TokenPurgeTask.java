@@ -0,0 +1,54 @@
+package com.example.bankcards.tasks;
+
+import com.example.bankcards.repository.TokenRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class TokenPurgeTask {
+
+    @Value("${task.tokenpurge.retention}")
+    private Duration retention;
+
+    @Value("${task.tokenpurge.batch-size}")
+    private int batchSize;
+
+    @Value("${security.jwt.access-token.expired}")
+    private long accessTokenExpiresIn;
+
+    private final TokenRepository tokenRepository;
+    private final MeterRegistry meterRegistry;
+
+    @Scheduled(cron = "${task.tokenpurge.cron}")
+    public void purgeDeadTokens() {
+        log.info("Purging expired and inactive tokens");
+        try {
+            var now = LocalDateTime.now();
+            var expiredBefore = now.minus(retention);
+            //a revocation stays until every access token issued before it has expired
+            var revokedBefore = now.minus(retention.plusMillis(accessTokenExpiresIn));
+
+            var deleted = 0L;
+            int batch;
+            do {
+                //every batch is a short transaction of its own, rows are never locked for the whole purge
+                batch = tokenRepository.deleteDeadTokens(expiredBefore, revokedBefore, batchSize);
+                deleted += batch;
+                meterRegistry.counter("token.purge.deleted").increment(batch);
+            } while (batch == batchSize);
+
+            log.info("Purge tokens successfully end, {} deleted", deleted);
+        } catch (Exception e) {
+            log.error("Error while purging tokens", e);
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.example.bankcards.tasks;
+
+import com.example.bankcards.interfaces.services.TransferRequestService;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Executes the transfers accepted by the async transfer endpoint. Every worker claims its own batch of
+ * pending requests, so the number of workers and the batch size set the database load, independent of
+ * the number of http threads. A worker goes on while it finds full batches and sleeps otherwise.
+ */
+@Component
+@Slf4j
+public class TransferRequestWorkers {
+
+    private final TransferRequestService transferRequestService;
+    private final int workers;
+    private final int batchSize;
+    private final Duration pollInterval;
+    private final ExecutorService executor;
+
+    public TransferRequestWorkers(TransferRequestService transferRequestService,
+                                  @Value("${transfer.async.workers}") int workers,
+                                  @Value("${transfer.async.batch-size}") int batchSize,
+                                  @Value("${transfer.async.poll-interval}") Duration pollInterval) {
+        this.transferRequestService = transferRequestService;
+        this.workers = workers;
+        this.batchSize = batchSize;
+        this.pollInterval = pollInterval;
+        this.executor = Executors.newFixedThreadPool(workers, Thread.ofPlatform().name("transfer-worker-", 0).factory());
+    }
+
+    //started once the schema is migrated and the context is up
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        for (int i = 0; i < workers; i++) {
+            executor.execute(this::run);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private void run() {
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                if (transferRequestService.processPending(batchSize) < batchSize) {
+                    Thread.sleep(pollInterval);
+                }
+            } catch (InterruptedException e) {
+                return;
+            } catch (Exception e) {
+                //a deadlock that outlasted its retries leaves the account pending, it is claimed again after the pause
+                log.error("Error while processing transfer requests", e);
+                try {
+                    Thread.sleep(pollInterval);
+                } catch (InterruptedException interrupted) {
+                    return;
+                }
+            }
+        }
+    }
+}
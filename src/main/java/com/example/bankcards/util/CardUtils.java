@@ -1,8 +1,20 @@
 package com.example.bankcards.util;
 
 public final class CardUtils {
+    private static final String MASK_PREFIX = "**** **** **** ";
+
     public static String maskCardNumber(String cardNumber) {
         if(cardNumber == null || cardNumber.startsWith("**** **** ****")) return cardNumber;
-        return "**** **** **** " + cardNumber.substring(12);
+        return MASK_PREFIX + cardNumber.substring(12);
+    }
+
+    public static String lastDigits(String cardNumber) {
+        if(cardNumber == null) return null;
+        return cardNumber.substring(cardNumber.length() - 4);
+    }
+
+    public static String maskLastDigits(String lastDigits) {
+        if(lastDigits == null) return null;
+        return MASK_PREFIX + lastDigits;
     }
 }
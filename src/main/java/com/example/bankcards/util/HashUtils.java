@@ -7,10 +7,13 @@ import java.util.HexFormat;
 
 public final class HashUtils {
     public static String sha256Hex(String input) {
+        return HexFormat.of().formatHex(sha256(input.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    public static byte[] sha256(byte[] input) {
         try {
             MessageDigest digest = MessageDigest.getInstance("SHA-256");
-            byte[] hash = digest.digest(input.getBytes(StandardCharsets.UTF_8));
-            return HexFormat.of().formatHex(hash);
+            return digest.digest(input);
         } catch (NoSuchAlgorithmException e) {
             throw new RuntimeException("SHA-256 algorithm not available", e);
         }
@@ -0,0 +1,23 @@
+package com.example.bankcards.util;
+
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+
+public final class UuidUtils {
+    private static final long VERSION_7 = 0x7000L;
+    private static final long VARIANT = 0x8000000000000000L;
+
+    //byte order as PostgreSQL sorts uuid columns, UUID.compareTo compares signed longs
+    public static int compare(UUID first, UUID second) {
+        var result = Long.compareUnsigned(first.getMostSignificantBits(), second.getMostSignificantBits());
+        return result != 0 ? result : Long.compareUnsigned(first.getLeastSignificantBits(), second.getLeastSignificantBits());
+    }
+
+    //RFC 9562 version 7: unix milliseconds first, so ids sort by creation time in indexes
+    public static UUID v7() {
+        var random = ThreadLocalRandom.current();
+        var msb = (System.currentTimeMillis() << 16) | VERSION_7 | (random.nextLong() & 0x0FFFL);
+        var lsb = VARIANT | (random.nextLong() & 0x3FFFFFFFFFFFFFFFL);
+        return new UUID(msb, lsb);
+    }
+}
@@ -0,0 +1,22 @@
+-- liquibase formatted sql
+
+-- changeset HP:1792344300495-1
+CREATE TABLE card_secrets (card_id UUID NOT NULL, card_number_encrypted BYTEA NOT NULL, card_number_hash VARCHAR(64) NOT NULL, CONSTRAINT pk_card_secrets PRIMARY KEY (card_id));
+
+-- changeset HP:1792344300495-2
+ALTER TABLE card_secrets ADD CONSTRAINT FK_CARD_SECRETS_ON_CARD FOREIGN KEY (card_id) REFERENCES cards (id) ON DELETE CASCADE;
+
+-- changeset HP:1792344300495-3
+INSERT INTO card_secrets (card_id, card_number_encrypted, card_number_hash)
+SELECT id, card_number_encrypted, card_number_hash FROM cards;
+
+-- changeset HP:1792344300495-4
+-- preconditions onFail:HALT
+-- precondition-sql-check expectedResult:0 SELECT count(*) FROM (SELECT card_number_hash FROM card_secrets GROUP BY card_number_hash HAVING count(*) > 1) duplicates
+-- the old index was unique per owner and status only, the same number under two owners has to be resolved by hand first
+DROP INDEX card_unique_owner_status_encrypted_number;
+CREATE UNIQUE INDEX uc_card_secrets_number_hash ON card_secrets (card_number_hash);
+
+-- changeset HP:1792344300495-5
+ALTER TABLE cards DROP COLUMN card_number_encrypted;
+ALTER TABLE cards DROP COLUMN card_number_hash;
@@ -0,0 +1,7 @@
+-- liquibase formatted sql
+
+-- changeset HP:1792344790080-1
+CREATE TABLE key_rotation_jobs (id UUID NOT NULL, status SMALLINT NOT NULL, last_card_id UUID, processed BIGINT NOT NULL, rotated BIGINT NOT NULL, error TEXT, started_at TIMESTAMP WITHOUT TIME ZONE NOT NULL, updated_at TIMESTAMP WITHOUT TIME ZONE NOT NULL, finished_at TIMESTAMP WITHOUT TIME ZONE, CONSTRAINT pk_key_rotation_jobs PRIMARY KEY (id));
+
+-- changeset HP:1792344790080-2
+CREATE UNIQUE INDEX uc_key_rotation_jobs_running ON key_rotation_jobs (status) WHERE status = 0;
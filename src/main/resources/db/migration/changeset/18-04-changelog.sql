@@ -0,0 +1,13 @@
+-- liquibase formatted sql
+
+-- changeset HP:1792345266153-1
+ALTER TABLE tokens ADD revoked_at TIMESTAMP WITHOUT TIME ZONE;
+CREATE INDEX idx_tokens_revoked_at ON tokens (revoked_at);
+
+-- changeset HP:1792345266153-2
+-- access tokens that are still alive stop at the creation of the active token of the account, or now for logged out accounts
+UPDATE tokens t
+SET revoked_at = COALESCE(
+        (SELECT date_trunc('second', max(a.created_at)) FROM tokens a WHERE a.account_id = t.account_id AND a.status = 0),
+        now())
+WHERE t.status = 1 AND t.access_token_expires > now();
@@ -0,0 +1,16 @@
+-- liquibase formatted sql
+
+-- changeset HP:1792345437952-1
+ALTER TABLE tokens ADD access_token_hash VARCHAR(64);
+ALTER TABLE tokens ADD refresh_token_hash VARCHAR(64);
+
+-- changeset HP:1792345437952-2
+UPDATE tokens
+SET access_token_hash = encode(digest(access_token, 'sha256'), 'hex'),
+    refresh_token_hash = encode(digest(refresh_token, 'sha256'), 'hex');
+
+-- changeset HP:1792345437952-3
+ALTER TABLE tokens ALTER COLUMN access_token_hash SET NOT NULL;
+ALTER TABLE tokens ALTER COLUMN refresh_token_hash SET NOT NULL;
+CREATE UNIQUE INDEX uc_tokens_access_token_hash ON tokens (access_token_hash);
+CREATE UNIQUE INDEX uc_tokens_refresh_token_hash ON tokens (refresh_token_hash);
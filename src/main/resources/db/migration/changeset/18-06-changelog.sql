@@ -0,0 +1,8 @@
+-- liquibase formatted sql
+
+-- changeset HP:1792345605915-1
+CREATE INDEX idx_tokens_account_status ON tokens (account_id, status);
+
+-- changeset HP:1792345605915-2
+CREATE INDEX idx_tokens_refresh_token_expires ON tokens (refresh_token_expires);
+CREATE INDEX idx_tokens_inactive_revoked ON tokens ((COALESCE(revoked_at, created_at))) WHERE status = 1;
@@ -0,0 +1,9 @@
+-- liquibase formatted sql
+
+-- changeset HP:1792347089668-1
+CREATE TABLE idempotency_keys (id UUID NOT NULL, account_id UUID NOT NULL, idempotency_key VARCHAR(100) NOT NULL, request_hash VARCHAR(64) NOT NULL, response TEXT, created_at TIMESTAMP WITHOUT TIME ZONE NOT NULL, expires_at TIMESTAMP WITHOUT TIME ZONE NOT NULL, CONSTRAINT pk_idempotency_keys PRIMARY KEY (id));
+
+-- changeset HP:1792347089668-2
+ALTER TABLE idempotency_keys ADD CONSTRAINT uc_idempotency_keys_account_key UNIQUE (account_id, idempotency_key);
+ALTER TABLE idempotency_keys ADD CONSTRAINT FK_IDEMPOTENCY_KEYS_ON_ACCOUNT FOREIGN KEY (account_id) REFERENCES accounts (id) ON DELETE CASCADE;
+CREATE INDEX idx_idempotency_keys_expires_at ON idempotency_keys (expires_at);
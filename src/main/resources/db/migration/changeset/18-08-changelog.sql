@@ -0,0 +1,22 @@
+-- liquibase formatted sql
+
+-- changeset HP:1792347483060-1
+CREATE TABLE card_transactions (id UUID NOT NULL, card_id UUID NOT NULL, type SMALLINT NOT NULL, amount DECIMAL NOT NULL, counterpart_card_id UUID, created_at TIMESTAMP WITHOUT TIME ZONE NOT NULL, CONSTRAINT pk_card_transactions PRIMARY KEY (id));
+ALTER TABLE card_transactions ADD CONSTRAINT FK_CARD_TRANSACTIONS_ON_CARD FOREIGN KEY (card_id) REFERENCES cards (id) ON DELETE CASCADE;
+CREATE INDEX idx_card_transactions_card_id ON card_transactions (card_id, id);
+
+-- changeset HP:1792347483060-2
+CREATE TABLE card_balance_snapshots (id UUID NOT NULL, card_id UUID NOT NULL, transactions_before UUID NOT NULL, balance DECIMAL NOT NULL, created_at TIMESTAMP WITHOUT TIME ZONE NOT NULL, CONSTRAINT pk_card_balance_snapshots PRIMARY KEY (id));
+ALTER TABLE card_balance_snapshots ADD CONSTRAINT FK_CARD_BALANCE_SNAPSHOTS_ON_CARD FOREIGN KEY (card_id) REFERENCES cards (id) ON DELETE CASCADE;
+CREATE UNIQUE INDEX uc_card_balance_snapshots_card ON card_balance_snapshots (card_id, transactions_before);
+
+-- changeset HP:1792347483060-3
+-- the ledger starts now, existing balances become the first snapshot of every card
+WITH ledger_start AS (
+    SELECT lpad(to_hex(floor(extract(epoch FROM clock_timestamp()) * 1000)::BIGINT), 12, '0') AS millis
+)
+INSERT INTO card_balance_snapshots (id, card_id, transactions_before, balance, created_at)
+SELECT gen_random_uuid(), c.id,
+       (substr(s.millis, 1, 8) || '-' || substr(s.millis, 9, 4) || '-7000-8000-000000000000')::UUID,
+       c.balance, now()
+  FROM cards c, ledger_start s;
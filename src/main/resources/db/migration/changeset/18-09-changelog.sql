@@ -0,0 +1,12 @@
+-- liquibase formatted sql
+
+-- changeset HP:1792347996555-1
+ALTER TABLE card_transactions ADD account_id UUID;
+UPDATE card_transactions t SET account_id = c.account_id FROM cards c WHERE c.id = t.card_id;
+ALTER TABLE card_transactions ALTER COLUMN account_id SET NOT NULL;
+ALTER TABLE card_transactions ADD CONSTRAINT FK_CARD_TRANSACTIONS_ON_ACCOUNT FOREIGN KEY (account_id) REFERENCES accounts (id) ON DELETE CASCADE;
+
+-- changeset HP:1792347996555-2
+-- history pages are read by keyset on (created_at, id), the (card_id, id) index stays for the snapshot tails
+CREATE INDEX idx_card_transactions_card_created ON card_transactions (card_id, created_at DESC, id DESC);
+CREATE INDEX idx_card_transactions_account_created ON card_transactions (account_id, created_at DESC, id DESC);
@@ -0,0 +1,9 @@
+-- liquibase formatted sql
+
+-- changeset HP:1792348789062-1
+CREATE TABLE transfer_requests (id UUID NOT NULL, account_id UUID NOT NULL, source_card_id UUID NOT NULL, target_card_id UUID NOT NULL, amount DECIMAL NOT NULL, status SMALLINT NOT NULL, message VARCHAR(255), created_at TIMESTAMP WITHOUT TIME ZONE NOT NULL, processed_at TIMESTAMP WITHOUT TIME ZONE, CONSTRAINT pk_transfer_requests PRIMARY KEY (id));
+ALTER TABLE transfer_requests ADD CONSTRAINT FK_TRANSFER_REQUESTS_ON_ACCOUNT FOREIGN KEY (account_id) REFERENCES accounts (id) ON DELETE CASCADE;
+
+-- changeset HP:1792348789062-2
+-- only pending requests are claimed, the index stays as small as the backlog
+CREATE INDEX idx_transfer_requests_pending ON transfer_requests (id) WHERE status = 0;
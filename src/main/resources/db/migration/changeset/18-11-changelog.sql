@@ -0,0 +1,14 @@
+-- liquibase formatted sql
+
+-- changeset HP:1792349427694-1
+-- keyset listings sort by one column and the id, each sortable column gets its own (column, id) index
+CREATE INDEX idx_cards_created_id ON cards (created_at, id);
+CREATE INDEX idx_cards_account_created_id ON cards (account_id, created_at, id);
+CREATE INDEX idx_cards_balance_id ON cards (balance, id);
+CREATE INDEX idx_cards_expired_in_id ON cards (expired_in, id);
+CREATE INDEX idx_cards_owner_id ON cards (owner, id);
+
+-- changeset HP:1792349427694-2
+-- username and mail are unique, their unique indexes already serve the keyset
+CREATE INDEX idx_accounts_created_id ON accounts (created_at, id);
+CREATE INDEX idx_accounts_last_name_id ON accounts (last_name, id);
@@ -0,0 +1,18 @@
+-- liquibase formatted sql
+
+-- changeset HP:1792350138775-1
+-- preconditions onFail:MARK_RAN
+-- precondition-sql-check expectedResult:0 SELECT count(*) FROM pg_extension WHERE extname = 'pg_trgm'
+-- an extension installed beforehand by a database administrator is left alone, see README_Migration.md
+CREATE EXTENSION pg_trgm;
+
+-- changeset HP:1792350138775-2
+-- account search matches one lower cased column, a trigram index serves the '%text%' patterns
+-- fields are separated by chr(31), a search term never contains it, so it can not match across two fields
+ALTER TABLE accounts ADD search_text TEXT GENERATED ALWAYS AS
+    (lower(username || chr(31) || mail || chr(31) || first_name || chr(31) || last_name)) STORED;
+CREATE INDEX idx_accounts_search_text_trgm ON accounts USING gin (search_text gin_trgm_ops);
+
+-- changeset HP:1792350138775-3
+-- the owner filter compares lower(owner), the index is built on the same expression
+CREATE INDEX idx_cards_owner_trgm ON cards USING gin (lower(owner) gin_trgm_ops);
@@ -0,0 +1,14 @@
+-- liquibase formatted sql
+
+-- changeset HP:1792351241275-1
+-- cards are closed by deleted_at instead of being removed, their ledger stays readable
+ALTER TABLE cards ADD deleted_at TIMESTAMP WITHOUT TIME ZONE;
+
+-- changeset HP:1792351241275-2
+-- a delete of a card or an account with ledger rows fails instead of wiping its history
+ALTER TABLE card_transactions DROP CONSTRAINT FK_CARD_TRANSACTIONS_ON_CARD;
+ALTER TABLE card_transactions ADD CONSTRAINT FK_CARD_TRANSACTIONS_ON_CARD FOREIGN KEY (card_id) REFERENCES cards (id) ON DELETE RESTRICT;
+ALTER TABLE card_transactions DROP CONSTRAINT FK_CARD_TRANSACTIONS_ON_ACCOUNT;
+ALTER TABLE card_transactions ADD CONSTRAINT FK_CARD_TRANSACTIONS_ON_ACCOUNT FOREIGN KEY (account_id) REFERENCES accounts (id) ON DELETE RESTRICT;
+ALTER TABLE card_balance_snapshots DROP CONSTRAINT FK_CARD_BALANCE_SNAPSHOTS_ON_CARD;
+ALTER TABLE card_balance_snapshots ADD CONSTRAINT FK_CARD_BALANCE_SNAPSHOTS_ON_CARD FOREIGN KEY (card_id) REFERENCES cards (id) ON DELETE RESTRICT;
@@ -0,0 +1,23 @@
+-- liquibase formatted sql
+
+-- changeset HP:1792351479472-1
+-- a ledger id is taken before its row commits, the writing transaction id is what a commit safe
+-- boundary can be drawn on: every transaction id below pg_snapshot_xmin has finished
+ALTER TABLE card_transactions ADD created_xid BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE card_transactions ALTER COLUMN created_xid SET DEFAULT pg_current_xact_id()::text::bigint;
+CREATE INDEX idx_card_transactions_card_xid ON card_transactions (card_id, created_xid);
+DROP INDEX idx_card_transactions_card_id;
+
+-- changeset HP:1792351479472-2
+-- the last snapshot of every card takes in the rows after it, existing rows are all below transaction id 1
+ALTER TABLE card_balance_snapshots ADD xid_before BIGINT;
+UPDATE card_balance_snapshots s
+   SET xid_before = 1,
+       balance = s.balance + COALESCE((SELECT sum(t.amount) FROM card_transactions t
+                                        WHERE t.card_id = s.card_id AND t.id >= s.transactions_before), 0)
+ WHERE s.id IN (SELECT DISTINCT ON (card_id) id FROM card_balance_snapshots ORDER BY card_id, transactions_before DESC);
+DELETE FROM card_balance_snapshots WHERE xid_before IS NULL;
+ALTER TABLE card_balance_snapshots ALTER COLUMN xid_before SET NOT NULL;
+DROP INDEX uc_card_balance_snapshots_card;
+ALTER TABLE card_balance_snapshots DROP COLUMN transactions_before;
+CREATE UNIQUE INDEX uc_card_balance_snapshots_card ON card_balance_snapshots (card_id, xid_before);
@@ -0,0 +1,7 @@
+-- liquibase formatted sql
+
+-- changeset HP:1792351863450-1
+-- workers claim per account with the status bound as a parameter, a partial index on a literal status
+-- would not match a generic plan
+CREATE INDEX idx_transfer_requests_status_account ON transfer_requests (status, account_id, id);
+DROP INDEX idx_transfer_requests_pending;
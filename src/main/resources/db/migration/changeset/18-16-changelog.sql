@@ -0,0 +1,20 @@
+-- liquibase formatted sql
+
+-- changeset HP:1792352417806-1
+-- instances poll blocked accounts incrementally by the moment of the last status change
+ALTER TABLE accounts ADD status_changed_at TIMESTAMP WITHOUT TIME ZONE NOT NULL DEFAULT now();
+CREATE INDEX idx_accounts_status_changed_at ON accounts (status_changed_at);
+
+-- changeset HP:1792352417806-2 splitStatements:false
+-- statuses are also changed by hand, the trigger covers every write path
+CREATE FUNCTION accounts_set_status_changed_at() RETURNS trigger AS $$
+BEGIN
+    NEW.status_changed_at := now();
+    RETURN NEW;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER trg_accounts_status_changed_at
+    BEFORE UPDATE OF status ON accounts
+    FOR EACH ROW WHEN (OLD.status IS DISTINCT FROM NEW.status)
+    EXECUTE FUNCTION accounts_set_status_changed_at();
@@ -0,0 +1,6 @@
+-- liquibase formatted sql
+
+-- changeset HP:1792352971324-1
+-- tokens of a deleted account stay with their revoked_at until the purge task removes them,
+-- other instances can only learn about the revocation from these rows
+ALTER TABLE tokens DROP CONSTRAINT FK_TOKENS_ON_ACCOUNT;
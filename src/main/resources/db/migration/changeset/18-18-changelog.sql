@@ -0,0 +1,5 @@
+-- liquibase formatted sql
+
+-- changeset HP:1792353629538-1
+-- the card total estimate subtracts closed cards, the statistics of the table still count them
+CREATE INDEX idx_cards_closed ON cards (deleted_at) WHERE deleted_at IS NOT NULL;
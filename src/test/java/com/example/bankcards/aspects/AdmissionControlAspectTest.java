@@ -0,0 +1,108 @@
+package com.example.bankcards.aspects;
+
+import com.example.bankcards.annotations.AdmissionControlled;
+import com.example.bankcards.exception.ServiceOverloadedException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AdmissionControlAspectTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private TransferService target;
+    private TransferService service;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        target = new TransferService();
+        var factory = new AspectJProxyFactory(target);
+        factory.addAspect(new AdmissionControlAspect(meterRegistry, 1, 1, Duration.ofSeconds(5), Duration.ofSeconds(1)));
+        service = factory.getProxy();
+    }
+
+    @Test
+    void admit_ShouldQueueSecondCall_AndRejectWhenQueueIsFull() throws Exception {
+        var first = CompletableFuture.supplyAsync(service::transfer);
+        assertTrue(target.started.await(5, TimeUnit.SECONDS));
+
+        var second = CompletableFuture.supplyAsync(service::transfer);
+        waitFor(() -> gauge("admission.write.queue") == 1);
+
+        var exception = assertThrows(ServiceOverloadedException.class, service::transfer);
+        assertEquals(Duration.ofSeconds(1), exception.getRetryAfter());
+        assertEquals(1, meterRegistry.get("admission.write.rejected").tag("reason", "queue-full").counter().count());
+        assertEquals(1, gauge("admission.write.inflight"));
+
+        target.release.countDown();
+        assertEquals("done", first.get(5, TimeUnit.SECONDS));
+        assertEquals("done", second.get(5, TimeUnit.SECONDS));
+        assertEquals(0, gauge("admission.write.inflight"));
+    }
+
+    @Test
+    void admit_ShouldReject_WhenWaitTimesOut() throws Exception {
+        var factory = new AspectJProxyFactory(target);
+        factory.addAspect(new AdmissionControlAspect(meterRegistry, 1, 10, Duration.ofMillis(50), Duration.ofSeconds(1)));
+        TransferService service = factory.getProxy();
+
+        var first = CompletableFuture.supplyAsync(service::transfer);
+        assertTrue(target.started.await(5, TimeUnit.SECONDS));
+
+        assertThrows(ServiceOverloadedException.class, service::transfer);
+        assertEquals(1, meterRegistry.get("admission.write.rejected").tag("reason", "timeout").counter().count());
+
+        target.release.countDown();
+        assertEquals("done", first.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void admit_ShouldRunNestedCallInOuterSlot() {
+        target.release.countDown();
+
+        assertEquals("done", service.transferTwice(service));
+        assertEquals(0, gauge("admission.write.inflight"));
+    }
+
+    private double gauge(String name) {
+        return meterRegistry.get(name).gauge().value();
+    }
+
+    private void waitFor(BooleanSupplier condition) throws InterruptedException {
+        var deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline);
+            Thread.sleep(5);
+        }
+    }
+
+    static class TransferService {
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+
+        @AdmissionControlled
+        public String transfer() {
+            started.countDown();
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return "done";
+        }
+
+        @AdmissionControlled
+        public String transferTwice(TransferService self) {
+            return self.transfer();
+        }
+    }
+}
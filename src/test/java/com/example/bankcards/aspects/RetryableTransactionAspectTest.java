@@ -0,0 +1,97 @@
+package com.example.bankcards.aspects;
+
+import com.example.bankcards.annotations.RetryableTransaction;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RetryableTransactionAspectTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private TransferService target;
+    private TransferService service;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        target = new TransferService();
+        var factory = new AspectJProxyFactory(target);
+        factory.addAspect(new RetryableTransactionAspect(meterRegistry, 3, Duration.ofMillis(1), Duration.ofMillis(5)));
+        service = factory.getProxy();
+    }
+
+    @Test
+    void retry_ShouldSucceed_AfterSerializationFailure() {
+        target.failures = 2;
+        target.sqlState = "40001";
+
+        assertEquals("done", service.transfer());
+        assertEquals(3, target.calls.get());
+        assertEquals(3, counter("transaction.retry.attempts"));
+        assertEquals(1, counter("transaction.retry.successes"));
+    }
+
+    @Test
+    void retry_ShouldGiveUp_WhenAttemptsExhausted() {
+        target.failures = 5;
+        target.sqlState = "40P01";
+
+        assertThrows(CannotAcquireLockException.class, () -> service.transfer());
+        assertEquals(3, target.calls.get());
+        assertEquals(1, counter("transaction.retry.give-ups"));
+    }
+
+    @Test
+    void retry_ShouldNotRetry_NonTransientErrors() {
+        target.failures = 1;
+        target.sqlState = "23505";
+
+        assertThrows(DataIntegrityViolationException.class, () -> service.transfer());
+        assertEquals(1, target.calls.get());
+    }
+
+    @Test
+    void retry_ShouldRetryOnlyOutermostCall() {
+        target.failures = 5;
+        target.sqlState = "40001";
+
+        assertThrows(CannotAcquireLockException.class, () -> service.transferTwice(service));
+        assertEquals(3, target.calls.get());
+        assertNull(meterRegistry.find("transaction.retry.attempts").tag("method", "TransferService.transfer").counter());
+    }
+
+    private double counter(String name) {
+        return meterRegistry.get(name).tag("method", "TransferService.transfer").counter().count();
+    }
+
+    static class TransferService {
+        final AtomicInteger calls = new AtomicInteger();
+        int failures;
+        String sqlState;
+
+        @RetryableTransaction
+        public String transfer() {
+            if (calls.incrementAndGet() <= failures) {
+                var cause = new SQLException("aborted", sqlState);
+                throw sqlState.startsWith("40")
+                        ? new CannotAcquireLockException("aborted", cause)
+                        : new DataIntegrityViolationException("duplicate", cause);
+            }
+            return "done";
+        }
+
+        @RetryableTransaction
+        public String transferTwice(TransferService self) {
+            return self.transfer() + self.transfer();
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.example.bankcards.benchmark;
+
+import com.example.bankcards.enums.TokenType;
+import com.example.bankcards.service.JwtServiceImpl;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Date;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token checks done by JwtFilter for every authenticated request, without the token lookup in the database.
+ * <p>
+ * {@code previousPath} repeats what the filter did before: the key and the parser are built for every parse
+ * and the token is parsed twice, for the expiration and for the subject.
+ * <p>
+ * Run with:
+ * <pre>
+ * mvn -B test-compile dependency:build-classpath -Dmdep.outputFile=target/test-classpath.txt -Dmdep.includeScope=test
+ * java -cp target/test-classes:target/classes:$(cat target/test-classpath.txt) com.example.bankcards.benchmark.JwtVerificationBenchmark
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtVerificationBenchmark {
+
+    private static final String SECRET = "5e879468423655116c1de6b4dc3e6a51ce69ac88a9b5202f3a51ba8708f7498c"
+            + "63c33a31d16f6f82c157bfc59b27d523f832b1a86c77b3236185f5b756f0d01f";
+
+    private JwtServiceImpl jwtService;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        jwtService = new JwtServiceImpl(null, null, null);
+        ReflectionTestUtils.setField(jwtService, "accessTokenSecret", SECRET);
+        ReflectionTestUtils.setField(jwtService, "refreshTokenSecret", SECRET);
+        jwtService.init();
+
+        token = Jwts.builder()
+                .subject("user")
+                .claims(Map.of("account_id", UUID.randomUUID().toString(), "account_role", "USER"))
+                .issuedAt(new Date())
+                .expiration(new Date(System.currentTimeMillis() + TimeUnit.DAYS.toMillis(1)))
+                .issuer("bank_api")
+                .signWith(Keys.hmacShaKeyFor(SECRET.getBytes()), Jwts.SIG.HS256)
+                .compact();
+    }
+
+    @Benchmark
+    public String previousPath() {
+        if (parse(token).getExpiration().before(new Date())) {
+            throw new IllegalStateException("Token expired");
+        }
+        return parse(token).getSubject();
+    }
+
+    @Benchmark
+    public String verifiedToken() {
+        return jwtService.verify(token, TokenType.ACCESS_TOKEN).subject();
+    }
+
+    private static Claims parse(String token) {
+        return Jwts.parser().verifyWith(Keys.hmacShaKeyFor(SECRET.getBytes())).build()
+                .parseSignedClaims(token).getPayload();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(JwtVerificationBenchmark.class.getSimpleName()).build()).run();
+    }
+}
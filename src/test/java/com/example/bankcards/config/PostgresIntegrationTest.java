@@ -0,0 +1,63 @@
+package com.example.bankcards.config;
+
+import com.example.bankcards.dto.AccountCreateDto;
+import com.example.bankcards.dto.CardCreateDto;
+import com.example.bankcards.entity.Account;
+import com.example.bankcards.entity.Card;
+import com.example.bankcards.interfaces.services.AccountService;
+import com.example.bankcards.interfaces.services.CardService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Function;
+
+//the application with its migrations on a real PostgreSQL, skipped where Docker is not available
+@SpringBootTest(properties = {
+        "security.crypto-key=" + PostgresIntegrationTest.CRYPTO_KEY,
+        "security.jwt.issuer=bank-test",
+        "security.jwt.access-token.secret-key=access-secret-access-secret-access-secret-access-secret",
+        "security.jwt.access-token.expired=60000",
+        "security.jwt.refresh-token.secret_key=refresh-secret-refresh-secret-refresh-secret-refresh",
+        "security.jwt.refresh-token.expired=60000"})
+@Testcontainers(disabledWithoutDocker = true)
+public abstract class PostgresIntegrationTest {
+
+    static final String CRYPTO_KEY = "integration-test-crypto-key";
+
+    //one container for all test classes, it lives as long as the cached application context
+    private static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:17-alpine");
+
+    @Autowired
+    protected AccountService accountService;
+
+    @Autowired
+    protected CardService cardService;
+
+    @DynamicPropertySource
+    static void postgres(DynamicPropertyRegistry registry) {
+        POSTGRES.start();
+        registry.add("spring.datasource.url", POSTGRES::getJdbcUrl);
+        registry.add("spring.datasource.username", POSTGRES::getUsername);
+        registry.add("spring.datasource.password", POSTGRES::getPassword);
+    }
+
+    protected Account account() {
+        var login = "it-" + UUID.randomUUID();
+        return accountService.create(new AccountCreateDto(login, "Doe", "John", login + "@example.com", "pw", "pw"),
+                Function.identity());
+    }
+
+    protected Card card(Account account, BigDecimal balance) {
+        var number = String.valueOf(ThreadLocalRandom.current().nextLong(4_000_000_000_000_000L, 5_000_000_000_000_000L));
+        return cardService.create(new CardCreateDto(number, balance, LocalDate.now().plusYears(2), account.getId()),
+                Function.identity());
+    }
+}
@@ -0,0 +1,90 @@
+package com.example.bankcards.repository;
+
+import com.example.bankcards.config.PostgresIntegrationTest;
+import com.example.bankcards.entity.Account;
+import com.example.bankcards.repository.specifications.EntityPathRegistry;
+import com.example.bankcards.repository.specifications.FilterSpecification;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.UUID;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TrigramSearchIntegrationTest extends PostgresIntegrationTest {
+
+    private static final int ROWS = 20_000;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityPathRegistry entityPathRegistry;
+
+    private Account account;
+    private String needle;
+
+    @BeforeEach
+    void setup() {
+        account = account();
+        needle = UUID.randomUUID().toString().substring(0, 8);
+        //enough rows that a sequential scan is not the cheapest plan any more
+        jdbcTemplate.update("""
+                INSERT INTO accounts (id, username, mail, first_name, last_name, hashed_password, created_at, status, role)
+                SELECT gen_random_uuid(), 'bulk-' || md5(random()::text), md5(random()::text) || '@example.com',
+                       'First', 'Last', 'x', now(), 0, 0
+                  FROM generate_series(1, ?)
+                """, ROWS);
+        jdbcTemplate.update("""
+                INSERT INTO cards (id, owner, account_id, status, expired_in, created_at, balance, card_last4)
+                SELECT gen_random_uuid(), 'OWNER ' || md5(random()::text), ?, 0, current_date + 365, now(), 0, '0000'
+                  FROM generate_series(1, ?)
+                """, account.getId(), ROWS);
+        jdbcTemplate.update("UPDATE accounts SET first_name = ? WHERE id = ?", "Needle" + needle, account.getId());
+        jdbcTemplate.execute("ANALYZE accounts");
+        jdbcTemplate.execute("ANALYZE cards");
+    }
+
+    @Test
+    void accountSearch_ShouldUseTrigramIndex() {
+        var plan = plan("SELECT id FROM accounts WHERE search_text LIKE ? ESCAPE '\\'", "%" + needle + "%");
+
+        assertTrue(plan.contains("idx_accounts_search_text_trgm"), plan);
+    }
+
+    @Test
+    void accountSearch_ShouldFindAccountBySubstringOfAnyField() {
+        var search = FilterSpecification.<Account>contains(entityPathRegistry.path(Account.class, "searchText"),
+                "NEEDLE" + needle);
+
+        var found = accountService.getPages(search, PageRequest.of(0, 10), Function.identity());
+
+        assertEquals(1, found.getTotalElements());
+        assertEquals(account.getId(), found.getContent().getFirst().getId());
+    }
+
+    @Test
+    void accountSearch_ShouldNotMatchAcrossFields() {
+        //the first name ends with the needle and the last name is Doe, the space only joins them in the term
+        var search = FilterSpecification.<Account>contains(entityPathRegistry.path(Account.class, "searchText"),
+                needle + " doe");
+
+        assertEquals(0, accountService.getPages(search, PageRequest.of(0, 10), Function.identity()).getTotalElements());
+    }
+
+    @Test
+    void ownerFilter_ShouldUseTrigramIndex() {
+        var plan = plan("SELECT id FROM cards WHERE lower(owner) LIKE ?", "%" + needle + "%");
+
+        assertTrue(plan.contains("idx_cards_owner_trgm"), plan);
+    }
+
+    private String plan(String query, String pattern) {
+        return String.join("\n", jdbcTemplate.queryForList("EXPLAIN " + query, String.class, pattern));
+    }
+}
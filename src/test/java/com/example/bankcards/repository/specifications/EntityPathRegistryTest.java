@@ -0,0 +1,89 @@
+package com.example.bankcards.repository.specifications;
+
+import com.example.bankcards.entity.Account;
+import com.example.bankcards.entity.Card;
+import com.example.bankcards.exception.InvalidFieldException;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.metamodel.Attribute;
+import jakarta.persistence.metamodel.EntityType;
+import jakarta.persistence.metamodel.Metamodel;
+import jakarta.persistence.metamodel.SingularAttribute;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Sort;
+
+import java.math.BigDecimal;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@SuppressWarnings({"unchecked", "rawtypes"})
+class EntityPathRegistryTest {
+
+    private EntityPathRegistry registry;
+
+    @BeforeEach
+    void setUp() {
+        EntityType account = entity(Account.class,
+                basic("id", UUID.class, true), basic("username", String.class, false), basic("password", String.class, false));
+        var owner = basic("account", Account.class, false);
+        when(owner.getPersistentAttributeType()).thenReturn(Attribute.PersistentAttributeType.MANY_TO_ONE);
+        when(owner.isAssociation()).thenReturn(true);
+        when(owner.getType()).thenReturn(account);
+        EntityType card = entity(Card.class, basic("id", UUID.class, true), basic("balance", BigDecimal.class, false), owner);
+
+        var metamodel = mock(Metamodel.class);
+        when(metamodel.getEntities()).thenReturn(Set.of(account, card));
+        var entityManagerFactory = mock(EntityManagerFactory.class);
+        when(entityManagerFactory.getMetamodel()).thenReturn(metamodel);
+        registry = new EntityPathRegistry(entityManagerFactory);
+    }
+
+    @Test
+    void path_ShouldResolveAssociationId_WithoutJoin() {
+        assertEquals(new EntityPath("account", "id", false, UUID.class), registry.path(Card.class, "account.id"));
+        assertEquals(new EntityPath("account", "username", true, String.class), registry.path(Card.class, "account.username"));
+        assertEquals(new EntityPath(null, "balance", false, BigDecimal.class), registry.path(Card.class, "balance"));
+    }
+
+    @Test
+    void path_ShouldRejectUnknownAndHiddenFields() {
+        assertThrows(InvalidFieldException.class, () -> registry.path(Card.class, "cardNumber"));
+        assertThrows(InvalidFieldException.class, () -> registry.path(Account.class, "password"));
+        assertThrows(InvalidFieldException.class, () -> registry.path(Card.class, "account.password"));
+    }
+
+    @Test
+    void sort_ShouldAllowOwnAttributesOnly() {
+        assertEquals(Sort.by(Sort.Direction.DESC, "balance"), registry.sort(Card.class, "desc", "balance"));
+        assertEquals(Sort.unsorted(), registry.sort(Card.class, null, "balance"));
+        assertThrows(InvalidFieldException.class, () -> registry.sort(Card.class, "asc", "account.username"));
+        assertThrows(InvalidFieldException.class, () -> registry.sort(Account.class, "asc", "password"));
+        assertThrows(InvalidFieldException.class, () -> registry.sort(Card.class, "sideways", "balance"));
+    }
+
+    @Test
+    void filter_ShouldRejectValueOfWrongType() {
+        var balance = registry.path(Card.class, "balance");
+        assertThrows(InvalidFieldException.class, () -> FilterSpecification.equal(balance, "ten"));
+        assertNotNull(FilterSpecification.greaterThanOrEqual(balance, BigDecimal.TEN));
+    }
+
+    private EntityType entity(Class<?> type, SingularAttribute... attributes) {
+        var entity = mock(EntityType.class);
+        when(entity.getJavaType()).thenReturn(type);
+        when(entity.getSingularAttributes()).thenReturn(Set.of(attributes));
+        return entity;
+    }
+
+    private SingularAttribute basic(String name, Class<?> type, boolean id) {
+        var attribute = mock(SingularAttribute.class);
+        when(attribute.getName()).thenReturn(name);
+        when(attribute.getJavaType()).thenReturn(type);
+        when(attribute.isId()).thenReturn(id);
+        when(attribute.getPersistentAttributeType()).thenReturn(Attribute.PersistentAttributeType.BASIC);
+        return attribute;
+    }
+}
@@ -0,0 +1,63 @@
+package com.example.bankcards.repository.specifications;
+
+import com.example.bankcards.entity.Account;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@SuppressWarnings({"unchecked", "rawtypes"})
+class FilterSpecificationTest {
+
+    private static final EntityPath SEARCH_TEXT = new EntityPath(null, "searchText", false, String.class);
+
+    private Root<Account> root;
+    private CriteriaBuilder cb;
+    private Path path;
+
+    @BeforeEach
+    void setUp() {
+        root = mock(Root.class);
+        cb = mock(CriteriaBuilder.class);
+        path = mock(Path.class);
+        when(root.get("searchText")).thenReturn(path);
+        when(cb.like(any(Path.class), anyString(), anyChar())).thenReturn(mock(Predicate.class));
+    }
+
+    @Test
+    void escapeLike_ShouldEscapeWildcardsAndEscapeCharacter() {
+        assertEquals("100\\%", FilterSpecification.escapeLike("100%"));
+        assertEquals("a\\_b", FilterSpecification.escapeLike("a_b"));
+        assertEquals("c:\\\\temp", FilterSpecification.escapeLike("c:\\temp"));
+        //the escape character is doubled first, the escapes added for the wildcards stay single
+        assertEquals("\\\\\\%", FilterSpecification.escapeLike("\\%"));
+    }
+
+    @Test
+    void contains_ShouldMatchWildcardsLiterally() {
+        FilterSpecification.<Account>contains(SEARCH_TEXT, "John_%\\").toPredicate(root, mock(CriteriaQuery.class), cb);
+
+        verify(cb).like(path, "%john\\_\\%\\\\%", '\\');
+    }
+
+    @Test
+    void contains_ShouldDropControlCharacters() {
+        //chr(31) separates the fields of search_text, a term must not reach into the next field
+        FilterSpecification.<Account>contains(SEARCH_TEXT, "doe\u001Fjohn\n").toPredicate(root, mock(CriteriaQuery.class), cb);
+
+        verify(cb).like(path, "%doejohn%", '\\');
+    }
+
+    @Test
+    void contains_ShouldBeSkipped_WhenOnlyControlCharactersOrBlank() {
+        assertNull(FilterSpecification.<Account>contains(SEARCH_TEXT, "\u001F\t").toPredicate(root, mock(CriteriaQuery.class), cb));
+        assertNull(FilterSpecification.<Account>contains(SEARCH_TEXT, null).toPredicate(root, mock(CriteriaQuery.class), cb));
+        verifyNoInteractions(cb);
+    }
+}
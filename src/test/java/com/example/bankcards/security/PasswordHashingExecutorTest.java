@@ -0,0 +1,85 @@
+package com.example.bankcards.security;
+
+import com.example.bankcards.exception.ServiceOverloadedException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PasswordHashingExecutorTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private PasswordHashingExecutor executor;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        executor = new PasswordHashingExecutor(1, 1, Duration.ofMillis(200), meterRegistry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdown();
+    }
+
+    @Test
+    void execute_ShouldReturnResult() {
+        assertEquals("hash", executor.execute(() -> "hash"));
+        assertEquals(1, meterRegistry.timer("password.hashing").count());
+    }
+
+    @Test
+    void execute_ShouldRethrowTaskException() {
+        assertThrows(IllegalArgumentException.class, () -> executor.execute(() -> {
+            throw new IllegalArgumentException("bad hash");
+        }));
+    }
+
+    @Test
+    void execute_ShouldThrow_WhenSaturated() throws Exception {
+        var release = new CountDownLatch(1);
+        var started = new CountDownLatch(1);
+        //one task is running and one is queued, the third one has no place
+        var running = CompletableFuture.runAsync(() -> executor.execute(() -> {
+            started.countDown();
+            await(release);
+            return null;
+        }));
+        started.await();
+        var queued = CompletableFuture.runAsync(() -> executor.execute(() -> null));
+        while (meterRegistry.get("password.hashing.queue").gauge().value() < 1) {
+            Thread.onSpinWait();
+        }
+
+        var ex = assertThrows(ServiceOverloadedException.class, () -> executor.execute(() -> "hash"));
+        assertEquals(Duration.ofMillis(200), ex.getRetryAfter());
+
+        release.countDown();
+        running.join();
+        queued.handle((r, e) -> null).join();
+        assertTrue(meterRegistry.counter("password.hashing.rejected").count() >= 1);
+    }
+
+    @Test
+    void execute_ShouldThrow_WhenQueueTimeoutExceeded() {
+        var release = new CountDownLatch(1);
+
+        assertThrows(ServiceOverloadedException.class, () -> executor.execute(() -> await(release)));
+        release.countDown();
+    }
+
+    private static Object await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return null;
+    }
+}
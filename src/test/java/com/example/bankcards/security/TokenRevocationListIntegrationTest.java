@@ -0,0 +1,92 @@
+package com.example.bankcards.security;
+
+import com.example.bankcards.config.PostgresIntegrationTest;
+import com.example.bankcards.enums.AccountStatus;
+import com.example.bankcards.interfaces.services.JwtService;
+import com.example.bankcards.mappers.AccountMapper;
+import com.example.bankcards.repository.AccountRepository;
+import com.example.bankcards.repository.TokenRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDateTime;
+import java.util.Date;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TokenRevocationListIntegrationTest extends PostgresIntegrationTest {
+
+    @Autowired
+    private TokenRepository tokenRepository;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private JwtService jwtService;
+
+    @Autowired
+    private AccountMapper accountMapper;
+
+    private TokenRevocationList revocationList;
+
+    @BeforeEach
+    void setup() {
+        revocationList = new TokenRevocationList(tokenRepository, accountRepository, true, 60_000);
+        revocationList.refresh();
+    }
+
+    @Test
+    void refresh_ShouldPickUpStatusChangedByHand() {
+        var account = account();
+        var createdAt = statusChangedAt(account.getId());
+
+        setStatus(account.getId(), AccountStatus.BLOCKED);
+        assertTrue(statusChangedAt(account.getId()).isAfter(createdAt));
+        revocationList.refresh();
+        assertTrue(revocationList.isBlocked(account.getId()));
+
+        setStatus(account.getId(), AccountStatus.ACTIVE);
+        revocationList.refresh();
+        assertFalse(revocationList.isBlocked(account.getId()));
+    }
+
+    @Test
+    void refresh_ShouldRevokeTokens_OfDeletedAccount() {
+        var account = account();
+        jwtService.createAuthorizationToken(accountMapper.entityToDto(account));
+
+        accountService.deleteById(account.getId());
+        revocationList.refresh();
+
+        //this list stands for another instance, it only sees the revoked_at of the kept token rows
+        var issuedBeforeDelete = new Date(System.currentTimeMillis() - 60_000);
+        assertTrue(revocationList.isRevoked(account.getId(), issuedBeforeDelete));
+        assertEquals(1, jdbcTemplate.queryForObject(
+                "SELECT count(*) FROM tokens WHERE account_id = ? AND revoked_at IS NOT NULL", Integer.class, account.getId()));
+    }
+
+    @Test
+    void statusChangedAt_ShouldStay_WhenStatusIsNotChanged() {
+        var account = account();
+        var changedAt = statusChangedAt(account.getId());
+
+        jdbcTemplate.update("UPDATE accounts SET status = status, first_name = 'Renamed' WHERE id = ?", account.getId());
+
+        assertEquals(changedAt, statusChangedAt(account.getId()));
+    }
+
+    private void setStatus(UUID accountId, AccountStatus status) {
+        jdbcTemplate.update("UPDATE accounts SET status = ? WHERE id = ?", status.ordinal(), accountId);
+    }
+
+    private LocalDateTime statusChangedAt(UUID accountId) {
+        return jdbcTemplate.queryForObject("SELECT status_changed_at FROM accounts WHERE id = ?", LocalDateTime.class, accountId);
+    }
+}
@@ -0,0 +1,92 @@
+package com.example.bankcards.security;
+
+import com.example.bankcards.dto.AccountStatusChange;
+import com.example.bankcards.enums.AccountStatus;
+import com.example.bankcards.repository.AccountRepository;
+import com.example.bankcards.repository.TokenRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class TokenRevocationListTest {
+
+    private static final LocalDateTime WATERMARK = LocalDateTime.of(2025, 1, 1, 12, 0);
+
+    @Mock
+    private TokenRepository tokenRepository;
+    @Mock
+    private AccountRepository accountRepository;
+
+    private TokenRevocationList revocationList;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        revocationList = new TokenRevocationList(tokenRepository, accountRepository, true, 60_000);
+    }
+
+    @Test
+    void refresh_ShouldLoadAllBlockedAccounts_Once() {
+        var blocked = UUID.randomUUID();
+        when(accountRepository.findLastStatusChange()).thenReturn(Optional.of(WATERMARK));
+        when(accountRepository.getIdsByStatus(AccountStatus.BLOCKED)).thenReturn(Set.of(blocked));
+
+        revocationList.refresh();
+        revocationList.refresh();
+
+        assertTrue(revocationList.isBlocked(blocked));
+        verify(accountRepository, times(1)).getIdsByStatus(AccountStatus.BLOCKED);
+        verify(accountRepository).findStatusChangesSince(WATERMARK.minusSeconds(30));
+    }
+
+    @Test
+    void refresh_ShouldApplyStatusChanges_AfterWatermark() {
+        var unblocked = UUID.randomUUID();
+        var blocked = UUID.randomUUID();
+        var changedAt = WATERMARK.plusSeconds(5);
+        when(accountRepository.findLastStatusChange()).thenReturn(Optional.of(WATERMARK));
+        when(accountRepository.getIdsByStatus(AccountStatus.BLOCKED)).thenReturn(Set.of(unblocked));
+        when(accountRepository.findStatusChangesSince(any())).thenReturn(List.of(
+                new AccountStatusChange(unblocked, AccountStatus.ACTIVE, WATERMARK.minusSeconds(10)),
+                new AccountStatusChange(blocked, AccountStatus.BLOCKED, changedAt)));
+
+        revocationList.refresh();
+        revocationList.refresh();
+        revocationList.refresh();
+
+        assertFalse(revocationList.isBlocked(unblocked));
+        assertTrue(revocationList.isBlocked(blocked));
+        //the window moves with the newest change, not with the clock of this instance
+        var inOrder = inOrder(accountRepository);
+        inOrder.verify(accountRepository).findStatusChangesSince(WATERMARK.minusSeconds(30));
+        inOrder.verify(accountRepository).findStatusChangesSince(changedAt.minusSeconds(30));
+    }
+
+    @Test
+    void refresh_ShouldReloadBlockedAccounts_WhenFirstLoadFailed() {
+        var blocked = UUID.randomUUID();
+        when(accountRepository.findLastStatusChange()).thenReturn(Optional.empty());
+        when(accountRepository.getIdsByStatus(AccountStatus.BLOCKED))
+                .thenThrow(new IllegalStateException("database is down"))
+                .thenReturn(Set.of(blocked));
+
+        revocationList.refresh();
+        assertFalse(revocationList.isLoaded());
+        revocationList.refresh();
+
+        assertTrue(revocationList.isLoaded());
+        assertTrue(revocationList.isBlocked(blocked));
+        verify(accountRepository, never()).findStatusChangesSince(any());
+    }
+}
@@ -4,9 +4,14 @@ import com.example.bankcards.dto.*;
 import com.example.bankcards.entity.Account;
 import com.example.bankcards.enums.Role;
 import com.example.bankcards.enums.AccountStatus;
+import com.example.bankcards.enums.TokenStatus;
 import com.example.bankcards.exception.BlockedStatusException;
+import com.example.bankcards.exception.ResourceInUseException;
+import com.example.bankcards.interfaces.services.JwtService;
 import com.example.bankcards.mappers.AccountMapper;
 import com.example.bankcards.repository.AccountRepository;
+import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.security.PasswordHashingExecutor;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.*;
@@ -20,6 +25,7 @@ import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import java.util.Optional;
 import java.util.UUID;
 import java.util.function.Function;
+import java.util.function.Supplier;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -30,9 +36,15 @@ class AccountServiceImplTest {
     @Mock
     private AccountRepository accountRepository;
     @Mock
+    private CardRepository cardRepository;
+    @Mock
     private AccountMapper accountMapper;
     @Mock
     private BCryptPasswordEncoder bCryptPasswordEncoder;
+    @Mock
+    private PasswordHashingExecutor passwordHashingExecutor;
+    @Mock
+    private JwtService jwtService;
 
     @InjectMocks
     private AccountServiceImpl accountService;
@@ -42,6 +54,7 @@ class AccountServiceImplTest {
     @BeforeEach
     void setUp() {
         MockitoAnnotations.openMocks(this);
+        when(passwordHashingExecutor.execute(any())).thenAnswer(inv -> ((Supplier<?>) inv.getArgument(0)).get());
     }
 
     @Test
@@ -167,7 +180,20 @@ class AccountServiceImplTest {
 
         accountService.deleteById(accountId);
 
-        verify(accountRepository).delete(account);
+        var inOrder = inOrder(jwtService, accountRepository);
+        inOrder.verify(jwtService).changeTokenStatus(accountId, TokenStatus.INACTIVE);
+        inOrder.verify(accountRepository).delete(account);
+    }
+
+    @Test
+    void deleteById_ShouldThrow_WhenAccountHasCards() {
+        Account account = new Account();
+        when(accountRepository.findById(accountId)).thenReturn(Optional.of(account));
+        when(cardRepository.existsAnyByAccountId(accountId)).thenReturn(true);
+
+        assertThrows(ResourceInUseException.class, () -> accountService.deleteById(accountId));
+        verify(accountRepository, never()).delete(any(Account.class));
+        verify(jwtService, never()).changeTokenStatus(any(), any());
     }
 
     @Test
@@ -188,4 +214,23 @@ class AccountServiceImplTest {
         Page<String> result = accountService.getPages(spec, pageable, acc -> "ok");
         assertEquals(1, result.getTotalElements());
     }
+
+    @Test
+    void getEstimatedTotal_ShouldReadStatisticsOnce_UntilRefreshed() {
+        when(accountRepository.estimateCount()).thenReturn(1200L, 1500L);
+
+        assertEquals(1200L, accountService.getEstimatedTotal());
+        assertEquals(1200L, accountService.getEstimatedTotal());
+        accountService.refreshEstimatedTotal();
+        assertEquals(1500L, accountService.getEstimatedTotal());
+        verify(accountRepository, never()).count();
+    }
+
+    @Test
+    void getEstimatedTotal_ShouldCount_WhenTableWasNeverAnalyzed() {
+        when(accountRepository.estimateCount()).thenReturn(-1L);
+        when(accountRepository.count()).thenReturn(42L);
+
+        assertEquals(42L, accountService.getEstimatedTotal());
+    }
 }
@@ -0,0 +1,149 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.dto.CardCredit;
+import com.example.bankcards.exception.AccessException;
+import com.example.bankcards.exception.ServiceOverloadedException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class CardCreditSequencerTest {
+
+    private final CardCreditWriter writer = mock(CardCreditWriter.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final List<Integer> batches = Collections.synchronizedList(new ArrayList<>());
+    private CardCreditSequencer sequencer;
+
+    @AfterEach
+    void tearDown() {
+        sequencer.shutdown();
+    }
+
+    @Test
+    void credit_ShouldCoalesceQueuedCreditsOfCard() throws Exception {
+        var firstStarted = new CountDownLatch(1);
+        var release = new CountDownLatch(1);
+        when(writer.apply(any(), any())).thenAnswer(invocation -> {
+            List<CardCredit> credits = invocation.getArgument(1);
+            batches.add(credits.size());
+            firstStarted.countDown();
+            release.await();
+            return Collections.nCopies(credits.size(), null);
+        });
+        sequencer = new CardCreditSequencer(writer, meterRegistry, 1, 100, 100, Duration.ofSeconds(5));
+
+        var cardId = UUID.randomUUID();
+        var callers = Executors.newFixedThreadPool(11);
+        var first = callers.submit(() -> credit(cardId));
+        firstStarted.await();
+        //the worker is busy with the first credit, the next ten wait in the queue of the card
+        var rest = new ArrayList<Future<?>>();
+        for (int i = 0; i < 10; i++) {
+            rest.add(callers.submit(() -> credit(cardId)));
+        }
+        while (meterRegistry.get("card.credit.queue").gauge().value() < 10) {
+            Thread.sleep(5);
+        }
+        release.countDown();
+
+        first.get(5, TimeUnit.SECONDS);
+        for (var future : rest) {
+            future.get(5, TimeUnit.SECONDS);
+        }
+        callers.shutdown();
+        assertEquals(List.of(1, 10), batches);
+    }
+
+    @Test
+    void credit_ShouldThrowOwnError() {
+        when(writer.apply(any(), any())).thenReturn(Collections.singletonList(new AccessException("denied")));
+        sequencer = new CardCreditSequencer(writer, new SimpleMeterRegistry(), 2, 10, 10, Duration.ofSeconds(5));
+
+        assertThrows(AccessException.class, () -> credit(UUID.randomUUID()));
+    }
+
+    @Test
+    void credit_ShouldGiveUp_AndSkipCredit_WhenNotTakenInTime() throws Exception {
+        var release = new CountDownLatch(1);
+        when(writer.apply(any(), any())).thenAnswer(invocation -> {
+            release.await();
+            return Collections.singletonList(null);
+        });
+        sequencer = new CardCreditSequencer(writer, new SimpleMeterRegistry(), 1, 10, 1, Duration.ofMillis(100));
+
+        var cardId = UUID.randomUUID();
+        var blocked = Executors.newSingleThreadExecutor().submit(() -> credit(cardId));
+        while (mockingDetails(writer).getInvocations().isEmpty()) {
+            Thread.sleep(5);
+        }
+
+        //the first credit holds the card, the second one times out in its queue and is never applied
+        assertThrows(ServiceOverloadedException.class, () -> credit(cardId));
+        release.countDown();
+        blocked.get(5, TimeUnit.SECONDS);
+        Thread.sleep(50);
+        verify(writer, times(1)).apply(any(), any());
+    }
+
+    @Test
+    void credit_ShouldNotWaitForSlowCard() throws Exception {
+        var slowCard = UUID.randomUUID();
+        var release = new CountDownLatch(1);
+        when(writer.apply(any(), any())).thenAnswer(invocation -> {
+            if (slowCard.equals(invocation.getArgument(0))) {
+                release.await();
+            }
+            return Collections.singletonList(null);
+        });
+        sequencer = new CardCreditSequencer(writer, new SimpleMeterRegistry(), 2, 10, 10, Duration.ofSeconds(5));
+
+        var slow = Executors.newSingleThreadExecutor().submit(() -> credit(slowCard));
+        while (mockingDetails(writer).getInvocations().isEmpty()) {
+            Thread.sleep(5);
+        }
+
+        //the slow card holds one worker, another card is written by the other one
+        assertTimeoutPreemptively(Duration.ofSeconds(1), () -> credit(UUID.randomUUID()));
+        release.countDown();
+        slow.get(5, TimeUnit.SECONDS);
+    }
+
+    @Test
+    void credit_ShouldApplyOnCallerThread_InsideTransaction() {
+        var threads = new ArrayList<Thread>();
+        when(writer.apply(any(), any())).thenAnswer(invocation -> {
+            threads.add(Thread.currentThread());
+            return Collections.singletonList(null);
+        });
+        sequencer = new CardCreditSequencer(writer, meterRegistry, 1, 10, 10, Duration.ofSeconds(5));
+
+        TransactionSynchronizationManager.setActualTransactionActive(true);
+        try {
+            credit(UUID.randomUUID());
+        } finally {
+            TransactionSynchronizationManager.clear();
+        }
+
+        //the credit commits or rolls back with the caller, it never goes through the queue
+        assertEquals(List.of(Thread.currentThread()), threads);
+        assertEquals(0, meterRegistry.get("card.credit.queue").gauge().value());
+    }
+
+    private Void credit(UUID cardId) {
+        sequencer.credit(cardId, new CardCredit(UUID.randomUUID(), true, BigDecimal.ONE));
+        return null;
+    }
+}
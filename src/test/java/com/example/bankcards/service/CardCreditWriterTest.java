@@ -0,0 +1,142 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.dto.CardCredit;
+import com.example.bankcards.entity.Account;
+import com.example.bankcards.entity.Card;
+import com.example.bankcards.entity.CardTransaction;
+import com.example.bankcards.enums.CardStatus;
+import com.example.bankcards.exception.AccessException;
+import com.example.bankcards.exception.ElementNotFoundException;
+import com.example.bankcards.exception.ServiceOverloadedException;
+import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.repository.CardTransactionRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.*;
+
+class CardCreditWriterTest {
+
+    @Mock
+    private CardRepository cardRepository;
+
+    @Mock
+    private CardTransactionRepository cardTransactionRepository;
+
+    private CardCreditWriter cardCreditWriter;
+
+    private UUID accountId;
+    private UUID cardId;
+    private Card card;
+
+    @BeforeEach
+    void setup() {
+        MockitoAnnotations.openMocks(this);
+        cardCreditWriter = new CardCreditWriter(cardRepository, cardTransactionRepository,
+                new SimpleMeterRegistry(), Duration.ofMillis(200));
+        TransactionSynchronizationManager.initSynchronization();
+        accountId = UUID.randomUUID();
+        cardId = UUID.randomUUID();
+        var account = new Account();
+        account.setId(accountId);
+        card = Card.builder().id(cardId).account(account).status(CardStatus.ACTIVE).balance(BigDecimal.TEN).build();
+    }
+
+    @AfterEach
+    void tearDown() {
+        TransactionSynchronizationManager.clear();
+    }
+
+    @Test
+    void apply_ShouldAddAllCreditsAtOnce_AndWriteRowPerCredit() {
+        when(cardRepository.findByIdForUpdate(cardId)).thenReturn(Optional.of(card));
+
+        var errors = cardCreditWriter.apply(cardId, List.of(
+                new CardCredit(accountId, false, BigDecimal.valueOf(5)),
+                new CardCredit(UUID.randomUUID(), true, BigDecimal.valueOf(7))));
+
+        assertEquals(2, errors.size());
+        assertTrue(errors.stream().allMatch(e -> e == null));
+        assertEquals(BigDecimal.valueOf(22), card.getBalance());
+        //rows of an admin top-up belong to the owner of the card
+        verify(cardTransactionRepository).saveAll(argThat((List<CardTransaction> rows) -> rows.size() == 2
+                && rows.stream().allMatch(row -> accountId.equals(row.getAccountId()))));
+    }
+
+    @Test
+    void apply_ShouldRejectOnlyForeignCredits() {
+        when(cardRepository.findByIdForUpdate(cardId)).thenReturn(Optional.of(card));
+
+        var errors = cardCreditWriter.apply(cardId, List.of(
+                new CardCredit(UUID.randomUUID(), false, BigDecimal.valueOf(5)),
+                new CardCredit(accountId, false, BigDecimal.ONE)));
+
+        assertInstanceOf(AccessException.class, errors.get(0));
+        assertNull(errors.get(1));
+        assertEquals(BigDecimal.valueOf(11), card.getBalance());
+    }
+
+    @Test
+    void apply_ShouldRejectAll_WhenCardNotActive() {
+        card.setStatus(CardStatus.BLOCKED);
+        when(cardRepository.findByIdForUpdate(cardId)).thenReturn(Optional.of(card));
+
+        var errors = cardCreditWriter.apply(cardId, List.of(
+                new CardCredit(accountId, false, BigDecimal.ONE),
+                new CardCredit(accountId, true, BigDecimal.ONE)));
+
+        assertTrue(errors.stream().allMatch(ElementNotFoundException.class::isInstance));
+        assertEquals(BigDecimal.TEN, card.getBalance());
+        verify(cardTransactionRepository, never()).saveAll(any());
+    }
+
+    @Test
+    void apply_ShouldKeepTurnOfCard_UntilTransactionEnds() throws Exception {
+        when(cardRepository.findByIdForUpdate(cardId)).thenReturn(Optional.of(card));
+        cardCreditWriter.apply(cardId, List.of(new CardCredit(accountId, false, BigDecimal.ONE)));
+        var synchronizations = TransactionSynchronizationManager.getSynchronizations();
+
+        //another transaction on the same card times out while the first one is still open
+        var executor = Executors.newSingleThreadExecutor();
+        var waiting = executor.submit(() -> inTransaction(() -> cardCreditWriter.apply(cardId,
+                List.of(new CardCredit(accountId, false, BigDecimal.ONE)))));
+        var error = assertThrows(Exception.class, () -> waiting.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(ServiceOverloadedException.class, error.getCause());
+
+        //once it ends the card is free again
+        synchronizations.forEach(s -> s.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+        executor.submit(() -> inTransaction(() -> cardCreditWriter.apply(cardId,
+                List.of(new CardCredit(accountId, false, BigDecimal.ONE))))).get(5, TimeUnit.SECONDS);
+        executor.shutdown();
+        assertEquals(BigDecimal.valueOf(12), card.getBalance());
+    }
+
+    private Void inTransaction(Runnable action) {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            action.run();
+        } finally {
+            TransactionSynchronizationManager.getSynchronizations()
+                    .forEach(s -> s.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+            TransactionSynchronizationManager.clear();
+        }
+        return null;
+    }
+}
@@ -0,0 +1,190 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.dto.LedgerBalanceRow;
+import com.example.bankcards.dto.TransactionCursor;
+import com.example.bankcards.entity.CardTransaction;
+import com.example.bankcards.exception.ElementNotFoundException;
+import com.example.bankcards.exception.InvalidCursorException;
+import com.example.bankcards.repository.CardBalanceSnapshotRepository;
+import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.repository.CardTransactionRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.data.domain.Limit;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class CardLedgerServiceImplTest {
+
+    @Mock
+    private CardRepository cardRepository;
+
+    @Mock
+    private CardTransactionRepository cardTransactionRepository;
+
+    @Mock
+    private CardBalanceSnapshotRepository cardBalanceSnapshotRepository;
+
+    @InjectMocks
+    private CardLedgerServiceImpl cardLedgerService;
+
+    private UUID accountId;
+    private UUID cardId;
+
+    @BeforeEach
+    void setup() {
+        MockitoAnnotations.openMocks(this);
+        accountId = UUID.randomUUID();
+        cardId = UUID.randomUUID();
+    }
+
+    @Test
+    void history_ShouldThrow_WhenCardOfAnotherAccount() {
+        when(cardRepository.existsByAccountId(accountId, cardId)).thenReturn(false);
+
+        assertThrows(ElementNotFoundException.class,
+                () -> cardLedgerService.history(accountId, cardId, false, null, 10, t -> t));
+        verify(cardTransactionRepository, never()).findByCardIdOrderByCreatedAtDescIdDesc(any(), any());
+    }
+
+    @Test
+    void history_ShouldNotCheckOwner_ForAdmin() {
+        cardLedgerService.history(accountId, cardId, true, null, 10, t -> t);
+
+        verify(cardRepository, never()).existsByAccountId(any(), any());
+    }
+
+    @Test
+    void history_ShouldReturnCursorOfLastRow_WhenMoreRowsExist() {
+        var rows = List.of(row(3), row(2), row(1));
+        when(cardRepository.existsByAccountId(accountId, cardId)).thenReturn(true);
+        when(cardTransactionRepository.findByCardIdOrderByCreatedAtDescIdDesc(cardId, Limit.of(3))).thenReturn(rows);
+
+        var page = cardLedgerService.history(accountId, cardId, false, null, 2, t -> t);
+
+        assertEquals(rows.subList(0, 2), page.content());
+        assertEquals(TransactionCursor.of(rows.get(1)), TransactionCursor.decode(page.nextCursor()));
+    }
+
+    @Test
+    void history_ShouldContinueAfterCursor() {
+        var last = row(2);
+        when(cardRepository.existsByAccountId(accountId, cardId)).thenReturn(true);
+        when(cardTransactionRepository.findByCardIdBefore(cardId, last.getCreatedAt(), last.getId(), 3))
+                .thenReturn(List.of(row(1)));
+
+        var page = cardLedgerService.history(accountId, cardId, false, TransactionCursor.of(last).encode(), 2, t -> t);
+
+        assertEquals(1, page.content().size());
+        assertNull(page.nextCursor());
+    }
+
+    @Test
+    void history_ShouldReadAccountIndex_WithoutCard() {
+        cardLedgerService.history(accountId, null, false, null, 10, t -> t);
+
+        verify(cardRepository, never()).existsByAccountId(any(), any());
+        verify(cardTransactionRepository).findByAccountIdOrderByCreatedAtDescIdDesc(accountId, Limit.of(11));
+    }
+
+    @Test
+    void history_ShouldThrow_WhenCursorMalformed() {
+        assertThrows(InvalidCursorException.class,
+                () -> cardLedgerService.history(accountId, null, false, "not a cursor", 10, t -> t));
+    }
+
+    @Test
+    void ledgerBalance_ShouldCompareBothBalances() {
+        when(cardBalanceSnapshotRepository.findLedgerBalance(cardId)).thenReturn(Optional.of(row(150, 150)));
+
+        var result = cardLedgerService.ledgerBalance(cardId);
+
+        assertEquals(BigDecimal.valueOf(150), result.ledgerBalance());
+        assertTrue(result.consistent());
+    }
+
+    @Test
+    void ledgerBalance_ShouldReportMismatch() {
+        when(cardBalanceSnapshotRepository.findLedgerBalance(cardId)).thenReturn(Optional.of(row(200, 100)));
+
+        assertFalse(cardLedgerService.ledgerBalance(cardId).consistent());
+    }
+
+    @Test
+    void ledgerBalance_ShouldThrow_WhenCardHasNoSnapshot() {
+        when(cardBalanceSnapshotRepository.findLedgerBalance(cardId)).thenReturn(Optional.of(row(200, null)));
+
+        assertThrows(ElementNotFoundException.class, () -> cardLedgerService.ledgerBalance(cardId));
+    }
+
+    @Test
+    void takeSnapshots_ShouldReturnCreatedCount() {
+        when(cardBalanceSnapshotRepository.createSnapshots()).thenReturn(3);
+
+        assertEquals(3, cardLedgerService.takeSnapshots());
+    }
+
+    @Test
+    void export_ShouldReadBatchesAfterLastRow_UntilShortBatch() {
+        var first = IntStream.range(0, 500).mapToObj(i -> row(59)).toList();
+        var last = first.getLast();
+        var second = List.of(row(1));
+        when(cardRepository.existsByAccountId(accountId, cardId)).thenReturn(true);
+        when(cardTransactionRepository.findByCardIdOrderByCreatedAtDescIdDesc(cardId, Limit.of(500))).thenReturn(first);
+        when(cardTransactionRepository.findByCardIdBefore(cardId, last.getCreatedAt(), last.getId(), 500)).thenReturn(second);
+
+        var exported = new ArrayList<UUID>();
+        cardLedgerService.export(accountId, cardId, false, CardTransaction::getId, exported::add);
+
+        assertEquals(501, exported.size());
+        assertEquals(second.getFirst().getId(), exported.getLast());
+        verify(cardTransactionRepository, times(1)).findByCardIdBefore(any(), any(), any(), anyInt());
+    }
+
+    @Test
+    void export_ShouldReadAccountIndex_WithoutCard() {
+        when(cardTransactionRepository.findByAccountIdOrderByCreatedAtDescIdDesc(accountId, Limit.of(500)))
+                .thenReturn(List.of(row(2), row(1)));
+
+        var exported = new ArrayList<CardTransaction>();
+        cardLedgerService.export(accountId, null, false, t -> t, exported::add);
+
+        assertEquals(2, exported.size());
+        verify(cardTransactionRepository, never()).findByAccountIdBefore(any(), any(), any(), anyInt());
+    }
+
+    private LedgerBalanceRow row(Integer balance, Integer ledger) {
+        return new LedgerBalanceRow() {
+            public BigDecimal getBalance() {
+                return BigDecimal.valueOf(balance);
+            }
+
+            public BigDecimal getLedger() {
+                return ledger == null ? null : BigDecimal.valueOf(ledger);
+            }
+        };
+    }
+
+    private CardTransaction row(int second) {
+        return CardTransaction.builder()
+                .id(UUID.randomUUID())
+                .cardId(cardId)
+                .createdAt(LocalDateTime.of(2025, 1, 1, 0, 0, second, 123_456_000))
+                .build();
+    }
+}
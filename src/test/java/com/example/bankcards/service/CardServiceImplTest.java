@@ -3,15 +3,25 @@ package com.example.bankcards.service;
 import com.example.bankcards.dto.*;
 import com.example.bankcards.entity.Account;
 import com.example.bankcards.entity.Card;
+import com.example.bankcards.entity.CardTransaction;
 import com.example.bankcards.enums.CardStatus;
+import com.example.bankcards.enums.CardTransactionType;
+import com.example.bankcards.enums.TransferStatus;
 import com.example.bankcards.exception.AccessException;
 import com.example.bankcards.exception.ElementNotFoundException;
+import com.example.bankcards.exception.InvalidCursorException;
 import com.example.bankcards.mappers.CardMapper;
 import com.example.bankcards.repository.AccountRepository;
+import com.example.bankcards.repository.CardBalanceSnapshotRepository;
 import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.repository.CardSecretRepository;
+import com.example.bankcards.repository.CardTransactionRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.*;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
@@ -29,6 +39,18 @@ class CardServiceImplTest {
     @Mock
     private AccountRepository accountRepository;
 
+    @Mock
+    private CardSecretRepository cardSecretRepository;
+
+    @Mock
+    private CardTransactionRepository cardTransactionRepository;
+
+    @Mock
+    private CardBalanceSnapshotRepository cardBalanceSnapshotRepository;
+
+    @Mock
+    private CardCreditSequencer cardCreditSequencer;
+
     @Mock
     private CardMapper cardMapper;
 
@@ -50,6 +72,8 @@ class CardServiceImplTest {
         CardCreateDto dto = new CardCreateDto("1234567812345678", BigDecimal.TEN, LocalDate.now(), accountId);
         Account account = new Account();
         Card card = new Card();
+        card.setCardNumber(dto.number());
+        card.setBalance(dto.balance());
 
         when(accountRepository.getActiveAccountById(accountId)).thenReturn(Optional.of(account));
         when(cardMapper.toEntity(dto)).thenReturn(card);
@@ -58,105 +82,154 @@ class CardServiceImplTest {
         var result = cardService.create(dto, c -> c);
         assertNotNull(result);
         verify(cardRepository).save(card);
+        assertEquals("5678", card.getCardLast4());
+        verify(cardSecretRepository).save(argThat(secret ->
+                secret.getCard() == card && dto.number().equals(secret.getCardNumber())));
+        verify(cardBalanceSnapshotRepository).save(argThat(snapshot -> snapshot.getBalance().signum() == 0));
+        verify(cardTransactionRepository).save(argThat(row ->
+                row.getType() == CardTransactionType.OPENING && BigDecimal.TEN.equals(row.getAmount())));
     }
 
     @Test
-    void testCreateCard_AccountNotFound() {
-        CardCreateDto dto = new CardCreateDto("1234567812345678", BigDecimal.TEN, LocalDate.now(), accountId);
-        when(accountRepository.getActiveAccountById(accountId)).thenReturn(Optional.empty());
+    void getEstimatedTotal_ShouldLeaveOutClosedCards() {
+        when(cardRepository.estimateCount()).thenReturn(1200L);
+        when(cardRepository.countClosed()).thenReturn(200L);
 
-        assertThrows(RuntimeException.class, () -> cardService.create(dto, c -> c));
+        assertEquals(1000L, cardService.getEstimatedTotal());
+    }
+
+    @Test
+    void getEstimatedTotal_ShouldCount_WhenTableWasNeverAnalyzed() {
+        when(cardRepository.estimateCount()).thenReturn(-1L);
+        when(cardRepository.count()).thenReturn(42L);
+
+        assertEquals(42L, cardService.getEstimatedTotal());
+        verify(cardRepository, never()).countClosed();
     }
 
     @Test
-    void testBalance_Increase_Success() {
+    void testFindById_DoesNotReadCardSecrets() {
         Card card = new Card();
         card.setId(cardId);
-        card.setAccount(new Account());
-        card.getAccount().setId(accountId);
-        card.setBalance(BigDecimal.ZERO);
-
-        BalanceDto dto = new BalanceDto(cardId, BigDecimal.valueOf(100));
+        card.setCardLast4("5678");
 
-        when(cardRepository.findActiveById(cardId)).thenReturn(Optional.of(card));
-        cardService.balance(accountId, dto, false);
+        when(cardRepository.findByAccountId(accountId, cardId)).thenReturn(Optional.of(card));
 
-        assertEquals(BigDecimal.valueOf(100), card.getBalance());
-        verify(cardRepository).save(card);
+        assertEquals("5678", cardService.findById(accountId, cardId, Card::getCardLast4));
+        verifyNoInteractions(cardSecretRepository);
     }
 
     @Test
-    void testBalance_AccessDenied() {
-        Card card = new Card();
-        card.setId(cardId);
-        card.setAccount(new Account());
-        card.getAccount().setId(UUID.randomUUID());
+    void testCreateCard_AccountNotFound() {
+        CardCreateDto dto = new CardCreateDto("1234567812345678", BigDecimal.TEN, LocalDate.now(), accountId);
+        when(accountRepository.getActiveAccountById(accountId)).thenReturn(Optional.empty());
 
+        assertThrows(RuntimeException.class, () -> cardService.create(dto, c -> c));
+    }
+
+    @Test
+    void testBalance_IsPassedToSequencer() {
         BalanceDto dto = new BalanceDto(cardId, BigDecimal.valueOf(100));
-        when(cardRepository.findActiveById(cardId)).thenReturn(Optional.of(card));
 
-        assertThrows(AccessException.class, () -> cardService.balance(accountId, dto, false));
+        cardService.balance(accountId, dto, true);
+
+        verify(cardCreditSequencer).credit(cardId, new CardCredit(accountId, true, BigDecimal.valueOf(100)));
+        verifyNoInteractions(cardTransactionRepository);
     }
 
     @Test
     void testTransfer_Success() {
-        UUID sourceId = UUID.randomUUID();
-        UUID targetId = UUID.randomUUID();
+        UUID sourceId = new UUID(0, 1);
+        UUID targetId = new UUID(0, 2);
+        CardTransferDto dto = new CardTransferDto(sourceId, targetId, BigDecimal.valueOf(50));
 
-        Card source = new Card();
-        source.setId(sourceId);
-        source.setStatus(CardStatus.ACTIVE);
-        source.setBalance(BigDecimal.valueOf(100));
-        Account acc = new Account(); acc.setId(accountId);
-        source.setAccount(acc);
+        when(cardRepository.debit(sourceId, accountId, BigDecimal.valueOf(50))).thenReturn(1);
+        when(cardRepository.credit(targetId, accountId, BigDecimal.valueOf(50))).thenReturn(1);
+        cardService.transfer(accountId, dto);
+
+        InOrder inOrder = inOrder(cardRepository);
+        inOrder.verify(cardRepository).debit(sourceId, accountId, BigDecimal.valueOf(50));
+        inOrder.verify(cardRepository).credit(targetId, accountId, BigDecimal.valueOf(50));
 
-        Card target = new Card();
-        target.setId(targetId);
-        target.setStatus(CardStatus.ACTIVE);
-        target.setBalance(BigDecimal.ZERO);
-        target.setAccount(acc);
+        //both sides are recorded, the ledger of every card sums up to its balance
+        verify(cardTransactionRepository).saveAll(argThat((List<CardTransaction> rows) -> rows.size() == 2
+                && rows.get(0).getCardId().equals(sourceId) && rows.get(0).getType() == CardTransactionType.TRANSFER_OUT
+                && BigDecimal.valueOf(-50).equals(rows.get(0).getAmount())
+                && rows.get(1).getCardId().equals(targetId) && rows.get(1).getType() == CardTransactionType.TRANSFER_IN
+                && BigDecimal.valueOf(50).equals(rows.get(1).getAmount())));
+    }
 
+    @Test
+    void testTransfer_UpdatesInIdOrder() {
+        //the lower id is first in uuid byte order, although its signed most significant bits are greater
+        UUID sourceId = new UUID(-1, 0);
+        UUID targetId = new UUID(1, 0);
         CardTransferDto dto = new CardTransferDto(sourceId, targetId, BigDecimal.valueOf(50));
 
-        when(cardRepository.findAllById(Set.of(sourceId, targetId))).thenReturn(List.of(source, target));
+        when(cardRepository.debit(sourceId, accountId, BigDecimal.valueOf(50))).thenReturn(1);
+        when(cardRepository.credit(targetId, accountId, BigDecimal.valueOf(50))).thenReturn(1);
         cardService.transfer(accountId, dto);
 
-        assertEquals(BigDecimal.valueOf(50), source.getBalance());
-        assertEquals(BigDecimal.valueOf(50), target.getBalance());
-        verify(cardRepository).saveAll(List.of(source, target));
+        InOrder inOrder = inOrder(cardRepository);
+        inOrder.verify(cardRepository).credit(targetId, accountId, BigDecimal.valueOf(50));
+        inOrder.verify(cardRepository).debit(sourceId, accountId, BigDecimal.valueOf(50));
     }
 
     @Test
     void testTransfer_NotEnoughFunds() {
-        UUID sourceId = UUID.randomUUID();
-        UUID targetId = UUID.randomUUID();
+        UUID sourceId = new UUID(0, 1);
+        UUID targetId = new UUID(0, 2);
+        CardTransferDto dto = new CardTransferDto(sourceId, targetId, BigDecimal.valueOf(50));
 
-        Card source = new Card();
-        source.setId(sourceId);
-        source.setStatus(CardStatus.ACTIVE);
-        source.setBalance(BigDecimal.valueOf(10));
-        Account acc = new Account(); acc.setId(accountId);
-        source.setAccount(acc);
+        when(cardRepository.debit(sourceId, accountId, BigDecimal.valueOf(50))).thenReturn(0);
 
-        Card target = new Card();
-        target.setId(targetId);
-        target.setStatus(CardStatus.ACTIVE);
-        target.setBalance(BigDecimal.ZERO);
-        target.setAccount(acc);
+        assertThrows(ElementNotFoundException.class, () -> cardService.transfer(accountId, dto));
+        verify(cardRepository, never()).credit(any(), any(), any());
+        verify(cardTransactionRepository, never()).saveAll(any());
+    }
 
-        CardTransferDto dto = new CardTransferDto(sourceId, targetId, BigDecimal.valueOf(50));
+    @Test
+    void testTransfer_SameCard() {
+        CardTransferDto dto = new CardTransferDto(cardId, cardId, BigDecimal.valueOf(50));
 
-        when(cardRepository.findAllById(Set.of(sourceId, targetId))).thenReturn(List.of(source, target));
         assertThrows(ElementNotFoundException.class, () -> cardService.transfer(accountId, dto));
     }
 
+    @Test
+    void testBatchTransfer_AppliesValidItemsAndRejectsOthers() {
+        UUID sourceId = new UUID(0, 1);
+        UUID targetId = new UUID(0, 2);
+        UUID foreignId = new UUID(0, 3);
+        Account acc = new Account(); acc.setId(accountId);
+        Account other = new Account(); other.setId(UUID.randomUUID());
+
+        Card source = Card.builder().id(sourceId).account(acc).status(CardStatus.ACTIVE).balance(BigDecimal.valueOf(100)).build();
+        Card target = Card.builder().id(targetId).account(acc).status(CardStatus.ACTIVE).balance(BigDecimal.ZERO).build();
+        Card foreign = Card.builder().id(foreignId).account(other).status(CardStatus.ACTIVE).balance(BigDecimal.ZERO).build();
+        when(cardRepository.findAllByIdForUpdate(Set.of(sourceId, targetId, foreignId))).thenReturn(List.of(source, target, foreign));
+
+        var results = cardService.transfer(accountId, List.of(
+                new CardTransferDto(sourceId, targetId, BigDecimal.valueOf(60)),
+                new CardTransferDto(sourceId, targetId, BigDecimal.valueOf(60)),
+                new CardTransferDto(sourceId, foreignId, BigDecimal.valueOf(10)),
+                new CardTransferDto(targetId, sourceId, BigDecimal.valueOf(20))));
+
+        assertEquals(List.of(TransferStatus.COMPLETED, TransferStatus.REJECTED, TransferStatus.REJECTED, TransferStatus.COMPLETED),
+                results.stream().map(CardTransferResultDto::status).toList());
+        assertEquals(BigDecimal.valueOf(60), source.getBalance());
+        assertEquals(BigDecimal.valueOf(40), target.getBalance());
+        assertEquals(BigDecimal.ZERO, foreign.getBalance());
+        verify(cardRepository, times(1)).findAllByIdForUpdate(any());
+        verify(cardTransactionRepository).saveAll(argThat((List<CardTransaction> rows) -> rows.size() == 4));
+    }
+
     @Test
     void testChangeCardStatus_Success() {
         Card card = new Card();
         card.setId(cardId);
         card.setStatus(CardStatus.ACTIVE);
 
-        when(cardRepository.findById(cardId)).thenReturn(Optional.of(card));
+        when(cardRepository.findByIdForUpdate(cardId)).thenReturn(Optional.of(card));
         cardService.changeCardStatus(cardId, CardStatus.BLOCKED);
 
         assertEquals(CardStatus.BLOCKED, card.getStatus());
@@ -173,7 +246,7 @@ class CardServiceImplTest {
 
         CardBlockedRequestDto dto = new CardBlockedRequestDto(cardId);
 
-        when(cardRepository.findById(cardId)).thenReturn(Optional.of(card));
+        when(cardRepository.findByIdForUpdate(cardId)).thenReturn(Optional.of(card));
         cardService.setBlockRequest(accountId, dto);
 
         assertNotNull(card.getBlockedRequestAt());
@@ -190,7 +263,83 @@ class CardServiceImplTest {
 
         CardBlockedRequestDto dto = new CardBlockedRequestDto(cardId);
 
-        when(cardRepository.findById(cardId)).thenReturn(Optional.of(card));
+        when(cardRepository.findByIdForUpdate(cardId)).thenReturn(Optional.of(card));
         assertThrows(AccessException.class, () -> cardService.setBlockRequest(accountId, dto));
     }
+
+    @Test
+    void testGetWindow_ReturnsCursorOfLastRow_WhenMoreRowsExist() {
+        var first = view(BigDecimal.ONE);
+        var second = view(BigDecimal.TEN);
+        var third = view(BigDecimal.TEN);
+        when(cardRepository.findViews(any(), eq(Sort.by(Sort.Direction.ASC, "balance", "id")), eq(0L), eq(3)))
+                .thenReturn(List.of(first, second, third));
+
+        var result = cardService.getWindow(Specification.allOf(), KeysetCursor.first("balance", Sort.Direction.ASC), 2, CardView::id);
+
+        assertEquals(List.of(first.id(), second.id()), result.content());
+        var next = KeysetCursor.decode(result.nextCursor());
+        assertEquals(new KeysetCursor("balance", Sort.Direction.ASC, "10", second.id()), next);
+    }
+
+    @Test
+    void testDeleteById_ClosesCard() {
+        var card = Card.builder().id(UUID.randomUUID()).build();
+        when(cardRepository.findById(card.getId())).thenReturn(Optional.of(card));
+
+        cardService.deleteById(card.getId());
+
+        assertNotNull(card.getDeletedAt());
+        verify(cardRepository).save(card);
+        verify(cardRepository, never()).deleteById(any());
+    }
+
+    @Test
+    void testGetWindow_LastPageHasNoCursor() {
+        var card = view(BigDecimal.ONE);
+        when(cardRepository.findViews(any(), any(), anyLong(), anyInt())).thenReturn(List.of(card));
+
+        var result = cardService.getWindow(Specification.allOf(), KeysetCursor.first("createdAt", Sort.Direction.DESC), 2, CardView::id);
+
+        assertEquals(List.of(card.id()), result.content());
+        assertNull(result.nextCursor());
+    }
+
+    @Test
+    void testGetWindow_RejectsUnsupportedField() {
+        var position = KeysetCursor.first("cardLast4", Sort.Direction.ASC);
+        assertThrows(InvalidCursorException.class,
+                () -> cardService.getWindow(Specification.allOf(), position, 2, CardView::id));
+        verify(cardRepository, never()).findViews(any(), any(), anyLong(), anyInt());
+    }
+
+    @Test
+    void testGetPages_SkipsCount_WhenFirstPageIsNotFull() {
+        var pageable = PageRequest.of(0, 10);
+        when(cardRepository.findViews(any(), eq(Sort.unsorted()), eq(0L), eq(10))).thenReturn(List.of(view(BigDecimal.ONE)));
+
+        var result = cardService.getPages(Specification.allOf(), pageable, CardView::balance);
+
+        assertEquals(1, result.getTotalElements());
+        assertEquals(List.of(BigDecimal.ONE), result.getContent());
+        verify(cardRepository, never()).count(any(Specification.class));
+    }
+
+    @Test
+    void testGetSlice_ReadsOneRowMore_AndNeverCounts() {
+        var pageable = PageRequest.of(1, 2);
+        when(cardRepository.findViews(any(), eq(Sort.unsorted()), eq(2L), eq(3)))
+                .thenReturn(List.of(view(BigDecimal.ONE), view(BigDecimal.TWO), view(BigDecimal.TEN)));
+
+        var result = cardService.getSlice(Specification.allOf(), pageable, CardView::balance);
+
+        assertEquals(List.of(BigDecimal.ONE, BigDecimal.TWO), result.getContent());
+        assertTrue(result.hasNext());
+        verify(cardRepository, never()).count(any(Specification.class));
+    }
+
+    private CardView view(BigDecimal balance) {
+        return new CardView(UUID.randomUUID(), "1234", "SMITH BOB", balance, CardStatus.ACTIVE,
+                LocalDate.now(), LocalDateTime.now());
+    }
 }
@@ -0,0 +1,154 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.config.PostgresIntegrationTest;
+import com.example.bankcards.dto.CardTransferDto;
+import com.example.bankcards.entity.Card;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class CardTransferIntegrationTest extends PostgresIntegrationTest {
+
+    private static final String TRANSFER = "CardServiceImpl.transfer";
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Test
+    void transfer_ShouldNotDeadlock_WhenOppositeTransfersRunConcurrently() throws Exception {
+        var account = account();
+        var first = card(account, BigDecimal.valueOf(1000));
+        var second = card(account, BigDecimal.valueOf(1000));
+        double retriesBefore = retries();
+
+        //both directions lock the two cards in id order, none of them can be picked as a deadlock victim
+        var transfers = new ArrayList<Callable<Void>>();
+        for (int i = 0; i < 80; i++) {
+            var source = i % 2 == 0 ? first : second;
+            var target = i % 2 == 0 ? second : first;
+            var sum = BigDecimal.valueOf(i % 2 == 0 ? 3 : 1);
+            transfers.add(() -> {
+                cardService.transfer(account.getId(), new CardTransferDto(source.getId(), target.getId(), sum));
+                return null;
+            });
+        }
+        var executor = Executors.newFixedThreadPool(8);
+        for (var future : executor.invokeAll(transfers, 30, TimeUnit.SECONDS)) {
+            future.get();
+        }
+        executor.shutdown();
+
+        assertEquals(0, retries() - retriesBefore);
+        assertEquals(0, BigDecimal.valueOf(920).compareTo(balance(account.getId(), first)));
+        assertEquals(0, BigDecimal.valueOf(1080).compareTo(balance(account.getId(), second)));
+    }
+
+    @Test
+    void transfer_ShouldBeRetried_WhenChosenAsDeadlockVictim() throws Exception {
+        var account = account();
+        var first = card(account, BigDecimal.valueOf(100));
+        var second = card(account, BigDecimal.valueOf(100));
+        double retriesBefore = retries();
+
+        var executor = Executors.newSingleThreadExecutor();
+        try (var other = dataSource.getConnection()) {
+            other.setAutoCommit(false);
+            //the transfer checks for deadlocks after the default second, this session too late to be the victim
+            execute(other, "SET LOCAL deadlock_timeout = '10s'");
+            var ordered = inLockOrder(other, first.getId(), second.getId());
+
+            //the transfer takes the lower id and waits for the higher one held here
+            lock(other, ordered.get(1));
+            Future<?> transfer = executor.submit(() -> {
+                cardService.transfer(account.getId(), new CardTransferDto(first.getId(), second.getId(), BigDecimal.TEN));
+                return null;
+            });
+            awaitLockWait(transfer);
+            //closes the cycle, the transfer is aborted with 40P01 and this session gets the row
+            lock(other, ordered.get(0));
+            other.commit();
+
+            transfer.get(30, TimeUnit.SECONDS);
+        } finally {
+            executor.shutdown();
+        }
+
+        assertEquals(1, retries() - retriesBefore);
+        assertEquals(0, BigDecimal.valueOf(90).compareTo(balance(account.getId(), first)));
+        assertEquals(0, BigDecimal.valueOf(110).compareTo(balance(account.getId(), second)));
+    }
+
+    //attempts that did not end in a success were retried or given up
+    private double retries() {
+        var attempts = meterRegistry.find("transaction.retry.attempts").tag("method", TRANSFER).counter();
+        var successes = meterRegistry.find("transaction.retry.successes").tag("method", TRANSFER).counter();
+        return (attempts == null ? 0 : attempts.count()) - (successes == null ? 0 : successes.count());
+    }
+
+    private BigDecimal balance(UUID accountId, Card card) {
+        return cardService.findById(accountId, card.getId(), Card::getBalance);
+    }
+
+    //uuid order of PostgreSQL, the one the transfer locks in
+    private ArrayList<UUID> inLockOrder(Connection connection, UUID first, UUID second) throws SQLException {
+        var ordered = new ArrayList<UUID>();
+        try (var statement = connection.prepareStatement("SELECT id FROM cards WHERE id IN (?, ?) ORDER BY id")) {
+            statement.setObject(1, first);
+            statement.setObject(2, second);
+            try (var rows = statement.executeQuery()) {
+                while (rows.next()) {
+                    ordered.add(rows.getObject(1, UUID.class));
+                }
+            }
+        }
+        return ordered;
+    }
+
+    private void awaitLockWait(Future<?> transfer) throws Exception {
+        try (var connection = dataSource.getConnection();
+             var waiting = connection.prepareStatement("""
+                     SELECT count(*) FROM pg_stat_activity
+                      WHERE datname = current_database() AND wait_event_type = 'Lock'
+                     """)) {
+            for (int i = 0; i < 500 && !transfer.isDone(); i++) {
+                try (var rows = waiting.executeQuery()) {
+                    rows.next();
+                    if (rows.getInt(1) > 0) {
+                        return;
+                    }
+                }
+                Thread.sleep(10);
+            }
+        }
+        throw new IllegalStateException("Transfer did not wait for the card lock");
+    }
+
+    private void lock(Connection connection, UUID cardId) throws SQLException {
+        try (var statement = connection.prepareStatement("SELECT 1 FROM cards WHERE id = ? FOR UPDATE")) {
+            statement.setObject(1, cardId);
+            statement.executeQuery().close();
+        }
+    }
+
+    private void execute(Connection connection, String sql) throws SQLException {
+        try (var statement = connection.createStatement()) {
+            statement.execute(sql);
+        }
+    }
+}
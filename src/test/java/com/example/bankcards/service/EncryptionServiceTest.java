@@ -0,0 +1,115 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.exception.EncryptionException;
+import com.example.bankcards.interfaces.services.CryptoEngine;
+import com.example.bankcards.service.crypto.AesGcmCryptoEngine;
+import com.example.bankcards.service.crypto.PgpSymmetricCryptoEngine;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Base64;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EncryptionServiceTest {
+
+    private static final String KEY = "test-crypto-key";
+
+    // pgp_sym_encrypt compatible messages: AES128/SHA1 without compression, AES256/SHA256 with zlib
+    private static final String PGP_AES128 = "jA0EBwMCGip+Q2JvQupg0kEBojtWpc7loKtK6p0wRYTNLYVsRt9YcBZhN/Iq/BtDtOJGmMnJ+DkfkStypTv4A9LTE0tKQocY7nd9HzbQvVqhkg==";
+    private static final String PGP_AES256_ZLIB = "jA0ECQMIDy7w2yb6+I1g0kEBr6EsRQo/aWIJzOXaMCPqIKvPsfU5c+2DP412wHbdK01xOksgMQAWRylmv9y33Gq/gosTqVYL61H6CVI5SsTVZg==";
+
+    private EncryptionService encryptionService;
+
+    @BeforeEach
+    void setUp() {
+        encryptionService = new EncryptionService(
+                List.of(new AesGcmCryptoEngine(KEY, List.of()), new PgpSymmetricCryptoEngine(KEY, List.of())),
+                AesGcmCryptoEngine.NAME);
+    }
+
+    @Test
+    void encrypt_ShouldRoundTrip() {
+        var ciphertext = encryptionService.encrypt("4111111111111111");
+
+        assertEquals(1, ciphertext[0]);
+        assertEquals("4111111111111111", encryptionService.decrypt(ciphertext));
+    }
+
+    @Test
+    void encrypt_ShouldUseRandomIv() {
+        assertFalse(java.util.Arrays.equals(
+                encryptionService.encrypt("4111111111111111"),
+                encryptionService.encrypt("4111111111111111")));
+    }
+
+    @Test
+    void nullValues_ShouldPassThrough() {
+        assertNull(encryptionService.encrypt(null));
+        assertNull(encryptionService.decrypt(null));
+    }
+
+    @Test
+    void decrypt_ShouldThrow_WhenCiphertextTampered() {
+        var ciphertext = encryptionService.encrypt("4111111111111111");
+        ciphertext[ciphertext.length - 1] ^= 1;
+
+        assertThrows(EncryptionException.class, () -> encryptionService.decrypt(ciphertext));
+    }
+
+    @Test
+    void decrypt_ShouldThrow_WhenKeyDiffers() {
+        var other = new AesGcmCryptoEngine("another-key", List.of());
+
+        assertThrows(EncryptionException.class, () -> encryptionService.decrypt(other.encrypt("4111111111111111")));
+    }
+
+    @Test
+    void decrypt_ShouldReadPgcryptoValues() {
+        assertEquals("4111111111111111", encryptionService.decrypt(Base64.getDecoder().decode(PGP_AES128)));
+        assertEquals("5500000000000004", encryptionService.decrypt(Base64.getDecoder().decode(PGP_AES256_ZLIB)));
+    }
+
+    @Test
+    void decrypt_ShouldThrow_WhenPgcryptoKeyDiffers() {
+        var service = new EncryptionService(
+                List.of(new AesGcmCryptoEngine("another-key", List.of()), new PgpSymmetricCryptoEngine("another-key", List.of())),
+                AesGcmCryptoEngine.NAME);
+
+        assertThrows(EncryptionException.class, () -> service.decrypt(Base64.getDecoder().decode(PGP_AES128)));
+    }
+
+    @Test
+    void decrypt_ShouldUseRetiredKeys() {
+        var oldCiphertext = encryptionService.encrypt("4111111111111111");
+        var rotated = new EncryptionService(
+                List.of(new AesGcmCryptoEngine("new-key", List.of(KEY)), new PgpSymmetricCryptoEngine("new-key", List.of(KEY))),
+                AesGcmCryptoEngine.NAME);
+
+        assertEquals("4111111111111111", rotated.decrypt(oldCiphertext));
+        assertEquals("4111111111111111", rotated.decrypt(Base64.getDecoder().decode(PGP_AES128)));
+    }
+
+    @Test
+    void needsRotation_ShouldBeFalse_OnlyForCurrentKey() {
+        var rotated = new EncryptionService(List.of(new AesGcmCryptoEngine("new-key", List.of(KEY))),
+                AesGcmCryptoEngine.NAME);
+
+        assertTrue(rotated.needsRotation(encryptionService.encrypt("4111111111111111")));
+        assertTrue(rotated.needsRotation(Base64.getDecoder().decode(PGP_AES128)));
+        assertFalse(rotated.needsRotation(rotated.encrypt("4111111111111111")));
+    }
+
+    @Test
+    void constructor_ShouldThrow_WhenEngineUnknown() {
+        assertThrows(IllegalStateException.class, () -> new EncryptionService(List.of(), "des"));
+    }
+
+    @Test
+    void constructor_ShouldThrow_WhenEngineCanNotEncrypt() {
+        var engines = List.<CryptoEngine>of(new AesGcmCryptoEngine(KEY, List.of()), new PgpSymmetricCryptoEngine(KEY, List.of()));
+
+        assertThrows(IllegalStateException.class, () -> new EncryptionService(engines, PgpSymmetricCryptoEngine.NAME));
+    }
+}
@@ -0,0 +1,116 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.entity.IdempotencyRecord;
+import com.example.bankcards.exception.IdempotencyKeyException;
+import com.example.bankcards.repository.IdempotencyRecordRepository;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class IdempotencyServiceImplTest {
+
+    private static final TypeReference<List<String>> RESULT_TYPE = new TypeReference<>() {};
+
+    @Mock
+    private IdempotencyRecordRepository idempotencyRecordRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private IdempotencyServiceImpl idempotencyService;
+    private final UUID accountId = UUID.randomUUID();
+    private final AtomicInteger calls = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        idempotencyService = new IdempotencyServiceImpl(idempotencyRecordRepository, new ObjectMapper(),
+                new SimpleMeterRegistry(), transactionManager, Duration.ofHours(1), 10);
+        TransactionSynchronizationManager.initSynchronization();
+    }
+
+    @AfterEach
+    void tearDown() {
+        TransactionSynchronizationManager.clearSynchronization();
+    }
+
+    @Test
+    void execute_ShouldRunAction_WhenKeyMissing() {
+        assertEquals(List.of("done"), execute(null, "request"));
+        verifyNoInteractions(idempotencyRecordRepository, transactionManager);
+    }
+
+    @Test
+    void execute_ShouldStoreResult_AndReplayFromCacheAfterCommit() {
+        when(idempotencyRecordRepository.claim(eq(accountId), eq("key-1"), anyString(), any(), any())).thenReturn(1);
+
+        assertEquals(List.of("done"), execute("key-1", "request"));
+        verify(idempotencyRecordRepository).saveResponse(accountId, "key-1", "[\"done\"]");
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+
+        assertEquals(List.of("done"), execute("key-1", "request"));
+        assertEquals(1, calls.get());
+        verify(idempotencyRecordRepository, times(1)).claim(any(), any(), any(), any(), any());
+    }
+
+    @Test
+    void execute_ShouldReplayStoredResult_WhenKeyAlreadyClaimed() {
+        var hash = ArgumentCaptor.forClass(String.class);
+        when(idempotencyRecordRepository.claim(eq(accountId), eq("key-1"), hash.capture(), any(), any())).thenReturn(0);
+        when(idempotencyRecordRepository.findByAccountIdAndKey(accountId, "key-1")).thenAnswer(inv -> Optional.of(
+                IdempotencyRecord.builder()
+                        .requestHash(hash.getValue())
+                        .response("[\"stored\"]")
+                        .expiresAt(LocalDateTime.now().plusHours(1))
+                        .build()));
+
+        assertEquals(List.of("stored"), execute("key-1", "request"));
+        assertEquals(0, calls.get());
+    }
+
+    @Test
+    void execute_ShouldThrow_WhenKeyReusedForAnotherRequest() {
+        when(idempotencyRecordRepository.claim(eq(accountId), eq("key-1"), anyString(), any(), any())).thenReturn(0);
+        when(idempotencyRecordRepository.findByAccountIdAndKey(accountId, "key-1")).thenReturn(Optional.of(
+                IdempotencyRecord.builder()
+                        .requestHash("another")
+                        .response("[\"stored\"]")
+                        .expiresAt(LocalDateTime.now().plusHours(1))
+                        .build()));
+
+        assertThrows(IdempotencyKeyException.class, () -> execute("key-1", "request"));
+        assertEquals(0, calls.get());
+    }
+
+    @Test
+    void execute_ShouldThrow_WhenKeyTooLong() {
+        assertThrows(IdempotencyKeyException.class, () -> execute("k".repeat(101), "request"));
+    }
+
+    private List<String> execute(String key, String request) {
+        return idempotencyService.execute(accountId, key, "/card/transfer", request, RESULT_TYPE, () -> {
+            calls.incrementAndGet();
+            return List.of("done");
+        });
+    }
+}
@@ -0,0 +1,78 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.config.PostgresIntegrationTest;
+import com.example.bankcards.constants.ApiConstants;
+import com.example.bankcards.dto.BalanceDto;
+import com.example.bankcards.dto.CardTransferDto;
+import com.example.bankcards.entity.Card;
+import com.example.bankcards.interfaces.services.IdempotencyService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class IdempotencyServiceIntegrationTest extends PostgresIntegrationTest {
+
+    private static final int REQUESTS = 10;
+
+    @Autowired
+    private IdempotencyService idempotencyService;
+
+    @Test
+    void execute_ShouldMoveMoneyOnce_WhenSameKeyIsSentConcurrently() throws Exception {
+        var account = account();
+        var source = card(account, BigDecimal.valueOf(100));
+        var target = card(account, BigDecimal.ZERO);
+        var key = UUID.randomUUID().toString();
+        var transfer = new CardTransferDto(source.getId(), target.getId(), BigDecimal.TEN);
+
+        //every request but the one that claimed the key waits for its insert and replays the result
+        runConcurrently(() -> idempotencyService.execute(account.getId(), key, ApiConstants.Card.API_CARD_TRANSFER, transfer,
+                () -> cardService.transfer(account.getId(), transfer)));
+
+        assertEquals(0, BigDecimal.valueOf(90).compareTo(balance(account.getId(), source)));
+        assertEquals(0, BigDecimal.TEN.compareTo(balance(account.getId(), target)));
+    }
+
+    @Test
+    void execute_ShouldTopUpOnce_WhenSameKeyIsSentConcurrently() throws Exception {
+        var account = account();
+        var card = card(account, BigDecimal.ZERO);
+        var key = UUID.randomUUID().toString();
+        var topUp = new BalanceDto(card.getId(), BigDecimal.ONE);
+
+        runConcurrently(() -> idempotencyService.execute(account.getId(), key, ApiConstants.Card.API_CARD_BALANCE_INCREASE, topUp,
+                () -> cardService.balance(account.getId(), topUp, false)));
+
+        assertEquals(0, BigDecimal.ONE.compareTo(balance(account.getId(), card)));
+    }
+
+    private void runConcurrently(Runnable request) throws Exception {
+        var requests = new ArrayList<Callable<Void>>();
+        for (int i = 0; i < REQUESTS; i++) {
+            requests.add(() -> {
+                request.run();
+                return null;
+            });
+        }
+        var executor = Executors.newFixedThreadPool(REQUESTS);
+        try {
+            for (var future : executor.invokeAll(requests, 30, TimeUnit.SECONDS)) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private BigDecimal balance(UUID accountId, Card card) {
+        return cardService.findById(accountId, card.getId(), Card::getBalance);
+    }
+}
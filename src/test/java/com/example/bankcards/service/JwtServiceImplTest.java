@@ -0,0 +1,279 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.constants.ClaimConstants;
+import com.example.bankcards.dto.AccountDto;
+import com.example.bankcards.entity.Account;
+import com.example.bankcards.entity.Token;
+import com.example.bankcards.enums.AccountStatus;
+import com.example.bankcards.enums.Role;
+import com.example.bankcards.enums.TokenStatus;
+import com.example.bankcards.enums.TokenType;
+import com.example.bankcards.exception.BlockedStatusException;
+import com.example.bankcards.exception.ValidationTokenException;
+import com.example.bankcards.mappers.TokenMapper;
+import com.example.bankcards.repository.AccountRepository;
+import com.example.bankcards.repository.TokenRepository;
+import com.example.bankcards.security.TokenRevocationList;
+import com.example.bankcards.util.HashUtils;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class JwtServiceImplTest {
+
+    private static final String ACCESS_SECRET = "access-secret-access-secret-access-secret-access-secret";
+    private static final String REFRESH_SECRET = "refresh-secret-refresh-secret-refresh-secret-refresh";
+
+    @Mock
+    private TokenRepository tokenRepository;
+    @Mock
+    private TokenMapper tokenMapper;
+    @Mock
+    private AccountRepository accountRepository;
+    @Mock
+    private TokenRevocationList tokenRevocationList;
+
+    @InjectMocks
+    private JwtServiceImpl jwtService;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        ReflectionTestUtils.setField(jwtService, "accessTokenSecret", ACCESS_SECRET);
+        ReflectionTestUtils.setField(jwtService, "refreshTokenSecret", REFRESH_SECRET);
+        ReflectionTestUtils.setField(jwtService, "accessTokenExpiresIn", 60_000);
+        ReflectionTestUtils.setField(jwtService, "refreshTokenExpiresIn", 120_000);
+        jwtService.init();
+    }
+
+    @Test
+    void verify_ShouldReturnClaims_WhenTokenValid() {
+        var token = token(ACCESS_SECRET, System.currentTimeMillis() + 60_000);
+
+        var verified = jwtService.verify(token, TokenType.ACCESS_TOKEN);
+
+        assertEquals("user", verified.subject());
+        assertEquals(TokenType.ACCESS_TOKEN, verified.type());
+    }
+
+    @Test
+    void verify_ShouldThrow_WhenTokenExpired() {
+        var token = token(ACCESS_SECRET, System.currentTimeMillis() - 60_000);
+
+        var ex = assertThrows(ValidationTokenException.class, () -> jwtService.verify(token, TokenType.ACCESS_TOKEN));
+        assertEquals("Token expired", ex.getMessage());
+    }
+
+    @Test
+    void verify_ShouldThrow_WhenSignedWithAnotherKey() {
+        var token = token(REFRESH_SECRET, System.currentTimeMillis() + 60_000);
+
+        assertThrows(ValidationTokenException.class, () -> jwtService.verify(token, TokenType.ACCESS_TOKEN));
+        assertEquals("user", jwtService.verify(token, TokenType.REFRESH_TOKEN).subject());
+    }
+
+    @Test
+    void validateToken_ShouldReturnInvalid_WhenTokenEmpty() {
+        var result = jwtService.validateToken(" ", TokenType.ACCESS_TOKEN);
+
+        assertFalse(result.isValid());
+        assertEquals("Token is empty or null", result.getMessage());
+    }
+
+    @Test
+    void getUserDetails_ShouldUseVerifiedToken() {
+        var token = token(ACCESS_SECRET, System.currentTimeMillis() + 60_000);
+        var account = Account.builder().id(UUID.randomUUID()).username("user").status(AccountStatus.ACTIVE).role(Role.USER).build();
+        when(tokenRepository.findTokenByAccessToken(token)).thenReturn(Optional.of(Token.builder().account(account).build()));
+
+        var userDetails = jwtService.getUserDetails(jwtService.verify(token, TokenType.ACCESS_TOKEN));
+
+        assertEquals(account.getId(), userDetails.id());
+        assertEquals("user", userDetails.getUsername());
+        assertTrue(userDetails.hasRole(Role.USER));
+        assertFalse(userDetails.hasRole(Role.ADMIN));
+    }
+
+    @Test
+    void getUserDetails_ShouldBuildPrincipalFromClaims_WhenStateless() {
+        var accountId = UUID.randomUUID();
+        useStatelessMode(Set.of());
+
+        var principal = jwtService.getUserDetails(jwtService.verify(token(accountId), TokenType.ACCESS_TOKEN));
+
+        assertEquals(accountId, principal.id());
+        assertTrue(principal.hasRole(Role.ADMIN));
+        assertEquals("ROLE_ADMIN", principal.getAuthorities().iterator().next().getAuthority());
+        verify(tokenRepository, never()).findTokenByAccessToken(any());
+    }
+
+    @Test
+    void getUserDetails_ShouldThrow_WhenRevokedInStatelessMode() {
+        var accountId = UUID.randomUUID();
+        useStatelessMode(Set.of());
+        var token = jwtService.verify(token(accountId), TokenType.ACCESS_TOKEN);
+        tokenRevocationList.revoke(accountId, LocalDateTime.now().plusSeconds(1));
+
+        assertThrows(ValidationTokenException.class, () -> jwtService.getUserDetails(token));
+    }
+
+    @Test
+    void getUserDetails_ShouldThrow_WhenBlockedInStatelessMode() {
+        var accountId = UUID.randomUUID();
+        useStatelessMode(Set.of(accountId));
+
+        var token = jwtService.verify(token(accountId), TokenType.ACCESS_TOKEN);
+
+        assertThrows(BlockedStatusException.class, () -> jwtService.getUserDetails(token));
+    }
+
+    @Test
+    void getUserDetails_ShouldThrow_WhenAccountDeletedInStatelessMode() {
+        var accountId = UUID.randomUUID();
+        useStatelessMode(Set.of());
+        var token = jwtService.verify(token(accountId, new Date(System.currentTimeMillis() - 60_000)), TokenType.ACCESS_TOKEN);
+        when(tokenRepository.revokeActiveTokens(eq(accountId), any())).thenReturn(1);
+
+        //the account delete revokes its tokens first, the claims alone would still be valid
+        jwtService.changeTokenStatus(accountId, TokenStatus.INACTIVE);
+
+        assertThrows(ValidationTokenException.class, () -> jwtService.getUserDetails(token));
+    }
+
+    @Test
+    void changeTokenStatus_ShouldRevokeTokensInBulk() {
+        var accountId = UUID.randomUUID();
+        when(tokenRepository.revokeActiveTokens(eq(accountId), any())).thenReturn(2);
+
+        jwtService.changeTokenStatus(accountId, TokenStatus.INACTIVE);
+
+        verify(tokenRepository).revokeActiveTokens(eq(accountId), any());
+        verify(tokenRevocationList).revoke(eq(accountId), any());
+        verify(tokenRepository, never()).saveAll(any());
+    }
+
+    @Test
+    void createAuthorizationToken_ShouldReuseActiveToken() {
+        var account = accountDto();
+        var token = Token.builder().build();
+        when(tokenRepository.findReusableToken(eq(account.getId()), any(), any())).thenReturn(Optional.of(token));
+
+        jwtService.createAuthorizationToken(account);
+
+        verify(tokenMapper).entityToDto(token);
+        verify(tokenRepository, never()).revokeActiveTokens(any(), any());
+        verify(tokenRepository, never()).save(any());
+    }
+
+    @Test
+    void createAuthorizationToken_ShouldRevokePreviousTokens_WhenNoneReusable() {
+        var account = accountDto();
+        when(tokenRepository.findReusableToken(eq(account.getId()), any(), any())).thenReturn(Optional.empty());
+
+        jwtService.createAuthorizationToken(account);
+
+        var inOrder = inOrder(tokenRepository);
+        inOrder.verify(tokenRepository).revokeActiveTokens(eq(account.getId()), any());
+        inOrder.verify(tokenRepository).save(any());
+    }
+
+    @Test
+    void refreshAuthorizationToken_ShouldFindTokenByDigest_AndRevokeReplacedAccessToken() {
+        var refreshToken = token(REFRESH_SECRET, System.currentTimeMillis() + 60_000);
+        var account = Account.builder().id(UUID.randomUUID()).username("user").role(Role.USER).build();
+        var token = Token.builder()
+                .account(account)
+                .accessToken("old-access-token")
+                .refreshToken(refreshToken)
+                .accessTokenExpires(LocalDateTime.now().plusMinutes(5))
+                .refreshTokenExpires(LocalDateTime.now().plusDays(7))
+                .status(TokenStatus.ACTIVE)
+                .build();
+        //only the digest is stored, the raw token must never reach the query
+        when(tokenRepository.findTokenByRefreshToken(refreshToken)).thenCallRealMethod();
+        when(tokenRepository.findTokenByRefreshTokenHash(HashUtils.sha256Hex(refreshToken))).thenReturn(Optional.of(token));
+        when(tokenRepository.save(token)).thenReturn(token);
+
+        jwtService.refreshAuthorizationToken(refreshToken);
+
+        verify(tokenRepository, never()).findTokenByRefreshTokenHash(refreshToken);
+        assertNotNull(token.getRevokedAt());
+        assertNotEquals("old-access-token", token.getAccessToken());
+        assertEquals(TokenStatus.ACTIVE, token.getStatus());
+        verify(tokenRevocationList).revoke(account.getId(), token.getRevokedAt());
+        verify(tokenRepository).save(token);
+    }
+
+    @Test
+    void refreshAuthorizationToken_ShouldDeactivateAndRevoke_WhenRefreshTokenExpiresSoon() {
+        var refreshToken = token(REFRESH_SECRET, System.currentTimeMillis() + 60_000);
+        var account = Account.builder().id(UUID.randomUUID()).username("user").role(Role.USER).build();
+        var token = Token.builder()
+                .account(account)
+                .refreshToken(refreshToken)
+                .accessTokenExpires(LocalDateTime.now().plusMinutes(5))
+                .refreshTokenExpires(LocalDateTime.now().plusHours(1))
+                .status(TokenStatus.ACTIVE)
+                .build();
+        when(tokenRepository.findTokenByRefreshToken(refreshToken)).thenCallRealMethod();
+        when(tokenRepository.findTokenByRefreshTokenHash(HashUtils.sha256Hex(refreshToken))).thenReturn(Optional.of(token));
+
+        jwtService.refreshAuthorizationToken(refreshToken);
+
+        assertEquals(TokenStatus.INACTIVE, token.getStatus());
+        verify(tokenRevocationList).revoke(account.getId(), token.getRevokedAt());
+        verify(tokenRepository).save(token);
+    }
+
+    private static AccountDto accountDto() {
+        return AccountDto.builder()
+                .id(UUID.randomUUID())
+                .login("user")
+                .email("user@test.ru")
+                .firstName("first")
+                .lastName("last")
+                .role(Role.USER.getRoleWithPrefix())
+                .build();
+    }
+
+    private void useStatelessMode(Set<UUID> blockedAccounts) {
+        tokenRevocationList = new TokenRevocationList(tokenRepository, accountRepository, true, 60_000);
+        when(accountRepository.getIdsByStatus(AccountStatus.BLOCKED)).thenReturn(blockedAccounts);
+        tokenRevocationList.refresh();
+        ReflectionTestUtils.setField(jwtService, "tokenRevocationList", tokenRevocationList);
+        ReflectionTestUtils.setField(jwtService, "stateless", true);
+    }
+
+    private static String token(UUID accountId) {
+        return token(accountId, new Date());
+    }
+
+    private static String token(UUID accountId, Date issuedAt) {
+        return Jwts.builder()
+                .subject("admin")
+                .claims(Map.of(ClaimConstants.ACCOUNT_ID, accountId, ClaimConstants.ACCOUNT_ROLE, Role.ADMIN.getRoleWithPrefix()))
+                .issuedAt(issuedAt)
+                .expiration(new Date(System.currentTimeMillis() + 60_000))
+                .signWith(Keys.hmacShaKeyFor(ACCESS_SECRET.getBytes()), Jwts.SIG.HS256)
+                .compact();
+    }
+
+    private static String token(String secret, long expiresAt) {
+        return Jwts.builder()
+                .subject("user")
+                .expiration(new Date(expiresAt))
+                .signWith(Keys.hmacShaKeyFor(secret.getBytes()), Jwts.SIG.HS256)
+                .compact();
+    }
+}
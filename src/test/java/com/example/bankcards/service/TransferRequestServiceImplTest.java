@@ -0,0 +1,151 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.dto.CardTransferDto;
+import com.example.bankcards.dto.CardTransferResultDto;
+import com.example.bankcards.entity.TransferRequest;
+import com.example.bankcards.enums.TransferRequestStatus;
+import com.example.bankcards.exception.ElementNotFoundException;
+import com.example.bankcards.interfaces.services.CardService;
+import com.example.bankcards.mappers.TransferRequestMapper;
+import com.example.bankcards.repository.TransferRequestRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.data.domain.Limit;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class TransferRequestServiceImplTest {
+
+    @Mock
+    private TransferRequestRepository transferRequestRepository;
+
+    @Mock
+    private CardService cardService;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private TransferRequestServiceImpl transferRequestService;
+
+    @BeforeEach
+    void setup() {
+        MockitoAnnotations.openMocks(this);
+        transferRequestService = new TransferRequestServiceImpl(transferRequestRepository, cardService,
+                new TransferRequestMapper(), new SimpleMeterRegistry(), transactionManager);
+    }
+
+    @Test
+    void processPending_ShouldRunEachAccountInOwnTransaction() {
+        var first = UUID.randomUUID();
+        var second = UUID.randomUUID();
+        var completed = request(first);
+        var rejected = request(first);
+        var other = request(second);
+        when(transferRequestRepository.findPendingAccountIds(eq(TransferRequestStatus.PENDING), any())).thenReturn(List.of(first, second));
+        when(transferRequestRepository.claimPending(eq(first), eq(TransferRequestStatus.PENDING), eq(Limit.of(10)))).thenReturn(List.of(completed, rejected));
+        when(transferRequestRepository.claimPending(eq(second), eq(TransferRequestStatus.PENDING), eq(Limit.of(8)))).thenReturn(List.of(other));
+        when(cardService.transfer(eq(first), anyList())).thenAnswer(invocation -> {
+            List<CardTransferDto> transfers = invocation.getArgument(1);
+            return List.of(CardTransferResultDto.completed(0, transfers.get(0)),
+                    CardTransferResultDto.rejected(1, transfers.get(1), "not enough money"));
+        });
+        when(cardService.transfer(eq(second), anyList())).thenAnswer(invocation -> {
+            List<CardTransferDto> transfers = invocation.getArgument(1);
+            return List.of(CardTransferResultDto.completed(0, transfers.get(0)));
+        });
+
+        assertEquals(3, transferRequestService.processPending(10));
+
+        verify(transactionManager, times(2)).getTransaction(any());
+        verify(transactionManager, times(2)).commit(any());
+        assertEquals(TransferRequestStatus.COMPLETED, completed.getStatus());
+        assertEquals(TransferRequestStatus.REJECTED, rejected.getStatus());
+        assertEquals("not enough money", rejected.getMessage());
+        assertEquals(TransferRequestStatus.COMPLETED, other.getStatus());
+        assertNotNull(other.getProcessedAt());
+    }
+
+    @Test
+    void processPending_ShouldRejectOnlyFailingRequest_WhenAccountBatchFails() {
+        var accountId = UUID.randomUUID();
+        var good = request(accountId);
+        var poison = request(accountId);
+        when(transferRequestRepository.findPendingAccountIds(eq(TransferRequestStatus.PENDING), any())).thenReturn(List.of(accountId));
+        when(transferRequestRepository.claimPending(eq(accountId), eq(TransferRequestStatus.PENDING), any())).thenReturn(List.of(good, poison));
+        when(transferRequestRepository.findPendingIds(eq(accountId), eq(TransferRequestStatus.PENDING), any())).thenReturn(List.of(good.getId(), poison.getId()));
+        when(transferRequestRepository.claimById(good.getId(), TransferRequestStatus.PENDING)).thenReturn(Optional.of(good));
+        when(transferRequestRepository.claimById(poison.getId(), TransferRequestStatus.PENDING)).thenReturn(Optional.of(poison));
+        when(cardService.transfer(eq(accountId), anyList())).thenAnswer(invocation -> {
+            List<CardTransferDto> transfers = invocation.getArgument(1);
+            if (transfers.stream().anyMatch(t -> t.sourceId().equals(poison.getSourceCardId()))) {
+                throw new IllegalStateException("broken request");
+            }
+            return List.of(CardTransferResultDto.completed(0, transfers.get(0)));
+        });
+
+        assertEquals(2, transferRequestService.processPending(10));
+
+        assertEquals(TransferRequestStatus.COMPLETED, good.getStatus());
+        assertEquals(TransferRequestStatus.REJECTED, poison.getStatus());
+        assertNotNull(poison.getMessage());
+        assertNotNull(poison.getProcessedAt());
+    }
+
+    @Test
+    void processPending_ShouldLeaveAccountPending_WhenDeadlocked() {
+        var accountId = UUID.randomUUID();
+        var pending = request(accountId);
+        when(transferRequestRepository.findPendingAccountIds(eq(TransferRequestStatus.PENDING), any())).thenReturn(List.of(accountId));
+        when(transferRequestRepository.claimPending(eq(accountId), eq(TransferRequestStatus.PENDING), any())).thenReturn(List.of(pending));
+        when(cardService.transfer(eq(accountId), anyList()))
+                .thenThrow(new CannotAcquireLockException("deadlock", new SQLException("deadlock detected", "40P01")));
+
+        assertThrows(CannotAcquireLockException.class, () -> transferRequestService.processPending(10));
+
+        assertEquals(TransferRequestStatus.PENDING, pending.getStatus());
+        verify(transferRequestRepository, never()).findPendingIds(any(), any(), any());
+    }
+
+    @Test
+    void processPending_ShouldDoNothing_WhenQueueEmpty() {
+        when(transferRequestRepository.findPendingAccountIds(eq(TransferRequestStatus.PENDING), any())).thenReturn(List.of());
+
+        assertEquals(0, transferRequestService.processPending(10));
+        verifyNoInteractions(cardService);
+    }
+
+    @Test
+    void findById_ShouldThrow_WhenRequestOfAnotherAccount() {
+        var accountId = UUID.randomUUID();
+        var id = UUID.randomUUID();
+        when(transferRequestRepository.findByIdAndAccountId(id, accountId)).thenReturn(Optional.empty());
+
+        assertThrows(ElementNotFoundException.class, () -> transferRequestService.findById(accountId, id, r -> r));
+    }
+
+    private TransferRequest request(UUID accountId) {
+        return TransferRequest.builder()
+                .id(UUID.randomUUID())
+                .accountId(accountId)
+                .sourceCardId(UUID.randomUUID())
+                .targetCardId(UUID.randomUUID())
+                .amount(BigDecimal.TEN)
+                .status(TransferRequestStatus.PENDING)
+                .build();
+    }
+}